@@ -0,0 +1,239 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.service.FilmChangedEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of films with genres and directors keyed by film id.
+ * Caffeine evicts by size with W-TinyLFU admission, so rarely requested films do not push out hot ones.
+ * Films are stored as immutable snapshots and every read returns a new Film instance,
+ * so callers may modify returned films without affecting other threads.
+ * Every invalidation bumps the version of the film id; a film loaded from the database is cached
+ * only if its version has not changed during loading, so a concurrent update cannot be overwritten
+ * by an older copy. The version is checked inside the cache's compute, so no lock of this class
+ * is held while calling the cache and the removal listener takes none.
+ * Cached films are indexed by director, so a director change invalidates only the films of the director.
+ * It also bumps the director version, which a loaded film must match too: the directors of a film
+ * are not known before it is loaded. The index may keep films that are no longer cached,
+ * invalidating them again is harmless.
+ */
+@Component
+public class FilmCache {
+
+    static final int MAXIMUM_SIZE = 10_000;
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Cache<Long, FilmSnapshot> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong directorVersion = new AtomicLong();
+    private final Map<Long, Set<Long>> directorFilms = new ConcurrentHashMap<>();
+
+    public FilmCache() {
+        this(MAXIMUM_SIZE);
+    }
+
+    FilmCache(int maximumSize) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .executor(Runnable::run)
+                .removalListener(this::onRemoval)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns a film by id from the cache or loads it with the loader
+     *
+     * @param id
+     * @param loader loads the film with genres and directors
+     * @return film
+     */
+    public Film getFilm(Long id, Function<Long, Film> loader) {
+        FilmSnapshot snapshot = cache.getIfPresent(id);
+
+        if (snapshot != null) {
+            return snapshot.toFilm();
+        }
+
+        LoadVersion version = getVersion(id);
+        Film film = loader.apply(id);
+        put(film, version);
+
+        return film;
+    }
+
+    /**
+     * Returns a list of films by id list
+     * Films missing in the cache are loaded with the loader in one call
+     *
+     * @param ids
+     * @param loader loads films with genres and directors by id list
+     * @return list of films in the order of the id list
+     */
+    public List<Film> getFilms(List<Long> ids, Function<List<Long>, List<Film>> loader) {
+        Map<Long, FilmSnapshot> cached = cache.getAllPresent(ids);
+        Map<Long, Film> films = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+
+        for (Long id : ids) {
+            FilmSnapshot snapshot = cached.get(id);
+
+            if (snapshot != null) {
+                films.put(id, snapshot.toFilm());
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            Map<Long, LoadVersion> loadVersions = missingIds.stream()
+                    .distinct()
+                    .collect(Collectors.toMap(Function.identity(), this::getVersion));
+
+            for (Film film : loader.apply(missingIds)) {
+                put(film, loadVersions.get(film.getId()));
+                films.put(film.getId(), film);
+            }
+        }
+
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Removes a film from the cache
+     *
+     * @param id
+     */
+    public void invalidate(Long id) {
+        versions.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        invalidate(event.getFilmId());
+    }
+
+    @EventListener
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        directorVersion.incrementAndGet();
+
+        Set<Long> ids = directorFilms.remove(event.getDirectorId());
+
+        if (ids != null) {
+            ids.forEach(this::invalidate);
+        }
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    public double getHitRatio() {
+        return cache.stats().hitRate();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    private LoadVersion getVersion(Long id) {
+        return new LoadVersion(versions.get(stripe(id)), directorVersion.get());
+    }
+
+    private void put(Film film, LoadVersion version) {
+        if (film == null || film.getId() == null || version == null) {
+            return;
+        }
+
+        FilmSnapshot snapshot = new FilmSnapshot(film);
+        FilmSnapshot cached = cache.asMap().compute(film.getId(), (id, current) ->
+                versions.get(stripe(id)) == version.film && directorVersion.get() == version.directors
+                        ? snapshot : current);
+
+        if (cached == snapshot) {
+            for (Long directorId : snapshot.directorIds) {
+                directorFilms.computeIfAbsent(directorId, key -> ConcurrentHashMap.newKeySet()).add(snapshot.id);
+            }
+        }
+    }
+
+    /**
+     * Removes a film from the director index unless it is cached again with the same director.
+     * Films are linked only after they are cached, so a link made concurrently is either kept
+     * by the check or added after the unlink.
+     */
+    private void onRemoval(Long id, FilmSnapshot snapshot, RemovalCause cause) {
+        if (id == null || snapshot == null) {
+            return;
+        }
+
+        for (Long directorId : snapshot.directorIds) {
+            directorFilms.computeIfPresent(directorId, (key, ids) -> {
+                FilmSnapshot current = cache.asMap().get(id);
+
+                if (current == null || !current.directorIds.contains(directorId)) {
+                    ids.remove(id);
+                }
+
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private int stripe(Long id) {
+        return (int) (id & (VERSION_STRIPES - 1));
+    }
+
+    @RequiredArgsConstructor
+    private static final class LoadVersion {
+
+        private final long film;
+        private final long directors;
+    }
+
+    private static final class FilmSnapshot {
+
+        private final Long id;
+        private final Film film;
+        private final Set<Long> directorIds;
+
+        FilmSnapshot(Film film) {
+            this.id = film.getId();
+            this.film = film.copy();
+            this.directorIds = film.getDirectors() == null ? Set.of() : film.getDirectors().stream()
+                    .map(Director::getId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        Film toFilm() {
+            return film.copy();
+        }
+    }
+}
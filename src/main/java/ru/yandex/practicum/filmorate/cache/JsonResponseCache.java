@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import ru.yandex.practicum.filmorate.service.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.service.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.service.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.UserRemovedEvent;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of serialized JSON responses of hot read endpoints.
+ * Responses are stored as UTF-8 bytes together with a strong ETag and written to the client as is.
+ * Cache keys include the version of the data the response was built from; versions are bumped
+ * by catalog change events, so a response built from old data is never served again.
+ * Entries expire {@link #EXPIRE_AFTER_WRITE} after they were built, which bounds the staleness
+ * caused by changes made without an event.
+ * A client sending a matching If-None-Match gets 304 without serialization or database access.
+ */
+@Component
+public class JsonResponseCache {
+
+    static final long MAXIMUM_WEIGHT_BYTES = 16 * 1024 * 1024;
+    static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedResponse> cache;
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+
+    public JsonResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(MAXIMUM_WEIGHT_BYTES)
+                .weigher((String key, CachedResponse response) -> key.length() + response.body.length)
+                .expireAfterWrite(EXPIRE_AFTER_WRITE)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+        }
+    }
+
+    /**
+     * Returns the cached JSON response for the key or builds it from the supplied body
+     * If ifNoneMatch contains the ETag of the response, returns 304 without a body
+     *
+     * @param resource    data the response is built from
+     * @param key         endpoint and request parameters
+     * @param ifNoneMatch value of the If-None-Match header or null
+     * @param body        supplies the response body on a cache miss
+     * @return response with JSON body and ETag
+     */
+    public ResponseEntity<byte[]> respond(Resource resource, String key, String ifNoneMatch, Supplier<?> body) {
+        String versionedKey = resource.name() + ':' + versions.get(resource).get() + ':' + key;
+        CachedResponse response = cache.get(versionedKey, k -> serialize(body.get()));
+
+        if (matches(ifNoneMatch, response.eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.eTag)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(response.eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.body);
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        invalidate(Resource.FILMS);
+    }
+
+    @EventListener
+    public void onLikeChanged(LikeChangedEvent event) {
+        invalidate(Resource.FILMS);
+    }
+
+    @EventListener
+    public void onUserRemoved(UserRemovedEvent event) {
+        invalidate(Resource.FILMS);
+    }
+
+    @EventListener
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        invalidate(Resource.DIRECTORS);
+        invalidate(Resource.FILMS);
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    private void invalidate(Resource resource) {
+        String prefix = resource.name() + ':';
+
+        versions.get(resource).incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private CachedResponse serialize(Object body) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            return new CachedResponse(bytes, "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response", e);
+        }
+    }
+
+    private boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Data a cached response depends on
+     */
+    public enum Resource {
+
+        FILMS,
+        DIRECTORS,
+        GENRES,
+        MPA
+    }
+
+    private static final class CachedResponse {
+
+        private final byte[] body;
+        private final String eTag;
+
+        CachedResponse(byte[] body, String eTag) {
+            this.body = body;
+            this.eTag = eTag;
+        }
+    }
+}
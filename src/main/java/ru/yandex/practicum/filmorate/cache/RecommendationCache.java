@@ -0,0 +1,284 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.UserRemovedEvent;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of film recommendations keyed by user id.
+ * A like or unlike of the user evicts the user's entry, so the user always sees the effect of own likes.
+ * A like or unlike of a user whose likes were used to build other users' recommendations
+ * (their nearest neighbour) marks those entries stale: they are still served while being
+ * recomputed on a background executor (stale-while-revalidate). Removing a user does the same.
+ * Entries expire after {@link #EXPIRE_AFTER_WRITE} to bound staleness caused by changes of other users.
+ * Each entry is linked to its neighbour before it is published and unlinked when it is evicted or replaced.
+ * A like of the neighbour made while the entry was being computed is caught by a striped version
+ * of like changes checked after linking: the entry is then published stale.
+ */
+@Component
+@Slf4j
+public class RecommendationCache {
+
+    static final int MAXIMUM_SIZE = 10_000;
+    static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private static final int REFRESH_THREADS = 2;
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Cache<Long, Recommendations> cache;
+    private final Map<Long, Map<Long, Recommendations>> dependentUsers = new ConcurrentHashMap<>();
+    private final AtomicLong likeChanges = new AtomicLong();
+    private final AtomicLongArray lastLikeChanges = new AtomicLongArray(VERSION_STRIPES);
+    private final Executor refreshExecutor;
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    public RecommendationCache() {
+        this(MAXIMUM_SIZE, Executors.newFixedThreadPool(REFRESH_THREADS, new RefreshThreadFactory()));
+    }
+
+    RecommendationCache(int maximumSize, Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(EXPIRE_AFTER_WRITE)
+                .executor(Runnable::run)
+                .removalListener(this::onRemoval)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns ids of films recommended to the user
+     * On a miss the recommendations are computed by the loader and cached
+     * A stale entry is returned as is and recomputed in the background
+     *
+     * @param userId
+     * @param loader computes recommendations of the user
+     * @return list of film ids
+     */
+    public List<Long> get(Long userId, Function<Long, Recommendations> loader) {
+        Recommendations recommendations = cache.get(userId, id -> load(id, loader));
+
+        if (recommendations.isStale()) {
+            staleHits.incrementAndGet();
+            refresh(userId, recommendations, loader);
+        }
+
+        return recommendations.getFilmIds();
+    }
+
+    @EventListener
+    public void onLikeChanged(LikeChangedEvent event) {
+        onLikesChanged(event.getUserId());
+    }
+
+    @EventListener
+    public void onUserRemoved(UserRemovedEvent event) {
+        onLikesChanged(event.getUserId());
+    }
+
+    /**
+     * Returns hit, miss and eviction statistics of the cache
+     *
+     * @return cache statistics
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getStaleHitCount() {
+        return staleHits.get();
+    }
+
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    int getDependentUserCount(Long neighbourId) {
+        return dependentUsers.getOrDefault(neighbourId, Collections.emptyMap()).size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor instanceof ExecutorService) {
+            ((ExecutorService) refreshExecutor).shutdownNow();
+        }
+    }
+
+    /**
+     * Evicts the entry of a user whose likes changed and marks entries built from the user's likes stale
+     */
+    private void onLikesChanged(Long userId) {
+        long change = likeChanges.incrementAndGet();
+        lastLikeChanges.accumulateAndGet(stripe(userId), change, Math::max);
+
+        cache.invalidate(userId);
+        dependentUsers.getOrDefault(userId, Collections.emptyMap()).values()
+                .forEach(Recommendations::markStale);
+    }
+
+    private Recommendations load(Long userId, Function<Long, Recommendations> loader) {
+        long start = likeChanges.get();
+        Recommendations recommendations = loader.apply(userId);
+        link(userId, recommendations, start);
+        return recommendations;
+    }
+
+    private void refresh(Long userId, Recommendations stale, Function<Long, Recommendations> loader) {
+        if (!stale.startRefresh()) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long start = likeChanges.get();
+                    Recommendations fresh = loader.apply(userId);
+                    link(userId, fresh, start);
+
+                    if (cache.asMap().replace(userId, stale, fresh)) {
+                        refreshes.incrementAndGet();
+                    } else {
+                        unlink(userId, fresh);
+                    }
+
+                    stale.finishRefresh();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refresh recommendations of user {}", userId, e);
+                    stale.finishRefresh();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stale.finishRefresh();
+        }
+    }
+
+    /**
+     * Links recommendations computed since the given like change to their neighbour,
+     * marks them stale if the neighbour's likes changed in the meantime
+     */
+    private void link(Long userId, Recommendations recommendations, long start) {
+        Long neighbourId = recommendations.getNeighbourId();
+
+        if (neighbourId == null) {
+            return;
+        }
+
+        dependentUsers.compute(neighbourId, (id, users) -> {
+            Map<Long, Recommendations> linked = users == null ? new ConcurrentHashMap<>() : users;
+            linked.put(userId, recommendations);
+            return linked;
+        });
+
+        if (lastLikeChanges.get(stripe(neighbourId)) > start) {
+            recommendations.markStale();
+        }
+    }
+
+    /**
+     * Unlinks the recommendations from their neighbour unless newer recommendations of the user took their place
+     */
+    private void unlink(Long userId, Recommendations recommendations) {
+        Long neighbourId = recommendations.getNeighbourId();
+
+        if (neighbourId == null) {
+            return;
+        }
+
+        dependentUsers.computeIfPresent(neighbourId, (id, users) -> {
+            users.remove(userId, recommendations);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    private void onRemoval(Long userId, Recommendations recommendations, RemovalCause cause) {
+        if (userId != null && recommendations != null) {
+            unlink(userId, recommendations);
+        }
+    }
+
+    private int stripe(Long userId) {
+        return (int) (userId & (VERSION_STRIPES - 1));
+    }
+
+    /**
+     * Recommended film ids together with the user whose likes they were built from
+     */
+    @ToString(onlyExplicitlyIncluded = true)
+    public static class Recommendations {
+
+        @Getter
+        @ToString.Include
+        private final List<Long> filmIds;
+
+        @Getter
+        @ToString.Include
+        private final Long neighbourId;
+
+        private final AtomicBoolean stale = new AtomicBoolean();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        public Recommendations(List<Long> filmIds, Long neighbourId) {
+            this.filmIds = Collections.unmodifiableList(filmIds);
+            this.neighbourId = neighbourId;
+        }
+
+        boolean isStale() {
+            return stale.get();
+        }
+
+        void markStale() {
+            stale.set(true);
+        }
+
+        boolean startRefresh() {
+            return refreshing.compareAndSet(false, true);
+        }
+
+        void finishRefresh() {
+            refreshing.set(false);
+        }
+    }
+
+    private static class RefreshThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "recommendation-refresh-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.service.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.service.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.UserRemovedEvent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collapses concurrent identical reads into one computation.
+ * The first caller with a key runs the computation in its own thread, callers arriving with the same key
+ * while it is in flight wait for it and receive the same result or exception.
+ * Nothing is kept after the computation completes, so this is not a cache:
+ * a call arriving after completion runs the computation again.
+ * Keys are prefixed with a version bumped by catalog change events, so a call arriving after a change
+ * never joins a computation that started before it and may have read the old data.
+ * The version is bumped before other listeners run, so a response cached under the new version
+ * of {@link JsonResponseCache} is never built by such a computation.
+ * The computed value is never handed out: every caller receives its own copy of it.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong collapsedCalls = new AtomicLong();
+
+    /**
+     * Returns the result of the computation for the key
+     * joining a computation already in flight for the same key
+     *
+     * @param key  identifies the computation and its arguments
+     * @param call computation
+     * @param copy returns a copy of a result sharing no mutable state with it,
+     *             {@link UnaryOperator#identity()} for immutable results
+     * @return copy of the result of the computation
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> call, UnaryOperator<T> copy) {
+        calls.incrementAndGet();
+
+        String versionedKey = version.get() + ":" + key;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(versionedKey, future);
+
+        if (existing != null) {
+            collapsedCalls.incrementAndGet();
+            return copy.apply((T) await(existing));
+        }
+
+        try {
+            T result = call.get();
+            future.complete(result);
+            return copy.apply(result);
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(versionedKey, future);
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onFilmChanged(FilmChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onLikeChanged(LikeChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onUserRemoved(UserRemovedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    public long getCollapsedCallCount() {
+        return collapsedCalls.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw e;
+        }
+    }
+}
@@ -2,21 +2,25 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache.Resource;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 
 import javax.validation.Valid;
-import java.util.Collection;
 
 @Slf4j
 @RestController
@@ -25,11 +29,13 @@ import java.util.Collection;
 public class DirectorController {
 
     private final DirectorService service;
+    private final JsonResponseCache responseCache;
 
     @GetMapping
-    public Collection<Director> getAll() {
+    public ResponseEntity<byte[]> getAll(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Request received GET '/directors'");
-        return service.getDirectors();
+        return responseCache.respond(Resource.DIRECTORS, "all", ifNoneMatch, service::getDirectors);
     }
 
     @PostMapping
@@ -2,21 +2,36 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache.Resource;
+import ru.yandex.practicum.filmorate.model.FacetCount;
+import ru.yandex.practicum.filmorate.model.FacetedFilms;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.ProjectedFilm;
+import ru.yandex.practicum.filmorate.model.Suggestion;
+import ru.yandex.practicum.filmorate.service.AutocompleteIndex;
+import ru.yandex.practicum.filmorate.service.FilmFacets;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.validator.ValidationException;
 
 import javax.validation.Valid;
-import javax.validation.ValidationException;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @RestController
@@ -26,11 +41,21 @@ import java.util.Set;
 public class FilmController {
 
     private static final Set<String> SORTED_BY = Set.of("likes", "year");
+    private static final Set<String> SEARCH_MODES = Set.of("exact", "fuzzy");
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     private final FilmService service;
+    private final JsonResponseCache responseCache;
 
     @GetMapping
-    public List<Film> getFilms() {
-        return service.getFilms();
+    public List<?> getFilms(@RequestParam(required = false) List<String> fields) {
+        Set<FilmField> selected = parseFields(fields);
+
+        if (selected == null) {
+            return service.getFilms();
+        }
+
+        return ProjectedFilm.of(service.getFilms(selected), selected);
     }
 
     @GetMapping("/{id}")
@@ -63,12 +88,39 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopular(
+    public ResponseEntity<byte[]> getPopular(
             @RequestParam(defaultValue = "10") int count,
             @RequestParam(required = false) Integer genreId,
-            @RequestParam(required = false) Integer year
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) List<String> facets,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
-        return service.getPopular(count, genreId, year);
+        log.info("Request received GET /films/popular?count={}&genreId={}&year={}&facets={}&fields={}",
+                count, genreId, year, facets, fields);
+        Set<String> facetNames = parseFacets(facets);
+        Set<FilmField> selected = parseFields(fields);
+        String key = String.format("popular?count=%d&genreId=%s&year=%s", count, genreId, year);
+
+        if (!facetNames.isEmpty()) {
+            key += "&facets=" + String.join(",", facetNames);
+        }
+
+        if (selected != null) {
+            key += "&fields=" + selected;
+        }
+
+        return responseCache.respond(Resource.FILMS, key, ifNoneMatch, () -> {
+            List<Film> films = selected == null
+                    ? service.getPopular(count, genreId, year)
+                    : service.getPopular(count, genreId, year, selected);
+
+            if (facetNames.isEmpty()) {
+                return project(films, selected);
+            }
+
+            return new FacetedFilms(project(films, selected), service.getPopularFacets(genreId, year, facetNames));
+        });
     }
 
     @DeleteMapping("/{filmId}")
@@ -78,24 +130,148 @@ public class FilmController {
     }
 
     @GetMapping("/director/{directorId}")
-    public List<Film> getFilmsByDirector(
+    public List<?> getFilmsByDirector(
             @PathVariable Long directorId,
-            @RequestParam(name = "sortBy", value = "sortBy", defaultValue = "year") String sortBy) {
-        log.info("Request received GET /films/director/{}?sortBy={}", directorId, sortBy);
+            @RequestParam(name = "sortBy", value = "sortBy", defaultValue = "year") String sortBy,
+            @RequestParam(name = "fields", value = "fields", required = false) List<String> fields) {
+        log.info("Request received GET /films/director/{}?sortBy={}&fields={}", directorId, sortBy, fields);
         if (!SORTED_BY.contains(sortBy.toLowerCase())) {
             throw new ValidationException(String.format("Invalid request parameter sortBy='%s'", sortBy));
         }
-        return service.getFilmsByDirector(directorId, sortBy.toLowerCase());
+
+        Set<FilmField> selected = parseFields(fields);
+
+        if (selected == null) {
+            return service.getFilmsByDirector(directorId, sortBy.toLowerCase());
+        }
+
+        return ProjectedFilm.of(service.getFilmsByDirector(directorId, sortBy.toLowerCase(), selected), selected);
     }
 
     @GetMapping("/search")
-    public List<Film> searchFilm(
+    public List<?> searchFilm(
             @RequestParam(name = "query", value = "query") String query,
+            @RequestParam(name = "mode", value = "mode", defaultValue = "exact") String mode,
+            @RequestParam(name = "limit", value = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "offset", value = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "fields", value = "fields", required = false) List<String> fields,
             @RequestParam(name = "by", value = "by", defaultValue = "title", required = false) String... by) {
-        log.info("Request received GET 'GET /films/search?query={}&by={}'", query, by);
+        log.info("Request received GET 'GET /films/search?query={}&mode={}&limit={}&offset={}&fields={}&by={}'",
+                query, mode, limit, offset, fields, by);
+        Set<FilmField> selected = parseFields(fields);
+
+        return project(findFilms(query, mode, limit, offset, selected, by), selected);
+    }
+
+    @GetMapping(value = "/search", params = "facets")
+    public FacetedFilms searchFilmWithFacets(
+            @RequestParam(name = "query", value = "query") String query,
+            @RequestParam(name = "mode", value = "mode", defaultValue = "exact") String mode,
+            @RequestParam(name = "limit", value = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "offset", value = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "facets", value = "facets") List<String> facets,
+            @RequestParam(name = "fields", value = "fields", required = false) List<String> fields,
+            @RequestParam(name = "by", value = "by", defaultValue = "title", required = false) String... by) {
+        log.info("Request received GET 'GET /films/search?query={}&mode={}&limit={}&offset={}&facets={}&fields={}"
+                + "&by={}'", query, mode, limit, offset, facets, fields, by);
+        Set<String> facetNames = parseFacets(facets);
+        Set<FilmField> selected = parseFields(fields);
+        List<Film> films = findFilms(query, mode, limit, offset, selected, by);
+        Map<String, List<FacetCount>> counts = mode.equalsIgnoreCase("fuzzy")
+                ? service.getFuzzySearchFacets(query, by, facetNames)
+                : service.getSearchFacets(query, by, facetNames);
+
+        return new FacetedFilms(project(films, selected), counts);
+    }
+
+    @GetMapping("/autocomplete")
+    public List<Suggestion> getSuggestions(
+            @RequestParam(name = "prefix", value = "prefix") String prefix,
+            @RequestParam(name = "limit", value = "limit", defaultValue = "10") int limit) {
+        if (prefix.isBlank()) {
+            throw new ValidationException("Request parameter 'prefix' should not be empty.");
+        }
+
+        if (limit < 1 || limit > AutocompleteIndex.MAX_LIMIT) {
+            throw new ValidationException(String.format("Request parameter 'limit' should be between 1 and %d.",
+                    AutocompleteIndex.MAX_LIMIT));
+        }
+
+        return service.getSuggestions(prefix, limit);
+    }
+
+    /**
+     * Finds films with the fields to load, all fields if null
+     */
+    private List<Film> findFilms(String query, String mode, int limit, int offset, Set<FilmField> fields,
+                                 String[] by) {
         if (query.isBlank()) {
             throw new ValidationException("Request parameter 'query' should not be empty.");
         }
-        return service.search(query, by);
+
+        if (!SEARCH_MODES.contains(mode.toLowerCase())) {
+            throw new ValidationException(String.format("Invalid request parameter mode='%s'", mode));
+        }
+
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ValidationException(String.format("Request parameter 'limit' should be between 1 and %d.",
+                    MAX_SEARCH_LIMIT));
+        }
+
+        if (offset < 0) {
+            throw new ValidationException("Request parameter 'offset' should not be negative.");
+        }
+
+        if (mode.equalsIgnoreCase("fuzzy")) {
+            return fields == null
+                    ? service.searchFuzzy(query, by, limit, offset)
+                    : service.searchFuzzy(query, by, limit, offset, fields);
+        }
+
+        if (fields == null) {
+            return service.search(query, by, limit, offset);
+        }
+
+        return service.search(query, by, limit, offset, fields);
+    }
+
+    private Set<String> parseFacets(List<String> facets) {
+        Set<String> facetNames = new LinkedHashSet<>();
+
+        if (facets == null) {
+            return facetNames;
+        }
+
+        for (String facet : facets) {
+            if (!FilmFacets.FACETS.contains(facet.toLowerCase())) {
+                throw new ValidationException(String.format("Invalid request parameter facets='%s'", facet));
+            }
+
+            facetNames.add(facet.toLowerCase());
+        }
+
+        return facetNames;
+    }
+
+    /**
+     * Returns the requested fields with the id, or null if the fields are not requested
+     */
+    private Set<FilmField> parseFields(List<String> fields) {
+        if (fields == null) {
+            return null;
+        }
+
+        Set<FilmField> selected = EnumSet.of(FilmField.ID);
+
+        for (String field : fields) {
+            selected.add(FilmField.fromJsonName(field).orElseThrow(() -> new ValidationException(
+                    String.format("Invalid request parameter fields='%s'", field))));
+        }
+
+        return selected;
+    }
+
+    private List<?> project(List<Film> films, Set<FilmField> selected) {
+        return selected == null ? films : ProjectedFilm.of(films, selected);
     }
 }
@@ -2,15 +2,18 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache.Resource;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/mpa")
 @Slf4j
@@ -18,10 +21,12 @@ import java.util.List;
 public class MpaController {
 
     private final MpaService service;
+    private final JsonResponseCache responseCache;
 
     @GetMapping
-    public List<Mpa> getMpaRatings() {
-        return service.getMpaRatings();
+    public ResponseEntity<byte[]> getMpaRatings(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(Resource.MPA, "all", ifNoneMatch, service::getMpaRatings);
     }
 
     @GetMapping("/{id}")
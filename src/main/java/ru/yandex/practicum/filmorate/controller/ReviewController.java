@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.service.ReviewService;
+import ru.yandex.practicum.filmorate.validator.ValidationException;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -23,6 +24,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ReviewController {
 
+    private static final int MAX_SEARCH_LIMIT = 100;
     private final ReviewService service;
 
     @GetMapping
@@ -33,6 +35,28 @@ public class ReviewController {
         return service.getReviews(filmId, count);
     }
 
+    @GetMapping("/search")
+    public List<Review> searchReviews(
+            @RequestParam String query,
+            @RequestParam(required = false) Long filmId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "0") int offset
+    ) {
+        log.info("Request received GET /reviews/search?query={}&filmId={}&limit={}&offset={}",
+                query, filmId, limit, offset);
+        if (query.isBlank()) {
+            throw new ValidationException("Request parameter 'query' should not be empty.");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ValidationException(String.format("Request parameter 'limit' should be between 1 and %d.",
+                    MAX_SEARCH_LIMIT));
+        }
+        if (offset < 0) {
+            throw new ValidationException("Request parameter 'offset' should not be negative.");
+        }
+        return service.searchReviews(query, filmId, limit, offset);
+    }
+
     @GetMapping("/{id}")
     public Review getReviewById(@PathVariable Long id) {
         return service.getReviewById(id);
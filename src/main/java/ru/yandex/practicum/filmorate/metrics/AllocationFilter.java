@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Records bytes allocated by the request thread for every HTTP request.
+ * The summary is tagged with the request method and URI pattern.
+ * Allocations made by other threads on behalf of the request, for example background
+ * cache refreshes, are not attributed to it.
+ * Does nothing if the JVM does not support thread allocation counters.
+ */
+@Component
+public class AllocationFilter extends OncePerRequestFilter {
+
+    static final String ALLOCATED_BYTES = "filmorate.http.allocated.bytes";
+
+    private final MeterRegistry registry;
+    private final com.sun.management.ThreadMXBean threads;
+
+    public AllocationFilter(MeterRegistry registry) {
+        this.registry = registry;
+        this.threads = getThreadMXBean();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (threads == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+            DistributionSummary.builder(ALLOCATED_BYTES)
+                    .description("Bytes allocated by the request thread per HTTP request")
+                    .baseUnit("bytes")
+                    .tag("method", request.getMethod())
+                    .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                    .register(registry)
+                    .record(allocated);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean allocationThreads = (com.sun.management.ThreadMXBean) threads;
+
+        if (!allocationThreads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+
+        if (!allocationThreads.isThreadAllocatedMemoryEnabled()) {
+            allocationThreads.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        return allocationThreads;
+    }
+}
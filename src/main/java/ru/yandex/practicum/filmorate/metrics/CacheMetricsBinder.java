@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache;
+import ru.yandex.practicum.filmorate.cache.RequestCoalescer;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exports statistics of the application caches and of the request coalescer.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheMetricsBinder implements MeterBinder {
+
+    private final FilmCache filmCache;
+    private final RecommendationCache recommendationCache;
+    private final JsonResponseCache responseCache;
+    private final RequestCoalescer coalescer;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry, "films", filmCache, FilmCache::getStats, FilmCache::getSize);
+        bindCache(registry, "recommendations", recommendationCache,
+                RecommendationCache::getStats, RecommendationCache::getSize);
+        bindCache(registry, "responses", responseCache, JsonResponseCache::getStats, JsonResponseCache::getSize);
+
+        FunctionCounter.builder("filmorate.cache.stale.hits", recommendationCache,
+                        RecommendationCache::getStaleHitCount)
+                .tag("cache", "recommendations")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.refreshes", recommendationCache,
+                        RecommendationCache::getRefreshCount)
+                .tag("cache", "recommendations")
+                .register(registry);
+
+        FunctionCounter.builder("filmorate.coalescer.calls", coalescer, RequestCoalescer::getCallCount)
+                .description("Calls passed through the request coalescer")
+                .register(registry);
+        FunctionCounter.builder("filmorate.coalescer.collapsed", coalescer, RequestCoalescer::getCollapsedCallCount)
+                .description("Calls that joined a computation already in flight")
+                .register(registry);
+        Gauge.builder("filmorate.coalescer.in.flight", coalescer, RequestCoalescer::getInFlightCount)
+                .register(registry);
+    }
+
+    private <T> void bindCache(MeterRegistry registry, String name, T cache,
+                               Function<T, CacheStats> stats, ToDoubleFunction<T> size) {
+        FunctionCounter.builder("filmorate.cache.gets", cache, c -> stats.apply(c).hitCount())
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.gets", cache, c -> stats.apply(c).missCount())
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.evictions", cache, c -> stats.apply(c).evictionCount())
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("filmorate.cache.size", cache, size)
+                .tag("cache", name)
+                .register(registry);
+    }
+}
@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Actuator endpoint /actuator/jfr recording the running application with Java Flight Recorder.
+ * POST starts a recording that stops by itself after the duration, so no request thread waits for it.
+ * GET returns 202 while the recording runs, then dumps it to a temporary file and streams the file from disk;
+ * the file is deleted once it has been sent. Only one recording exists at a time.
+ * Service calls are recorded as {@link ServiceCallEvent}.
+ * The endpoint is disabled by default and enabled only in the dev profile.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "jfr", enableByDefault = false)
+public class FlightRecorderEndpoint {
+
+    static final int DEFAULT_DURATION_SECONDS = 30;
+    static final int MAX_DURATION_SECONDS = 300;
+
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+
+    private Recording recording;
+
+    /**
+     * Starts a recording
+     *
+     * @param duration recording duration in seconds, 30 by default
+     * @param settings JFR settings: default or profile
+     * @return 202 with the recording duration, 429 if another recording is running or not downloaded yet
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Integer duration,
+                                                                       @Nullable String settings) {
+        int seconds = duration == null ? DEFAULT_DURATION_SECONDS : duration;
+        String configurationName = settings == null ? "profile" : settings;
+
+        if (seconds < 1 || seconds > MAX_DURATION_SECONDS || !SETTINGS.contains(configurationName)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        if (recording != null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+
+        try {
+            recording = new Recording(Configuration.getConfiguration(configurationName));
+            recording.setName("filmorate-on-demand");
+            recording.enable(ServiceCallEvent.class);
+            recording.setDuration(Duration.ofSeconds(seconds));
+            recording.start();
+            log.info("Flight recording started for {} s", seconds);
+
+            return new WebEndpointResponse<>(Map.of("duration", seconds), 202);
+        } catch (IOException | ParseException e) {
+            log.error("Failed to start flight recording", e);
+            discard();
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Returns the finished recording
+     *
+     * @return .jfr file, 202 while the recording runs, 404 if no recording was started
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+
+        if (recording.getState() != RecordingState.STOPPED && recording.getState() != RecordingState.CLOSED) {
+            return new WebEndpointResponse<>(202);
+        }
+
+        Path file = null;
+        try {
+            file = Files.createTempFile("filmorate-", ".jfr");
+            recording.dump(file);
+            log.info("Flight recording finished, {} bytes", Files.size(file));
+
+            return new WebEndpointResponse<>(new TemporaryFileResource(file));
+        } catch (IOException e) {
+            log.error("Failed to dump flight recording", e);
+            if (file != null) {
+                delete(file);
+            }
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        } finally {
+            discard();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete flight recording {}", path, e);
+        }
+    }
+
+    /**
+     * File streamed to the client and deleted when the stream is closed
+     */
+    static final class TemporaryFileResource extends FileSystemResource {
+
+        TemporaryFileResource(Path path) {
+            super(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        delete(getFile().toPath());
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering a call of a film, user or review service method.
+ */
+@Name(ServiceCallEvent.NAME)
+@Label("Service Call")
+@Category({"Filmorate", "Service"})
+@Description("Call of a film, user or review service method")
+@StackTrace(false)
+public class ServiceCallEvent extends Event {
+
+    static final String NAME = "ru.yandex.practicum.filmorate.ServiceCall";
+
+    @Label("Service")
+    String service;
+
+    @Label("Method")
+    String method;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emits a {@link ServiceCallEvent} around every film, user and review service call.
+ * While no recording has the event enabled, the only cost is the enabled check.
+ */
+@Aspect
+@Component
+public class ServiceEventAspect {
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.service.FilmService+.*(..))"
+            + " || execution(public * ru.yandex.practicum.filmorate.service.UserService+.*(..))"
+            + " || execution(public * ru.yandex.practicum.filmorate.service.ReviewService+.*(..))")
+    public Object emit(ProceedingJoinPoint joinPoint) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        event.service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        event.method = joinPoint.getSignature().getName();
+        event.begin();
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * SQL statement that took longer than the slow query threshold.
+ * The plan is captured in the background and is null until it is ready.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class SlowQuery {
+
+    private final Instant timestamp;
+    private final String sql;
+    private final List<String> parameters;
+    private final long rows;
+    private final long durationMillis;
+    private volatile String plan;
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
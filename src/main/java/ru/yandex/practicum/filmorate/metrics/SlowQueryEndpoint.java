@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint /actuator/slowqueries with the content of the slow query log.
+ * The log contains bound parameter values, so the endpoint is disabled by default and enabled only in the dev profile.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.sql.slow-query.enabled", matchIfMissing = true)
+@Endpoint(id = "slowqueries", enableByDefault = false)
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @ReadOperation
+    public List<SlowQuery> getSlowQueries() {
+        return slowQueryLog.getQueries();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryLog.clear();
+    }
+}
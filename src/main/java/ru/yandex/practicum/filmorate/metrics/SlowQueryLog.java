@@ -0,0 +1,209 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the latest SQL statements that took longer than the threshold in a ring buffer.
+ * Bound parameters are captured only for a sampled fraction of statements, so fast statements
+ * cost a single time measurement. A sampled slow statement is logged with its parameters,
+ * row count and duration, and its H2 plan is captured in a background thread:
+ * EXPLAIN ANALYZE for queries, EXPLAIN for modifying statements so they are not run twice
+ * and for locking queries (SELECT ... FOR UPDATE), which are slow when they waited for a lock
+ * and would wait for it again on another connection if they were analyzed.
+ * A plan is captured at most once per statement text within the explain interval.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.sql.slow-query.enabled", matchIfMissing = true)
+public class SlowQueryLog implements MeterBinder {
+
+    private static final int EXPLAIN_QUEUE_SIZE = 16;
+    private static final List<String> EXPLAINABLE = List.of("SELECT", "WITH", "INSERT", "UPDATE", "DELETE", "MERGE");
+    private static final Pattern LOCKING_CLAUSE = Pattern.compile("\\bFOR\\s+UPDATE\\b");
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int capacity;
+    private final long explainIntervalMillis;
+    private final Deque<SlowQuery> queries = new ArrayDeque<>();
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final AtomicLong slowCount = new AtomicLong();
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(EXPLAIN_QUEUE_SIZE), runnable -> {
+        Thread thread = new Thread(runnable, "slow-query-explain");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+
+    public SlowQueryLog(@Value("${filmorate.sql.slow-query.threshold-ms:100}") long thresholdMillis,
+                        @Value("${filmorate.sql.slow-query.sample-rate:0.1}") double sampleRate,
+                        @Value("${filmorate.sql.slow-query.capacity:100}") int capacity,
+                        @Value("${filmorate.sql.slow-query.explain-interval-ms:60000}") long explainIntervalMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleRate = sampleRate;
+        this.capacity = capacity;
+        this.explainIntervalMillis = explainIntervalMillis;
+    }
+
+    /**
+     * Decides whether parameters of a new statement should be captured
+     *
+     * @return true for a sampled statement
+     */
+    public boolean sample() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    /**
+     * Counts a slow statement whose parameters were not captured
+     */
+    public void countUnsampled() {
+        slowCount.incrementAndGet();
+    }
+
+    /**
+     * Adds a slow statement to the log and schedules capture of its plan
+     *
+     * @param dataSource data source to run EXPLAIN on
+     * @param sql        statement text
+     * @param parameters bound parameters in index order
+     * @param rows       rows returned or updated, -1 if unknown
+     * @param nanos      execution time
+     */
+    public void record(DataSource dataSource, String sql, List<Object> parameters, long rows, long nanos) {
+        slowCount.incrementAndGet();
+        recordedCount.incrementAndGet();
+
+        SlowQuery query = new SlowQuery(Instant.now(), sql,
+                parameters.stream().map(String::valueOf).collect(Collectors.toList()),
+                rows, TimeUnit.NANOSECONDS.toMillis(nanos));
+        log.warn("Slow query {} ms, {} rows: {} {}", query.getDurationMillis(), rows, sql, query.getParameters());
+
+        synchronized (queries) {
+            if (queries.size() == capacity) {
+                queries.removeFirst();
+            }
+            queries.addLast(query);
+        }
+
+        if (isExplainable(sql) && shouldExplain(sql)) {
+            explainExecutor.execute(() -> query.setPlan(explain(dataSource, sql, parameters)));
+        }
+    }
+
+    /**
+     * Returns a list of slow statements from the newest to the oldest
+     */
+    public List<SlowQuery> getQueries() {
+        synchronized (queries) {
+            List<SlowQuery> result = new ArrayList<>(queries);
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    public void clear() {
+        synchronized (queries) {
+            queries.clear();
+        }
+        lastExplained.clear();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("filmorate.sql.slow.queries", slowCount, AtomicLong::get)
+                .description("Statements slower than the slow query threshold")
+                .register(registry);
+        FunctionCounter.builder("filmorate.sql.slow.queries.recorded", recordedCount, AtomicLong::get)
+                .description("Slow statements sampled into the slow query log")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private boolean isExplainable(String sql) {
+        if (sql == null) {
+            return false;
+        }
+
+        String trimmed = sql.trim().toUpperCase();
+
+        return EXPLAINABLE.stream().anyMatch(trimmed::startsWith);
+    }
+
+    private boolean shouldExplain(String sql) {
+        long now = System.currentTimeMillis();
+        Long previous = lastExplained.get(sql);
+
+        if (previous != null && now - previous < explainIntervalMillis) {
+            return false;
+        }
+
+        return previous == null
+                ? lastExplained.putIfAbsent(sql, now) == null
+                : lastExplained.replace(sql, previous, now);
+    }
+
+    private String explain(DataSource dataSource, String sql, List<Object> parameters) {
+        String trimmed = sql.trim().toUpperCase();
+        boolean query = trimmed.startsWith("SELECT") || trimmed.startsWith("WITH");
+        boolean locking = LOCKING_CLAUSE.matcher(trimmed).find();
+        String explain = (query && !locking ? "EXPLAIN ANALYZE " : "EXPLAIN ") + sql;
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(explain)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+
+                return plan.toString().trim();
+            }
+        } catch (SQLException e) {
+            log.debug("Failed to explain slow query {}", sql, e);
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data source reporting every executed statement to {@link SqlStatementCounter} and {@link SlowQueryLog}.
+ * Connections and statements are wrapped in dynamic proxies. Without a slow query log they are wrapped
+ * only while a counting scope is open on the thread, so connections taken outside of requests are not affected.
+ * Bound parameters are captured only for statements sampled by the slow query log,
+ * and result sets are wrapped to count rows only after a sampled statement turned out to be slow.
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SqlCountingDataSource(DataSource targetDataSource) {
+        this(targetDataSource, null);
+    }
+
+    public SqlCountingDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        if (slowQueryLog == null && !SqlStatementCounter.isActive()) {
+            return connection;
+        }
+
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static String getSql(Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlCountingDataSource.invoke(connection, method, args);
+            String sql = getSql(args);
+
+            if (result instanceof CallableStatement) {
+                return wrap(CallableStatement.class, (Statement) result, sql);
+            }
+
+            if (result instanceof PreparedStatement) {
+                return wrap(PreparedStatement.class, (Statement) result, sql);
+            }
+
+            if (result instanceof Statement) {
+                return wrap(Statement.class, (Statement) result, null);
+            }
+
+            return result;
+        }
+
+        private Object wrap(Class<? extends Statement> type, Statement statement, String sql) {
+            boolean sampled = slowQueryLog != null && slowQueryLog.sample();
+
+            return Proxy.newProxyInstance(
+                    Statement.class.getClassLoader(),
+                    new Class<?>[]{type},
+                    new StatementHandler(statement, sql, sampled));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private final Map<Integer, Object> parameters;
+
+        StatementHandler(Statement statement, String preparedSql, boolean sampled) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.parameters = sampled ? new TreeMap<>() : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (!name.startsWith("execute")) {
+                capture(name, args);
+                return SqlCountingDataSource.invoke(statement, method, args);
+            }
+
+            String sql = getSql(args) != null ? getSql(args) : preparedSql;
+            long start = System.nanoTime();
+            Object result;
+
+            try {
+                result = SqlCountingDataSource.invoke(statement, method, args);
+            } catch (Throwable e) {
+                SqlStatementCounter.record(sql, System.nanoTime() - start);
+                throw e;
+            }
+
+            long nanos = System.nanoTime() - start;
+            SqlStatementCounter.record(sql, nanos);
+
+            if (slowQueryLog != null && slowQueryLog.isSlow(nanos)) {
+                return recordSlow(sql, result, nanos);
+            }
+
+            return result;
+        }
+
+        private void capture(String name, Object[] args) {
+            if (parameters == null) {
+                return;
+            }
+
+            if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            }
+        }
+
+        private Object recordSlow(String sql, Object result, long nanos) {
+            if (parameters == null) {
+                slowQueryLog.countUnsampled();
+                return result;
+            }
+
+            List<Object> values = new ArrayList<>(parameters.values());
+
+            if (result instanceof Integer || result instanceof Long) {
+                slowQueryLog.record(getTargetDataSource(), sql, values, ((Number) result).longValue(), nanos);
+            } else if (result instanceof int[]) {
+                long rows = 0;
+                for (int count : (int[]) result) {
+                    rows += count;
+                }
+                slowQueryLog.record(getTargetDataSource(), sql, values, rows, nanos);
+            } else if (result instanceof ResultSet) {
+                return Proxy.newProxyInstance(
+                        ResultSet.class.getClassLoader(),
+                        new Class<?>[]{ResultSet.class},
+                        new ResultSetHandler((ResultSet) result, sql, values, nanos));
+            } else {
+                slowQueryLog.record(getTargetDataSource(), sql, values, -1, nanos);
+            }
+
+            return result;
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final String sql;
+        private final List<Object> parameters;
+        private final long nanos;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet resultSet, String sql, List<Object> parameters, long nanos) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlCountingDataSource.invoke(resultSet, method, args);
+
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                rows++;
+            } else if (method.getName().equals("close") && !recorded) {
+                recorded = true;
+                slowQueryLog.record(getTargetDataSource(), sql, parameters, rows, nanos);
+            }
+
+            return result;
+        }
+    }
+}
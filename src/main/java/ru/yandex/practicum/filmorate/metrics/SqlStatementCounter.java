@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Counts SQL statements executed by the current thread.
+ * Statements are recorded into every scope open on the thread, so a scope opened by a test
+ * sees the statements of all requests it performs, and every request is kept as a child scope.
+ * Statements executed by other threads, for example by background cache refreshes, are not counted.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Deque<SqlStatistics>> SCOPES = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    /**
+     * Opens a counting scope on the current thread
+     *
+     * @param name scope name used in reports
+     * @return statistics of the scope
+     */
+    public static SqlStatistics start(String name) {
+        Deque<SqlStatistics> scopes = SCOPES.get();
+
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            SCOPES.set(scopes);
+        }
+
+        SqlStatistics statistics = new SqlStatistics(name);
+        scopes.push(statistics);
+
+        return statistics;
+    }
+
+    /**
+     * Closes a counting scope opened on the current thread
+     *
+     * @param statistics statistics returned by start
+     */
+    public static void stop(SqlStatistics statistics) {
+        Deque<SqlStatistics> scopes = SCOPES.get();
+
+        if (scopes == null || !scopes.remove(statistics)) {
+            return;
+        }
+
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+        } else {
+            scopes.peek().addChild(statistics);
+        }
+    }
+
+    static boolean isActive() {
+        return SCOPES.get() != null;
+    }
+
+    static void record(String sql, long nanos) {
+        Deque<SqlStatistics> scopes = SCOPES.get();
+
+        if (scopes == null) {
+            return;
+        }
+
+        for (SqlStatistics statistics : scopes) {
+            statistics.record(sql, nanos);
+        }
+    }
+}
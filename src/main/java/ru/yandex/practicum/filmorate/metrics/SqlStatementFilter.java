@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts SQL statements and database time of every HTTP request.
+ * Both are recorded as metrics tagged with the request method and URI pattern.
+ * If filmorate.sql.statements.header is set (dev profile), they are also returned
+ * in X-Sql-Statements and X-Sql-Time-Ms response headers; the response body is buffered
+ * in that case so the headers can be added after the handler has run.
+ */
+@Slf4j
+@Component
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final MeterRegistry registry;
+    private final boolean header;
+    private final int warnThreshold;
+
+    public SqlStatementFilter(MeterRegistry registry,
+                              @Value("${filmorate.sql.statements.header:false}") boolean header,
+                              @Value("${filmorate.sql.statements.warn-threshold:20}") int warnThreshold) {
+        this.registry = registry;
+        this.header = header;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatementCounter.start(request.getMethod() + " " + request.getRequestURI());
+        ContentCachingResponseWrapper wrapper = header ? new ContentCachingResponseWrapper(response) : null;
+
+        try {
+            chain.doFilter(request, wrapper == null ? response : wrapper);
+        } finally {
+            SqlStatementCounter.stop(statistics);
+            record(request, statistics);
+
+            if (wrapper != null) {
+                wrapper.setHeader(STATEMENTS_HEADER, String.valueOf(statistics.getCount()));
+                wrapper.setHeader(TIME_HEADER, String.valueOf(statistics.getMillis()));
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        DistributionSummary.builder("filmorate.http.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(statistics.getCount());
+        Timer.builder("filmorate.http.sql.time")
+                .description("Database time per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (statistics.getCount() > warnThreshold) {
+            log.warn("{} exceeds {} SQL statements per request", statistics, warnThreshold);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL statements executed by a thread within a scope opened by {@link SqlStatementCounter}.
+ * Scopes opened inside this one are kept as children.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SqlStatistics {
+
+    static final int MAX_RECORDED_STATEMENTS = 1000;
+
+    private final String name;
+    private int count;
+    private long nanos;
+    private final List<String> statements = new ArrayList<>();
+    private final List<SqlStatistics> children = new ArrayList<>();
+
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public List<SqlStatistics> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    void record(String sql, long elapsedNanos) {
+        count++;
+        nanos += elapsedNanos;
+
+        if (statements.size() < MAX_RECORDED_STATEMENTS) {
+            statements.add(sql);
+        }
+    }
+
+    void addChild(SqlStatistics child) {
+        children.add(child);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d statements in %d ms", name, count, getMillis());
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Number of films with a value of a facet: a genre, an MPA rating or a decade.
+ * The id of a decade is its first year.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class FacetCount {
+
+    private final Integer id;
+
+    private final String name;
+
+    private final int count;
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Films, full or projected to the requested fields, with the counts of the requested facets among all films
+ * matching the request
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class FacetedFilms {
+
+    private final List<?> films;
+
+    private final Map<String, List<FacetCount>> facets;
+}
@@ -75,4 +75,46 @@ public class Film {
     public void addDirectors(Collection<Director> otherDirectors) {
         directors.addAll(otherDirectors);
     }
+
+    /**
+     * Returns a copy of the film sharing no mutable state with it, fields that are not set stay null
+     */
+    public Film copy() {
+        Film film = new Film();
+
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(releaseDate);
+        film.setDuration(duration);
+
+        if (mpa != null) {
+            Mpa mpaCopy = new Mpa();
+            mpaCopy.setId(mpa.getId());
+            mpaCopy.setName(mpa.getName());
+            film.setMpa(mpaCopy);
+        }
+
+        film.likes.addAll(likes);
+
+        for (Genre genre : genres) {
+            Genre genreCopy = new Genre();
+            genreCopy.setId(genre.getId());
+            genreCopy.setName(genre.getName());
+            film.genres.add(genreCopy);
+        }
+
+        if (directors == null) {
+            film.setDirectors(null);
+        } else {
+            for (Director director : directors) {
+                Director directorCopy = new Director();
+                directorCopy.setId(director.getId());
+                directorCopy.setName(director.getName());
+                film.directors.add(directorCopy);
+            }
+        }
+
+        return film;
+    }
 }
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * Content feature vector of a film used by the content-based recommender.
+ * Genres are packed into a bitmask: bit n is set if the film has the genre with id n.
+ * Genre ids outside the range 0..63 are not represented in the mask.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@Builder
+public class FilmFeatures {
+
+    private final Long filmId;
+
+    private final long genreMask;
+
+    private final Set<Long> directorIds;
+
+    private final int likeCount;
+
+    public static long genreBit(Integer genreId) {
+        if (genreId == null || genreId < 0 || genreId >= Long.SIZE) {
+            return 0L;
+        }
+
+        return 1L << genreId;
+    }
+}
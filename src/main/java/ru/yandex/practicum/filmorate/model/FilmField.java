@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Properties of a film that a list endpoint can be asked to return, in the order they are written.
+ * The id is always returned, films are loaded and hydrated by it.
+ */
+public enum FilmField {
+    ID("id", Film::getId),
+    NAME("name", Film::getName),
+    DESCRIPTION("description", Film::getDescription),
+    RELEASE_DATE("releaseDate", Film::getReleaseDate),
+    DURATION("duration", Film::getDuration),
+    MPA("mpa", Film::getMpa),
+    DIRECTORS("directors", Film::getDirectors),
+    GENRES("genres", Film::getGenres);
+
+    public static final Set<FilmField> ALL = Collections.unmodifiableSet(EnumSet.allOf(FilmField.class));
+
+    private final String jsonName;
+    private final Function<Film, Object> getter;
+
+    FilmField(String jsonName, Function<Film, Object> getter) {
+        this.jsonName = jsonName;
+        this.getter = getter;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public Object getValue(Film film) {
+        return getter.apply(film);
+    }
+
+    /**
+     * Returns the field with the JSON property name, ignoring case
+     *
+     * @param jsonName
+     * @return field or empty if there is no such property
+     */
+    public static Optional<FilmField> fromJsonName(String jsonName) {
+        for (FilmField field : values()) {
+            if (field.jsonName.equalsIgnoreCase(jsonName)) {
+                return Optional.of(field);
+            }
+        }
+
+        return Optional.empty();
+    }
+}
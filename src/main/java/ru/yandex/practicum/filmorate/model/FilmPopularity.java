@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Row of the popularity rollup: number of likes of a film in a genre and release year bucket.
+ * Genre id {@link #ANY_GENRE} and release year {@link #ANY_YEAR} stand for buckets without the filter.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class FilmPopularity {
+
+    public static final int ANY_GENRE = 0;
+    public static final int ANY_YEAR = 0;
+
+    private final int genreId;
+
+    private final int releaseYear;
+
+    private final Long filmId;
+
+    private final int likeCount;
+}
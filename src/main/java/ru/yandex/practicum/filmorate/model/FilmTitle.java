@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * Title of a film with its number of likes and directors, indexed for autocomplete and search,
+ * and the genres, MPA rating and release year its facets are counted by.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@Builder
+public class FilmTitle {
+
+    private final Long filmId;
+
+    private final String name;
+
+    private final int likeCount;
+
+    private final Set<Long> directorIds;
+
+    private final Set<Integer> genreIds;
+
+    private final Integer mpaId;
+
+    private final int releaseYear;
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Film written to JSON with the selected fields only.
+ * Values are written by the serializers of the film properties, so a selected field looks the same
+ * as in a full film.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+@JsonSerialize(using = ProjectedFilm.Serializer.class)
+public class ProjectedFilm {
+
+    private final Film film;
+
+    private final Set<FilmField> fields;
+
+    public static List<ProjectedFilm> of(List<Film> films, Set<FilmField> fields) {
+        return films.stream()
+                .map(film -> new ProjectedFilm(film, fields))
+                .collect(Collectors.toList());
+    }
+
+    static class Serializer extends StdSerializer<ProjectedFilm> {
+
+        Serializer() {
+            super(ProjectedFilm.class);
+        }
+
+        @Override
+        public void serialize(ProjectedFilm value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+
+            for (FilmField field : FilmField.values()) {
+                if (value.fields.contains(field)) {
+                    provider.defaultSerializeField(field.getJsonName(), field.getValue(value.film), gen);
+                }
+            }
+
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Comparator;
+
+/**
+ * Autocomplete suggestion: a film title or a director name with its number of likes.
+ * The number of likes of a director is the sum of likes of the director's films.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class Suggestion {
+
+    /**
+     * Most liked first, then by name, type and id
+     */
+    public static final Comparator<Suggestion> BY_LIKES = Comparator.comparingLong(Suggestion::getLikeCount)
+            .reversed()
+            .thenComparing(Suggestion::getName)
+            .thenComparing(Suggestion::getType)
+            .thenComparing(Suggestion::getId);
+
+    private final SuggestionType type;
+
+    private final Long id;
+
+    private final String name;
+
+    private final long likeCount;
+}
@@ -0,0 +1,246 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.model.Suggestion;
+import ru.yandex.practicum.filmorate.model.SuggestionType;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory autocomplete over film titles and director names, ranked by number of likes.
+ * Names are normalized by {@link TextAnalyzer#normalize} and stored in a {@link PrefixTrie},
+ * which keeps the {@link #MAX_LIMIT} most liked names of every large subtree.
+ * The index is rebuilt from the storage every {@code filmorate.autocomplete.rebuild-interval-ms}.
+ * Lookups take a read lock of the index, updates a write lock held for the few trie paths they change.
+ */
+@Slf4j
+@Component
+public class AutocompleteIndex extends CatalogIndex<AutocompleteIndex.SuggestionCatalog> {
+
+    public static final int MAX_LIMIT = 20;
+
+    public AutocompleteIndex(FilmStorage filmStorage, DirectorStorage directorStorage) {
+        super(filmStorage, directorStorage);
+    }
+
+    /**
+     * Returns the most liked films and directors whose normalized name starts with the normalized prefix
+     *
+     * @param prefix
+     * @param limit  maximum number of suggestions, at most {@link #MAX_LIMIT}
+     * @return list of suggestions, most liked first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = TextAnalyzer.normalize(prefix);
+
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return getCatalog().find(key, Math.min(limit, MAX_LIMIT));
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.autocomplete.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${filmorate.autocomplete.rebuild-interval-ms:3600000}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        int names = rebuild();
+
+        log.info("Autocomplete index rebuilt in {} ms, {} names", System.currentTimeMillis() - start, names);
+    }
+
+    @Override
+    protected SuggestionCatalog createCatalog() {
+        return new SuggestionCatalog();
+    }
+
+    /**
+     * Trie of names with the films and directors it was built from, guarded by a read-write lock
+     */
+    static class SuggestionCatalog implements Catalog {
+
+        private final PrefixTrie<Suggestion> trie = new PrefixTrie<>(MAX_LIMIT, Suggestion.BY_LIKES);
+        private final Map<Long, Suggestion> films = new HashMap<>();
+        private final Map<Long, Set<Long>> filmDirectors = new HashMap<>();
+        private final Map<Long, Suggestion> directors = new HashMap<>();
+        private final Map<Long, Set<Long>> directorFilms = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        List<Suggestion> find(String key, int limit) {
+            lock.readLock().lock();
+            try {
+                return trie.find(key, limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            lock.readLock().lock();
+            try {
+                return trie.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void putFilm(FilmTitle film) {
+            lock.writeLock().lock();
+            try {
+                removeFilmUnlocked(film.getFilmId());
+
+                Suggestion suggestion = new Suggestion(SuggestionType.FILM, film.getFilmId(), film.getName(),
+                        film.getLikeCount());
+                Set<Long> directorIds = new HashSet<>(film.getDirectorIds());
+
+                directorIds.retainAll(directors.keySet());
+                films.put(film.getFilmId(), suggestion);
+                filmDirectors.put(film.getFilmId(), directorIds);
+                store(suggestion);
+
+                for (Long directorId : directorIds) {
+                    directorFilms.computeIfAbsent(directorId, id -> new HashSet<>()).add(film.getFilmId());
+                    addDirectorLikes(directorId, film.getLikeCount());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void removeFilm(Long filmId) {
+            lock.writeLock().lock();
+            try {
+                removeFilmUnlocked(filmId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void addLikes(Long filmId, int delta) {
+            lock.writeLock().lock();
+            try {
+                Suggestion film = films.get(filmId);
+
+                if (film == null) {
+                    return;
+                }
+
+                long likeCount = Math.max(0, film.getLikeCount() + delta);
+
+                if (film.getLikeCount() == likeCount) {
+                    return;
+                }
+
+                Suggestion updated = new Suggestion(SuggestionType.FILM, filmId, film.getName(), likeCount);
+
+                unstore(film);
+                films.put(filmId, updated);
+                store(updated);
+
+                for (Long directorId : filmDirectors.get(filmId)) {
+                    addDirectorLikes(directorId, likeCount - film.getLikeCount());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void putDirector(Long directorId, String name) {
+            lock.writeLock().lock();
+            try {
+                Suggestion director = directors.get(directorId);
+                long likeCount = director == null ? 0 : director.getLikeCount();
+
+                if (director != null) {
+                    unstore(director);
+                }
+
+                Suggestion updated = new Suggestion(SuggestionType.DIRECTOR, directorId, name, likeCount);
+
+                directors.put(directorId, updated);
+                store(updated);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void removeDirector(Long directorId) {
+            lock.writeLock().lock();
+            try {
+                Suggestion director = directors.remove(directorId);
+
+                if (director != null) {
+                    unstore(director);
+                }
+
+                for (Long filmId : directorFilms.getOrDefault(directorId, Collections.emptySet())) {
+                    filmDirectors.get(filmId).remove(directorId);
+                }
+
+                directorFilms.remove(directorId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeFilmUnlocked(Long filmId) {
+            Suggestion film = films.remove(filmId);
+
+            if (film == null) {
+                return;
+            }
+
+            unstore(film);
+
+            for (Long directorId : filmDirectors.remove(filmId)) {
+                directorFilms.get(directorId).remove(filmId);
+                addDirectorLikes(directorId, -film.getLikeCount());
+            }
+        }
+
+        private void addDirectorLikes(Long directorId, long delta) {
+            Suggestion director = directors.get(directorId);
+
+            if (director == null || delta == 0) {
+                return;
+            }
+
+            Suggestion updated = new Suggestion(SuggestionType.DIRECTOR, directorId, director.getName(),
+                    director.getLikeCount() + delta);
+
+            unstore(director);
+            directors.put(directorId, updated);
+            store(updated);
+        }
+
+        private void store(Suggestion suggestion) {
+            String key = TextAnalyzer.normalize(suggestion.getName());
+
+            if (!key.isEmpty()) {
+                trie.put(key, suggestion);
+            }
+        }
+
+        private void unstore(Suggestion suggestion) {
+            trie.remove(TextAnalyzer.normalize(suggestion.getName()), suggestion);
+        }
+    }
+}
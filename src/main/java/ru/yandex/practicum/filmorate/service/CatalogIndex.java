@@ -0,0 +1,204 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.validator.NotFoundException;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base of the in-memory indexes over film titles and director names.
+ * The index is loaded on first use and updated from film, like, user removal and director events.
+ * Events are handled after the write has been committed, so a failing listener must not fail the request:
+ * likes are applied as a delta from the event without reading the storage, failed film and director reloads
+ * are logged and left to the next rebuild.
+ * Subclasses rebuild it from the storage on a schedule to pick up changes made around the services.
+ * Films and directors changed while the index is being rebuilt are reloaded after the new index is published.
+ *
+ * @param <C> catalog type
+ */
+@Slf4j
+@RequiredArgsConstructor
+public abstract class CatalogIndex<C extends CatalogIndex.Catalog> {
+
+    protected final FilmStorage filmStorage;
+    protected final DirectorStorage directorStorage;
+
+    private final Set<Long> changedFilmIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedDirectorIds = ConcurrentHashMap.newKeySet();
+
+    private volatile C catalog;
+    private volatile boolean rebuilding;
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        if (rebuilding) {
+            changedFilmIds.add(event.getFilmId());
+        }
+
+        C current = catalog;
+
+        if (current != null) {
+            if (event.getOperation() == Operation.REMOVE) {
+                current.removeFilm(event.getFilmId());
+            } else {
+                tryReloadFilm(current, event.getFilmId());
+            }
+        }
+    }
+
+    @EventListener
+    public void onLikeChanged(LikeChangedEvent event) {
+        addLikes(event.getFilmId(), event.getOperation() == Operation.REMOVE ? -1 : 1);
+    }
+
+    @EventListener
+    public void onUserRemoved(UserRemovedEvent event) {
+        event.getLikedFilmIds().forEach(filmId -> addLikes(filmId, -1));
+    }
+
+    @EventListener
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        if (rebuilding) {
+            changedDirectorIds.add(event.getDirectorId());
+        }
+
+        C current = catalog;
+
+        if (current != null) {
+            if (event.getOperation() == Operation.REMOVE) {
+                current.removeDirector(event.getDirectorId());
+            } else {
+                tryReloadDirector(current, event.getDirectorId());
+            }
+        }
+    }
+
+    /**
+     * Loads a new index from the storage and publishes it
+     *
+     * @return size of the new index
+     */
+    public synchronized int rebuild() {
+        C rebuilt = createCatalog();
+
+        rebuilding = true;
+        try {
+            for (Director director : directorStorage.getDirectors()) {
+                rebuilt.putDirector(director.getId(), director.getName());
+            }
+
+            for (FilmTitle film : filmStorage.getFilmTitles()) {
+                rebuilt.putFilm(film);
+            }
+
+            catalog = rebuilt;
+        } finally {
+            rebuilding = false;
+        }
+
+        for (Long directorId : drain(changedDirectorIds)) {
+            reloadDirector(rebuilt, directorId);
+        }
+
+        for (Long filmId : drain(changedFilmIds)) {
+            reloadFilm(rebuilt, filmId);
+        }
+
+        return rebuilt.size();
+    }
+
+    protected abstract C createCatalog();
+
+    protected C getCatalog() {
+        C current = catalog;
+
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (catalog == null) {
+                rebuild();
+            }
+
+            return catalog;
+        }
+    }
+
+    private void addLikes(Long filmId, int delta) {
+        if (rebuilding) {
+            changedFilmIds.add(filmId);
+        }
+
+        C current = catalog;
+
+        if (current != null) {
+            current.addLikes(filmId, delta);
+        }
+    }
+
+    private void tryReloadFilm(C current, Long filmId) {
+        try {
+            reloadFilm(current, filmId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload film {} into the index, it is updated by the next rebuild", filmId, e);
+        }
+    }
+
+    private void tryReloadDirector(C current, Long directorId) {
+        try {
+            reloadDirector(current, directorId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload director {} into the index, it is updated by the next rebuild", directorId, e);
+        }
+    }
+
+    private void reloadFilm(C current, Long filmId) {
+        filmStorage.getFilmTitle(filmId)
+                .ifPresentOrElse(current::putFilm, () -> current.removeFilm(filmId));
+    }
+
+    private void reloadDirector(C current, Long directorId) {
+        try {
+            current.putDirector(directorId, directorStorage.getDirectorById(directorId).getName());
+        } catch (NotFoundException e) {
+            current.removeDirector(directorId);
+        }
+    }
+
+    private Set<Long> drain(Set<Long> ids) {
+        Set<Long> drained = new HashSet<>(ids);
+        ids.removeAll(drained);
+        return drained;
+    }
+
+    /**
+     * Films and directors of an index, implementations guard them with their own lock
+     */
+    interface Catalog {
+
+        void putFilm(FilmTitle film);
+
+        void removeFilm(Long filmId);
+
+        /**
+         * Adds likes to a film, the count does not drop below zero
+         */
+        void addLikes(Long filmId, int delta);
+
+        void putDirector(Long directorId, String name);
+
+        void removeDirector(Long directorId);
+
+        int size();
+    }
+}
@@ -0,0 +1,230 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmFeatures;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Content-based recommender that fills the recommendations collaborative filtering leaves short.
+ * Films are scored by genre and director overlap with the films the user liked.
+ * Users without likes get the globally most popular films.
+ * Feature vectors of all films are precomputed and rebuilt when the catalog changes
+ * or when the snapshot gets older than {@link #SNAPSHOT_TTL_MILLIS} (like counts drift).
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentRecommender {
+
+    static final long SNAPSHOT_TTL_MILLIS = 60_000;
+    static final int MAX_CANDIDATES = 10_000;
+    static final long TIME_BUDGET_NANOS = 20_000_000;
+
+    private static final double GENRE_WEIGHT = 1.0;
+    private static final double DIRECTOR_WEIGHT = 2.0;
+    private static final double POPULARITY_WEIGHT = 0.1;
+    private static final Comparator<ScoredFilm> BEST_FIRST = Comparator.comparingDouble(ScoredFilm::getScore)
+            .reversed()
+            .thenComparing(ScoredFilm::getFilmId);
+
+    private final FilmStorage filmStorage;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Returns ids of films recommended to the user, best first, films with equal scores by id
+     * At most MAX_CANDIDATES films are scored and scoring stops when the time budget is exhausted
+     *
+     * @param userId
+     * @param limit
+     * @return list of film ids
+     */
+    public List<Long> recommend(Long userId, int limit) {
+        Snapshot features = getSnapshot();
+        Set<Long> likedFilmIds = new HashSet<>(filmStorage.getLikedFilmIds(userId));
+
+        if (likedFilmIds.isEmpty()) {
+            return getMostPopular(features, likedFilmIds, limit);
+        }
+
+        Profile profile = buildProfile(features, likedFilmIds);
+
+        if (profile.isEmpty()) {
+            return getMostPopular(features, likedFilmIds, limit);
+        }
+
+        PriorityQueue<ScoredFilm> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        long deadline = System.nanoTime() + TIME_BUDGET_NANOS;
+        int scanned = 0;
+
+        for (FilmFeatures film : features.byPopularity) {
+            if (scanned++ >= MAX_CANDIDATES || System.nanoTime() > deadline) {
+                break;
+            }
+
+            if (likedFilmIds.contains(film.getFilmId())) {
+                continue;
+            }
+
+            best.add(new ScoredFilm(film.getFilmId(), profile.score(film)));
+
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<ScoredFilm> result = new ArrayList<>(best);
+        result.sort(BEST_FIRST);
+
+        return result.stream()
+                .map(ScoredFilm::getFilmId)
+                .collect(Collectors.toList());
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        snapshot = null;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+
+        if (current != null && !current.isExpired()) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+
+            if (current == null || current.isExpired()) {
+                current = new Snapshot(filmStorage.getFilmFeatures());
+                snapshot = current;
+            }
+
+            return current;
+        }
+    }
+
+    private List<Long> getMostPopular(Snapshot features, Set<Long> excludedFilmIds, int limit) {
+        return features.byPopularity.stream()
+                .map(FilmFeatures::getFilmId)
+                .filter(filmId -> !excludedFilmIds.contains(filmId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private Profile buildProfile(Snapshot features, Set<Long> likedFilmIds) {
+        Profile profile = new Profile();
+
+        for (Long filmId : likedFilmIds) {
+            FilmFeatures film = features.byId.get(filmId);
+
+            if (film == null) {
+                continue;
+            }
+
+            long mask = film.getGenreMask();
+
+            while (mask != 0) {
+                int genre = Long.numberOfTrailingZeros(mask);
+                profile.genreWeights[genre]++;
+                mask &= mask - 1;
+            }
+
+            for (Long directorId : film.getDirectorIds()) {
+                profile.directorWeights.merge(directorId, 1, Integer::sum);
+            }
+        }
+
+        return profile;
+    }
+
+    private static class Snapshot {
+
+        private final List<FilmFeatures> byPopularity;
+        private final Map<Long, FilmFeatures> byId;
+        private final long createdAt = System.currentTimeMillis();
+
+        Snapshot(List<FilmFeatures> features) {
+            List<FilmFeatures> sorted = new ArrayList<>(features);
+            sorted.sort(Comparator.comparingInt(FilmFeatures::getLikeCount).reversed()
+                    .thenComparing(FilmFeatures::getFilmId));
+
+            byPopularity = Collections.unmodifiableList(sorted);
+            byId = sorted.stream()
+                    .collect(Collectors.toMap(FilmFeatures::getFilmId, Function.identity()));
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createdAt > SNAPSHOT_TTL_MILLIS;
+        }
+    }
+
+    private static class Profile {
+
+        private final int[] genreWeights = new int[Long.SIZE];
+        private final Map<Long, Integer> directorWeights = new HashMap<>();
+
+        boolean isEmpty() {
+            if (!directorWeights.isEmpty()) {
+                return false;
+            }
+
+            for (int weight : genreWeights) {
+                if (weight > 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        double score(FilmFeatures film) {
+            double score = 0;
+            long mask = film.getGenreMask();
+
+            while (mask != 0) {
+                score += GENRE_WEIGHT * genreWeights[Long.numberOfTrailingZeros(mask)];
+                mask &= mask - 1;
+            }
+
+            for (Long directorId : film.getDirectorIds()) {
+                score += DIRECTOR_WEIGHT * directorWeights.getOrDefault(directorId, 0);
+            }
+
+            return score + POPULARITY_WEIGHT * Math.log1p(film.getLikeCount());
+        }
+    }
+
+    private static class ScoredFilm {
+
+        private final Long filmId;
+        private final double score;
+
+        ScoredFilm(Long filmId, double score) {
+            this.filmId = filmId;
+            this.score = score;
+        }
+
+        Long getFilmId() {
+            return filmId;
+        }
+
+        double getScore() {
+            return score;
+        }
+    }
+}
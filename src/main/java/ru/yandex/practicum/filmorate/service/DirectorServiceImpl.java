@@ -1,8 +1,10 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
 import ru.yandex.practicum.filmorate.validator.ValidationException;
@@ -14,10 +16,14 @@ import java.util.Collection;
 public class DirectorServiceImpl implements DirectorService {
 
     private final DirectorStorage storage;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Director create(Director obj) {
-        return storage.create(obj);
+        Director director = storage.create(obj);
+        eventPublisher.publishEvent(new DirectorChangedEvent(director.getId(), Operation.ADD));
+
+        return director;
     }
 
     public Collection<Director> getDirectors() {
@@ -35,7 +41,10 @@ public class DirectorServiceImpl implements DirectorService {
             throw new NotFoundException(String.format("Director with id %d  does not exist", id));
         }
 
-        return storage.delete(id);
+        int deleted = storage.delete(id);
+        eventPublisher.publishEvent(new DirectorChangedEvent(id, Operation.REMOVE));
+
+        return deleted;
     }
 
     @Override
@@ -48,7 +57,10 @@ public class DirectorServiceImpl implements DirectorService {
             throw new NotFoundException(String.format("Director with id %d  does not exist", obj.getId()));
         }
 
-        return storage.update(obj);
+        Director director = storage.update(obj);
+        eventPublisher.publishEvent(new DirectorChangedEvent(director.getId(), Operation.UPDATE));
+
+        return director;
     }
 
     private boolean isIdValueNull(Director director) {
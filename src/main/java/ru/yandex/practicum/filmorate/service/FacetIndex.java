@@ -0,0 +1,334 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FacetCount;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+/**
+ * In-memory facet counts of film lists: genre, MPA rating and decade of release.
+ * Every facet value keeps a bitset of its films indexed by film id. A request builds the bitset
+ * of all films it matches and intersects it with the bitset of every value, so facets are counted
+ * without SQL, over all matching films rather than the returned page.
+ * Popular films match the genre and year bitsets, a search matches films whose title or director name
+ * contains the query, compared in lower case as the SQL search does, fuzzy search matches the films
+ * of {@link FilmSearchIndex#match}.
+ * Genre and MPA names are read when the index is built, they change only with migrations.
+ * The index is rebuilt from the storage every {@code filmorate.facets.rebuild-interval-ms}.
+ */
+@Slf4j
+@Component
+public class FacetIndex extends CatalogIndex<FacetIndex.FacetCatalog> {
+
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+
+    public FacetIndex(FilmStorage filmStorage, DirectorStorage directorStorage, GenreStorage genreStorage,
+                      MpaStorage mpaStorage) {
+        super(filmStorage, directorStorage);
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+    }
+
+    /**
+     * Counts the films of the popular list, all films of the genre and the year
+     *
+     * @param genreId genre id, any genre if null
+     * @param year    release year, any year if null
+     * @param fields  fields counted: {@link FilmField#GENRES}, {@link FilmField#MPA}
+     *                and {@link FilmField#RELEASE_DATE} by decade
+     * @return counts by field
+     */
+    public Map<FilmField, List<FacetCount>> countPopular(Integer genreId, Integer year, Set<FilmField> fields) {
+        return getCatalog().countPopular(genreId, year, fields);
+    }
+
+    /**
+     * Counts the films whose title or director name contains the query
+     *
+     * @param query
+     * @param byTitle    match film titles
+     * @param byDirector match director names
+     * @param fields     fields counted
+     * @return counts by field
+     */
+    public Map<FilmField, List<FacetCount>> countSearch(String query, boolean byTitle, boolean byDirector,
+                                                        Set<FilmField> fields) {
+        return getCatalog().countSearch(query.toLowerCase(Locale.ROOT), byTitle, byDirector, fields);
+    }
+
+    /**
+     * Counts the given films
+     *
+     * @param filmIds
+     * @param fields  fields counted
+     * @return counts by field
+     */
+    public Map<FilmField, List<FacetCount>> countFilms(Collection<Long> filmIds, Set<FilmField> fields) {
+        return getCatalog().countFilms(filmIds, fields);
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.facets.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${filmorate.facets.rebuild-interval-ms:3600000}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        int films = rebuild();
+
+        log.info("Facet index rebuilt in {} ms, {} films", System.currentTimeMillis() - start, films);
+    }
+
+    @Override
+    protected FacetCatalog createCatalog() {
+        return new FacetCatalog(genreStorage.getGenres(), mpaStorage.getMpaRatings());
+    }
+
+    /**
+     * Bitsets of facet values with the films and director names they were built from,
+     * guarded by a read-write lock
+     */
+    static class FacetCatalog implements Catalog {
+
+        private static final BitSet EMPTY = new BitSet();
+
+        private final Map<Integer, String> genreNames = new HashMap<>();
+        private final Map<Integer, String> mpaNames = new HashMap<>();
+        private final Map<Long, FacetFilm> films = new HashMap<>();
+        private final Map<Long, String> directorNames = new HashMap<>();
+        private final BitSet all = new BitSet();
+        private final Map<Integer, BitSet> genres = new HashMap<>();
+        private final Map<Integer, BitSet> mpas = new HashMap<>();
+        private final Map<Integer, BitSet> years = new HashMap<>();
+        private final Map<Integer, BitSet> decades = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        FacetCatalog(Collection<Genre> genres, Collection<Mpa> mpas) {
+            genres.forEach(genre -> genreNames.put(genre.getId(), genre.getName()));
+            mpas.forEach(mpa -> mpaNames.put(mpa.getId(), mpa.getName()));
+        }
+
+        Map<FilmField, List<FacetCount>> countPopular(Integer genreId, Integer year, Set<FilmField> fields) {
+            lock.readLock().lock();
+            try {
+                BitSet candidates = (BitSet) all.clone();
+
+                if (genreId != null) {
+                    candidates.and(genres.getOrDefault(genreId, EMPTY));
+                }
+
+                if (year != null) {
+                    candidates.and(years.getOrDefault(year, EMPTY));
+                }
+
+                return count(candidates, fields);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Map<FilmField, List<FacetCount>> countSearch(String query, boolean byTitle, boolean byDirector,
+                                                     Set<FilmField> fields) {
+            lock.readLock().lock();
+            try {
+                BitSet candidates = new BitSet();
+
+                films.forEach((filmId, film) -> {
+                    if (byTitle && film.name.contains(query) || byDirector && film.directorIds.stream()
+                            .map(directorNames::get)
+                            .anyMatch(name -> name != null && name.contains(query))) {
+                        candidates.set(bit(filmId));
+                    }
+                });
+
+                return count(candidates, fields);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Map<FilmField, List<FacetCount>> countFilms(Collection<Long> filmIds, Set<FilmField> fields) {
+            lock.readLock().lock();
+            try {
+                BitSet candidates = new BitSet();
+
+                for (Long filmId : filmIds) {
+                    if (films.containsKey(filmId)) {
+                        candidates.set(bit(filmId));
+                    }
+                }
+
+                return count(candidates, fields);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void putFilm(FilmTitle film) {
+            lock.writeLock().lock();
+            try {
+                removeFilmUnlocked(film.getFilmId());
+
+                String name = film.getName() == null ? "" : film.getName().toLowerCase(Locale.ROOT);
+                FacetFilm facetFilm = new FacetFilm(name,
+                        film.getDirectorIds() == null ? Set.of() : Set.copyOf(film.getDirectorIds()),
+                        film.getGenreIds() == null ? Set.of() : Set.copyOf(film.getGenreIds()),
+                        film.getMpaId(), film.getReleaseYear());
+                int bit = bit(film.getFilmId());
+
+                films.put(film.getFilmId(), facetFilm);
+                all.set(bit);
+                facetFilm.genreIds.forEach(genreId -> genres.computeIfAbsent(genreId, id -> new BitSet()).set(bit));
+
+                if (facetFilm.mpaId != null) {
+                    mpas.computeIfAbsent(facetFilm.mpaId, id -> new BitSet()).set(bit);
+                }
+
+                years.computeIfAbsent(facetFilm.releaseYear, year -> new BitSet()).set(bit);
+                decades.computeIfAbsent(decade(facetFilm.releaseYear), decade -> new BitSet()).set(bit);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void removeFilm(Long filmId) {
+            lock.writeLock().lock();
+            try {
+                removeFilmUnlocked(filmId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void addLikes(Long filmId, int delta) {
+        }
+
+        @Override
+        public void putDirector(Long directorId, String name) {
+            lock.writeLock().lock();
+            try {
+                directorNames.put(directorId, name.toLowerCase(Locale.ROOT));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void removeDirector(Long directorId) {
+            lock.writeLock().lock();
+            try {
+                directorNames.remove(directorId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            lock.readLock().lock();
+            try {
+                return films.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void removeFilmUnlocked(Long filmId) {
+            FacetFilm film = films.remove(filmId);
+
+            if (film == null) {
+                return;
+            }
+
+            int bit = bit(filmId);
+
+            all.clear(bit);
+            film.genreIds.forEach(genreId -> genres.get(genreId).clear(bit));
+
+            if (film.mpaId != null) {
+                mpas.get(film.mpaId).clear(bit);
+            }
+
+            years.get(film.releaseYear).clear(bit);
+            decades.get(decade(film.releaseYear)).clear(bit);
+        }
+
+        private Map<FilmField, List<FacetCount>> count(BitSet candidates, Set<FilmField> fields) {
+            Map<FilmField, List<FacetCount>> counts = new EnumMap<>(FilmField.class);
+
+            if (fields.contains(FilmField.GENRES)) {
+                counts.put(FilmField.GENRES, count(genres, candidates, genreNames::get));
+            }
+
+            if (fields.contains(FilmField.MPA)) {
+                counts.put(FilmField.MPA, count(mpas, candidates, mpaNames::get));
+            }
+
+            if (fields.contains(FilmField.RELEASE_DATE)) {
+                counts.put(FilmField.RELEASE_DATE, count(decades, candidates, decade -> decade + "s"));
+            }
+
+            return counts;
+        }
+
+        private static List<FacetCount> count(Map<Integer, BitSet> values, BitSet candidates,
+                                              IntFunction<String> names) {
+            List<FacetCount> counts = new ArrayList<>();
+
+            values.forEach((id, films) -> {
+                BitSet matching = (BitSet) films.clone();
+                matching.and(candidates);
+
+                int count = matching.cardinality();
+
+                if (count > 0) {
+                    String name = names.apply(id);
+                    counts.add(new FacetCount(id, name == null ? String.valueOf(id) : name, count));
+                }
+            });
+
+            return counts;
+        }
+
+        private static int bit(Long filmId) {
+            return Math.toIntExact(filmId);
+        }
+
+        private static int decade(int year) {
+            return year / 10 * 10;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class FacetFilm {
+
+        private final String name;
+        private final Set<Long> directorIds;
+        private final Set<Integer> genreIds;
+        private final Integer mpaId;
+        private final int releaseYear;
+    }
+}
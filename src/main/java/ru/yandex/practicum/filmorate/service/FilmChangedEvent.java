@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.yandex.practicum.filmorate.model.Operation;
+
+/**
+ * Published by the film service after a film has been created, updated or removed.
+ * In-memory indexes and caches listen to it to stay in sync with the catalog.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class FilmChangedEvent {
+
+    private final Long filmId;
+
+    private final Operation operation;
+}
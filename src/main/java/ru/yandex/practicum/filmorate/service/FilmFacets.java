@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.FacetCount;
+import ru.yandex.practicum.filmorate.model.FilmField;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Facets of film lists: genre, MPA rating and decade of release.
+ * Films are counted by {@link FacetIndex} over all films matching the request, not only the returned page;
+ * this class maps facet names to film fields and orders the counts.
+ */
+public final class FilmFacets {
+
+    public static final String GENRE = "genre";
+    public static final String MPA = "mpa";
+    public static final String DECADE = "decade";
+    public static final Set<String> FACETS = Set.of(GENRE, MPA, DECADE);
+
+    private static final Comparator<FacetCount> BY_COUNT = Comparator.comparingInt(FacetCount::getCount).reversed()
+            .thenComparing(FacetCount::getId);
+
+    private FilmFacets() {
+    }
+
+    /**
+     * Returns the fields of the films the facets are counted by
+     *
+     * @param facets names of the facets from {@link #FACETS}
+     * @return set of fields
+     */
+    public static Set<FilmField> getRequiredFields(Collection<String> facets) {
+        Set<FilmField> fields = EnumSet.noneOf(FilmField.class);
+
+        if (facets.contains(GENRE)) {
+            fields.add(FilmField.GENRES);
+        }
+
+        if (facets.contains(MPA)) {
+            fields.add(FilmField.MPA);
+        }
+
+        if (facets.contains(DECADE)) {
+            fields.add(FilmField.RELEASE_DATE);
+        }
+
+        return fields;
+    }
+
+    /**
+     * Returns the counts of the facets, most frequent values first
+     *
+     * @param counts counts by the fields from {@link #getRequiredFields}
+     * @param facets names of the facets from {@link #FACETS}
+     * @return counts by facet name, in the order of the facets
+     */
+    public static Map<String, List<FacetCount>> byFacet(Map<FilmField, List<FacetCount>> counts,
+                                                        Collection<String> facets) {
+        Map<String, List<FacetCount>> byFacet = new LinkedHashMap<>();
+
+        for (String facet : facets) {
+            if (facet.equals(GENRE)) {
+                byFacet.put(GENRE, sorted(counts.get(FilmField.GENRES)));
+            } else if (facet.equals(MPA)) {
+                byFacet.put(MPA, sorted(counts.get(FilmField.MPA)));
+            } else if (facet.equals(DECADE)) {
+                byFacet.put(DECADE, sorted(counts.get(FilmField.RELEASE_DATE)));
+            }
+        }
+
+        return byFacet;
+    }
+
+    private static List<FacetCount> sorted(List<FacetCount> counts) {
+        List<FacetCount> sorted = counts == null ? new ArrayList<>() : new ArrayList<>(counts);
+
+        sorted.sort(BY_COUNT);
+
+        return sorted;
+    }
+}
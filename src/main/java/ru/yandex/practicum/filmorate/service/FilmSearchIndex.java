@@ -0,0 +1,533 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory typo-tolerant search over words of film titles and director names.
+ * Words are analyzed by {@link TextAnalyzer#words} and indexed by their trigrams, padded with two spaces on both sides,
+ * so that short words have trigrams too.
+ * A query word is compared only with the {@link #MAX_CANDIDATES} words sharing most trigrams with it.
+ * An edit changes at most four trigrams (a transposition of adjacent letters), so a word within k edits
+ * shares all but 4k distinct trigrams of the query word, and words sharing fewer are not candidates.
+ * Candidates are verified with the optimal string alignment distance: words of up to two characters must match
+ * exactly, words of up to five characters may have one edit and longer words two.
+ * A film matches if every query word is close to a word of its title or of the name of its director.
+ * Its relevance is the sum over the query words of the best BM25 score of the matched words, multiplied by their
+ * similarity, 1 - distance / length of the longer word. Title words are normalized by the title length,
+ * director names are short and are not. The relevance is raised by {@link #POPULARITY_WEIGHT} times
+ * the logarithm of the number of likes, and only the requested page is sorted.
+ * The index is rebuilt from the storage every {@code filmorate.search.rebuild-interval-ms}.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex extends CatalogIndex<FilmSearchIndex.WordCatalog> {
+
+    public static final int MAX_CANDIDATES = 64;
+
+    private static final int TRIGRAMS_PER_EDIT = 4;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double POPULARITY_WEIGHT = 0.1;
+    private static final String PADDING = "  ";
+
+    public FilmSearchIndex(FilmStorage filmStorage, DirectorStorage directorStorage) {
+        super(filmStorage, directorStorage);
+    }
+
+    /**
+     * Returns films whose title or director name words are close to every word of the query
+     *
+     * @param query
+     * @param byTitle    match words of film titles
+     * @param byDirector match words of director names
+     * @param limit      maximum number of films
+     * @param offset     number of most relevant films to skip
+     * @return list of film ids, most relevant first
+     */
+    public List<Long> search(String query, boolean byTitle, boolean byDirector, int limit, int offset) {
+        List<String> words = TextAnalyzer.words(query);
+
+        if (words.isEmpty() || !byTitle && !byDirector || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        return getCatalog().search(words, byTitle, byDirector, limit, offset);
+    }
+
+    /**
+     * Returns all films whose title or director name words are close to every word of the query
+     *
+     * @param query
+     * @param byTitle    match words of film titles
+     * @param byDirector match words of director names
+     * @return set of film ids
+     */
+    public Set<Long> match(String query, boolean byTitle, boolean byDirector) {
+        List<String> words = TextAnalyzer.words(query);
+
+        if (words.isEmpty() || !byTitle && !byDirector) {
+            return Collections.emptySet();
+        }
+
+        return getCatalog().match(words, byTitle, byDirector);
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.search.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${filmorate.search.rebuild-interval-ms:3600000}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        int entries = rebuild();
+
+        log.info("Search index rebuilt in {} ms, {} films and directors", System.currentTimeMillis() - start, entries);
+    }
+
+    @Override
+    protected WordCatalog createCatalog() {
+        return new WordCatalog();
+    }
+
+    static Set<String> trigrams(String word) {
+        String padded = PADDING + word + PADDING;
+        Set<String> trigrams = new LinkedHashSet<>();
+
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+
+        return trigrams;
+    }
+
+    /**
+     * Returns the BM25 weight of a word contained in the given number of the films
+     */
+    static double idf(int films, int documentFrequency) {
+        return Math.log(1 + (films - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    static int maxEdits(int length) {
+        if (length <= 2) {
+            return 0;
+        }
+
+        return length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Returns the optimal string alignment distance: insertions, deletions, substitutions
+     * and transpositions of adjacent characters, each character edited at most once
+     *
+     * @param a
+     * @param b
+     * @param maxEdits distance to stop at
+     * @return distance, or maxEdits + 1 if the distance is greater than maxEdits
+     */
+    static int distance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = i;
+
+            current[0] = i;
+
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+
+            int[] reused = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = reused;
+        }
+
+        return Math.min(previous[b.length()], maxEdits + 1);
+    }
+
+    /**
+     * Words of titles and director names with their trigrams, guarded by a read-write lock
+     */
+    static class WordCatalog implements Catalog {
+
+        private final Map<String, Word> words = new HashMap<>();
+        private final Map<String, Set<String>> trigramWords = new HashMap<>();
+        private final Map<Long, FilmEntry> films = new HashMap<>();
+        private final Map<Long, List<String>> directorWords = new HashMap<>();
+        private final Map<Long, Set<Long>> directorFilms = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private long titleWords;
+
+        List<Long> search(List<String> queryWords, boolean byTitle, boolean byDirector, int limit, int offset) {
+            lock.readLock().lock();
+            try {
+                Map<Long, Double> scores = scoreFilms(queryWords, byTitle, byDirector);
+
+                scores.replaceAll((filmId, score) ->
+                        score * (1 + POPULARITY_WEIGHT * Math.log1p(films.get(filmId).likeCount)));
+
+                return getPage(scores, limit, offset);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Set<Long> match(List<String> queryWords, boolean byTitle, boolean byDirector) {
+            lock.readLock().lock();
+            try {
+                return new HashSet<>(scoreFilms(queryWords, byTitle, byDirector).keySet());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            lock.readLock().lock();
+            try {
+                return films.size() + directorWords.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void putFilm(FilmTitle film) {
+            lock.writeLock().lock();
+            try {
+                removeFilmUnlocked(film.getFilmId());
+
+                FilmEntry entry = new FilmEntry(TextAnalyzer.words(film.getName()), film.getLikeCount(),
+                        new HashSet<>(film.getDirectorIds()));
+
+                films.put(film.getFilmId(), entry);
+                titleWords += entry.words.size();
+
+                for (String word : entry.words) {
+                    addWord(word).filmIds.add(film.getFilmId());
+                }
+
+                for (Long directorId : entry.directorIds) {
+                    directorFilms.computeIfAbsent(directorId, id -> new HashSet<>()).add(film.getFilmId());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void removeFilm(Long filmId) {
+            lock.writeLock().lock();
+            try {
+                removeFilmUnlocked(filmId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void addLikes(Long filmId, int delta) {
+            lock.writeLock().lock();
+            try {
+                FilmEntry film = films.get(filmId);
+
+                if (film != null) {
+                    film.likeCount = Math.max(0, film.likeCount + delta);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void putDirector(Long directorId, String name) {
+            lock.writeLock().lock();
+            try {
+                removeDirectorWords(directorId);
+
+                List<String> nameWords = TextAnalyzer.words(name);
+
+                directorWords.put(directorId, nameWords);
+
+                for (String word : nameWords) {
+                    addWord(word).directorIds.add(directorId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void removeDirector(Long directorId) {
+            lock.writeLock().lock();
+            try {
+                removeDirectorWords(directorId);
+
+                for (Long filmId : directorFilms.getOrDefault(directorId, Collections.emptySet())) {
+                    films.get(filmId).directorIds.remove(directorId);
+                }
+
+                directorFilms.remove(directorId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Returns films matching every query word and the sum of their scores
+         */
+        private Map<Long, Double> scoreFilms(List<String> queryWords, boolean byTitle, boolean byDirector) {
+            Map<Long, Double> scores = scoreFilms(queryWords.get(0), byTitle, byDirector);
+
+            for (String queryWord : queryWords.subList(1, queryWords.size())) {
+                if (scores.isEmpty()) {
+                    break;
+                }
+
+                Map<Long, Double> matches = scoreFilms(queryWord, byTitle, byDirector);
+
+                scores.keySet().retainAll(matches.keySet());
+                scores.replaceAll((filmId, score) -> score + matches.get(filmId));
+            }
+
+            return scores;
+        }
+
+        /**
+         * Returns films with a word close to the query word and the best score of their words
+         */
+        private Map<Long, Double> scoreFilms(String queryWord, boolean byTitle, boolean byDirector) {
+            Map<Long, Double> matches = new HashMap<>();
+            double averageTitleLength = films.isEmpty() ? 1 : (double) titleWords / films.size();
+
+            for (Map.Entry<String, Double> match : findWords(queryWord).entrySet()) {
+                String text = match.getKey();
+                Word word = words.get(text);
+                double similarity = match.getValue();
+
+                if (byTitle) {
+                    double idf = idf(films.size(), word.filmIds.size());
+
+                    for (Long filmId : word.filmIds) {
+                        List<String> title = films.get(filmId).words;
+                        int frequency = Collections.frequency(title, text);
+                        double score = idf * frequency * (K1 + 1)
+                                / (frequency + K1 * (1 - B + B * title.size() / averageTitleLength));
+
+                        matches.merge(filmId, similarity * score, Math::max);
+                    }
+                }
+
+                if (byDirector) {
+                    Set<Long> filmIds = new HashSet<>();
+
+                    for (Long directorId : word.directorIds) {
+                        filmIds.addAll(directorFilms.getOrDefault(directorId, Collections.emptySet()));
+                    }
+
+                    double score = idf(films.size(), filmIds.size());
+
+                    for (Long filmId : filmIds) {
+                        matches.merge(filmId, similarity * score, Math::max);
+                    }
+                }
+            }
+
+            return matches;
+        }
+
+        /**
+         * Returns the ids of the films on the page, keeping only offset + limit best films while selecting them
+         */
+        private List<Long> getPage(Map<Long, Double> scores, int limit, int offset) {
+            Comparator<Map.Entry<Long, Double>> byRelevance = Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey());
+            long size = Math.min((long) offset + limit, scores.size());
+            PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(byRelevance.reversed());
+
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                best.add(entry);
+
+                if (best.size() > size) {
+                    best.poll();
+                }
+            }
+
+            List<Map.Entry<Long, Double>> page = new ArrayList<>(best);
+            page.sort(byRelevance);
+
+            return page.subList(Math.min(offset, page.size()), page.size()).stream()
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * Returns indexed words within the allowed distance of the query word with their similarity
+         */
+        private Map<String, Double> findWords(String queryWord) {
+            int maxEdits = maxEdits(queryWord.length());
+            Set<String> trigrams = trigrams(queryWord);
+            int minShared = Math.max(1, trigrams.size() - TRIGRAMS_PER_EDIT * maxEdits);
+            Map<String, Integer> shared = new HashMap<>();
+
+            for (String trigram : trigrams) {
+                for (String word : trigramWords.getOrDefault(trigram, Collections.emptySet())) {
+                    shared.merge(word, 1, Integer::sum);
+                }
+            }
+
+            List<String> candidates = shared.entrySet().stream()
+                    .filter(entry -> entry.getValue() >= minShared)
+                    .filter(entry -> Math.abs(entry.getKey().length() - queryWord.length()) <= maxEdits)
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(MAX_CANDIDATES)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+
+            Map<String, Double> matches = new HashMap<>();
+
+            for (String candidate : candidates) {
+                int distance = distance(queryWord, candidate, maxEdits);
+
+                if (distance <= maxEdits) {
+                    matches.put(candidate,
+                            1 - (double) distance / Math.max(queryWord.length(), candidate.length()));
+                }
+            }
+
+            return matches;
+        }
+
+        private void removeFilmUnlocked(Long filmId) {
+            FilmEntry film = films.remove(filmId);
+
+            if (film == null) {
+                return;
+            }
+
+            titleWords -= film.words.size();
+
+            for (String word : film.words) {
+                removeWord(word, entry -> entry.filmIds.remove(filmId));
+            }
+
+            for (Long directorId : film.directorIds) {
+                Set<Long> filmIds = directorFilms.get(directorId);
+
+                if (filmIds != null) {
+                    filmIds.remove(filmId);
+                }
+            }
+        }
+
+        private void removeDirectorWords(Long directorId) {
+            List<String> nameWords = directorWords.remove(directorId);
+
+            if (nameWords == null) {
+                return;
+            }
+
+            for (String word : nameWords) {
+                removeWord(word, entry -> entry.directorIds.remove(directorId));
+            }
+        }
+
+        private Word addWord(String text) {
+            return words.computeIfAbsent(text, key -> {
+                for (String trigram : trigrams(key)) {
+                    trigramWords.computeIfAbsent(trigram, gram -> new HashSet<>()).add(key);
+                }
+
+                return new Word();
+            });
+        }
+
+        private void removeWord(String text, Consumer<Word> removal) {
+            Word word = words.get(text);
+
+            if (word == null) {
+                return;
+            }
+
+            removal.accept(word);
+
+            if (!word.filmIds.isEmpty() || !word.directorIds.isEmpty()) {
+                return;
+            }
+
+            words.remove(text);
+
+            for (String trigram : trigrams(text)) {
+                Set<String> trigramSet = trigramWords.get(trigram);
+
+                trigramSet.remove(text);
+
+                if (trigramSet.isEmpty()) {
+                    trigramWords.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Films and directors whose title or name contains the word
+     */
+    private static class Word {
+
+        private final Set<Long> filmIds = new HashSet<>();
+        private final Set<Long> directorIds = new HashSet<>();
+    }
+
+    private static class FilmEntry {
+
+        private final List<String> words;
+        private final Set<Long> directorIds;
+        private int likeCount;
+
+        FilmEntry(List<String> words, int likeCount, Set<Long> directorIds) {
+            this.words = words;
+            this.likeCount = likeCount;
+            this.directorIds = directorIds;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.model.FacetCount;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface FilmService {
 
@@ -13,6 +18,15 @@ public interface FilmService {
      */
     List<Film> getFilms();
 
+    /**
+     * Returns a list of all films with the selected fields
+     * Genres and directors are loaded only if they are selected
+     *
+     * @param fields
+     * @return list of all films
+     */
+    List<Film> getFilms(Set<FilmField> fields);
+
     /**
      * Returns film by id
      * If the film is not found throws NotFoundException
@@ -22,6 +36,15 @@ public interface FilmService {
      */
     Film getFilmById(Long id);
 
+    /**
+     * Returns a list of films with genres and directors by id list
+     * Films are returned in the order of the id list, missing ids are skipped
+     *
+     * @param ids
+     * @return list of films by id list
+     */
+    List<Film> getFilmsByIds(List<Long> ids);
+
     /**
      * Creates a new film
      *
@@ -68,6 +91,18 @@ public interface FilmService {
      */
     List<Film> getPopular(int count, Integer genreId, Integer year);
 
+    /**
+     * Returns a list of popular films with the selected fields
+     * Genres and directors are loaded only if they are selected
+     *
+     * @param count
+     * @param genreId
+     * @param year
+     * @param fields
+     * @return list of popular films
+     */
+    List<Film> getPopular(int count, Integer genreId, Integer year, Set<FilmField> fields);
+
     /**
      * Removes a film
      * If the film is not found throws NotFoundException
@@ -85,14 +120,105 @@ public interface FilmService {
      */
     List<Film> getFilmsByDirector(Long directorId, String sortBy);
 
+    /**
+     * Returns a list of films for director with the selected fields
+     * Genres and directors are loaded only if they are selected
+     *
+     * @param directorId director's id
+     * @param sortBy sorted type (likes or year)
+     * @param fields fields to load
+     * @return list of films
+     */
+    List<Film> getFilmsByDirector(Long directorId, String sortBy, Set<FilmField> fields);
+
     /**
      * Returns a list of films for search substring by title or/and director's name
      *
      * @param query search substring
      * @param by search param title or/and director's name
-     * @return list of films
+     * @param limit maximum number of films
+     * @param offset number of most liked films to skip
+     * @return list of films, most liked first
+     */
+    List<Film> search(String query, String[] by, int limit, int offset);
+
+    /**
+     * Returns a list of films for search substring with the selected fields
+     * Genres and directors are loaded only if they are selected
+     *
+     * @param query search substring
+     * @param by search param title or/and director's name
+     * @param limit maximum number of films
+     * @param offset number of most liked films to skip
+     * @param fields fields to load
+     * @return list of films, most liked first
+     */
+    List<Film> search(String query, String[] by, int limit, int offset, Set<FilmField> fields);
+
+    /**
+     * Returns a list of films whose title or/and director's name words are close to the query words
+     * Misspelled words match within a few edits, films are ranked by BM25 relevance and number of likes
+     *
+     * @param query search words
+     * @param by search param title or/and director's name
+     * @param limit maximum number of films
+     * @param offset number of most relevant films to skip
+     * @return list of films, most relevant first
+     */
+    List<Film> searchFuzzy(String query, String[] by, int limit, int offset);
+
+    /**
+     * Returns a list of films whose title or/and director's name words are close to the query words
+     * Only the selected fields are loaded
+     *
+     * @param query search words
+     * @param by search param title or/and director's name
+     * @param limit maximum number of films
+     * @param offset number of most relevant films to skip
+     * @param fields fields to load
+     * @return list of films, most relevant first
+     */
+    List<Film> searchFuzzy(String query, String[] by, int limit, int offset, Set<FilmField> fields);
+
+    /**
+     * Counts all films of the genre and release year, not only the most popular ones, by the facets
+     *
+     * @param genreId genre id or null for any genre
+     * @param year    release year or null for any year
+     * @param facets  names of the facets from {@link FilmFacets#FACETS}
+     * @return counts by facet name, most frequent values first
+     */
+    Map<String, List<FacetCount>> getPopularFacets(Integer genreId, Integer year, Set<String> facets);
+
+    /**
+     * Counts all films found by the search substring, not only one page of them, by the facets
+     *
+     * @param query  search substring
+     * @param by     search param title or/and director's name
+     * @param facets names of the facets from {@link FilmFacets#FACETS}
+     * @return counts by facet name, most frequent values first
+     */
+    Map<String, List<FacetCount>> getSearchFacets(String query, String[] by, Set<String> facets);
+
+    /**
+     * Counts all films found by the typo-tolerant search, not only one page of them, by the facets
+     *
+     * @param query  search words
+     * @param by     search param title or/and director's name
+     * @param facets names of the facets from {@link FilmFacets#FACETS}
+     * @return counts by facet name, most frequent values first
+     */
+    Map<String, List<FacetCount>> getFuzzySearchFacets(String query, String[] by, Set<String> facets);
+
+    /**
+     * Returns films and directors whose name starts with the prefix, most liked first
+     * Case and punctuation are ignored
+     *
+     * @param prefix beginning of a film title or director's name
+     * @param limit  maximum number of suggestions
+     * @return list of suggestions
      */
-    List<Film> search(String query, String[] by);
+    List<Suggestion> getSuggestions(String prefix, int limit);
 
     /**
      * Adds genres to the film list
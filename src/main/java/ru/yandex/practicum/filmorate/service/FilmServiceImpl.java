@@ -1,13 +1,19 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.RequestCoalescer;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.FacetCount;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
 import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Suggestion;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 import ru.yandex.practicum.filmorate.storage.EventStorage;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
@@ -17,6 +23,8 @@ import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
 import ru.yandex.practicum.filmorate.validator.ValidationException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,27 +40,39 @@ public class FilmServiceImpl implements FilmService {
     private final GenreStorage genreStorage;
     private final DirectorStorage directorStorage;
     private final EventStorage eventStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FilmCache filmCache;
+    private final RequestCoalescer coalescer;
+    private final AutocompleteIndex autocompleteIndex;
+    private final FilmSearchIndex searchIndex;
+    private final FacetIndex facetIndex;
 
     @Override
     public List<Film> getFilms() {
-        List<Film> films = filmStorage.getFilms();
+        return getFilms(FilmField.ALL);
+    }
 
-        addGenresToFilms(films);
-        addDirectorsToFilms(films);
+    @Override
+    public List<Film> getFilms(Set<FilmField> fields) {
+        List<Film> films = filmStorage.getFilms(fields);
+
+        addSelectedFields(films, fields);
 
         return films;
     }
 
     @Override
     public Film getFilmById(Long id) {
-        Film film = filmStorage.getFilmById(id).orElseThrow(
-                () -> new NotFoundException(String.format("Film width id %d does not exist", id))
-        );
+        return filmCache.getFilm(id, this::loadFilm);
+    }
 
-        film.addGenres(genreStorage.getGenresByFilmId(film.getId()));
-        film.addDirectors(directorStorage.getDirectorsByFilmId(film.getId()));
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return film;
+        return filmCache.getFilms(ids, this::loadFilms);
     }
 
     @Override
@@ -65,7 +85,10 @@ public class FilmServiceImpl implements FilmService {
             throw new NotFoundException(String.format("Mpa rating width id %d does not exist", film.getMpa().getId()));
         }
 
-        return filmStorage.createFilm(film);
+        Film newFilm = filmStorage.createFilm(film);
+        eventPublisher.publishEvent(new FilmChangedEvent(newFilm.getId(), Operation.ADD));
+
+        return newFilm;
     }
 
     @Override
@@ -82,7 +105,10 @@ public class FilmServiceImpl implements FilmService {
             throw new NotFoundException(String.format("Mpa rating width id %d does not exist", film.getMpa().getId()));
         }
 
-        return filmStorage.updateFilm(film);
+        Film updatedFilm = filmStorage.updateFilm(film);
+        eventPublisher.publishEvent(new FilmChangedEvent(updatedFilm.getId(), Operation.UPDATE));
+
+        return updatedFilm;
     }
 
     @Override
@@ -95,6 +121,10 @@ public class FilmServiceImpl implements FilmService {
             throw new NotFoundException(String.format("User width id %d does not exist", userId));
         }
 
+        if (!filmStorage.addLike(id, userId)) {
+            return;
+        }
+
         eventStorage.addEvent(Event.builder()
                 .userId(userId)
                 .entityId(id)
@@ -102,12 +132,7 @@ public class FilmServiceImpl implements FilmService {
                 .operation(Operation.ADD)
                 .timestamp(System.currentTimeMillis())
                 .build());
-
-        if (filmStorage.likeExists(id, userId)) {
-            return;
-        }
-
-        filmStorage.addLike(id, userId);
+        eventPublisher.publishEvent(new LikeChangedEvent(id, userId, Operation.ADD));
     }
 
     @Override
@@ -120,7 +145,9 @@ public class FilmServiceImpl implements FilmService {
             throw new NotFoundException(String.format("User width id %d does not exist", userId));
         }
 
-        filmStorage.removeLike(id, userId);
+        if (filmStorage.removeLike(id, userId)) {
+            eventPublisher.publishEvent(new LikeChangedEvent(id, userId, Operation.REMOVE));
+        }
 
         eventStorage.addEvent(Event.builder()
                 .userId(userId)
@@ -133,12 +160,20 @@ public class FilmServiceImpl implements FilmService {
 
     @Override
     public List<Film> getPopular(int count, Integer genreId, Integer year) {
-        List<Film> films = filmStorage.getPopular(count, genreId, year);
+        return getPopular(count, genreId, year, FilmField.ALL);
+    }
 
-        addGenresToFilms(films);
-        addDirectorsToFilms(films);
+    @Override
+    public List<Film> getPopular(int count, Integer genreId, Integer year, Set<FilmField> fields) {
+        String key = String.format("popular:%d:%s:%s:%s", count, genreId, year, fields);
 
-        return films;
+        return coalescer.execute(key, () -> {
+            List<Film> films = filmStorage.getPopular(count, genreId, year, fields);
+
+            addSelectedFields(films, fields);
+
+            return films;
+        }, FilmServiceImpl::copyFilms);
     }
 
     @Override
@@ -148,30 +183,99 @@ public class FilmServiceImpl implements FilmService {
         }
 
         filmStorage.removeFilm(id);
+        eventPublisher.publishEvent(new FilmChangedEvent(id, Operation.REMOVE));
     }
 
     @Override
     public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
-        if (!directorStorage.directorExists(directorId)) {
-            throw new NotFoundException(String.format("Director with id %d does not exist", directorId));
+        return getFilmsByDirector(directorId, sortBy, FilmField.ALL);
+    }
+
+    @Override
+    public List<Film> getFilmsByDirector(Long directorId, String sortBy, Set<FilmField> fields) {
+        String key = String.format("director:%d:%s:%s", directorId, sortBy, fields);
+
+        return coalescer.execute(key, () -> {
+            if (!directorStorage.directorExists(directorId)) {
+                throw new NotFoundException(String.format("Director with id %d does not exist", directorId));
+            }
+
+            List<Film> films = filmStorage.getFilmsByDirector(directorId, sortBy, fields);
+
+            addSelectedFields(films, fields);
+
+            return films;
+        }, FilmServiceImpl::copyFilms);
+    }
+
+    @Override
+    public List<Film> search(String query, String[] by, int limit, int offset) {
+        return search(query, by, limit, offset, FilmField.ALL);
+    }
+
+    @Override
+    public List<Film> search(String query, String[] by, int limit, int offset, Set<FilmField> fields) {
+        String key = String.format("search:%s:%d:%d:%s:%s", Arrays.toString(by), limit, offset, fields, query);
+
+        return coalescer.execute(key, () -> {
+            List<Film> films = filmStorage.search(query, by, limit, offset, fields);
+
+            addSelectedFields(films, fields);
+
+            return films;
+        }, FilmServiceImpl::copyFilms);
+    }
+
+    @Override
+    public List<Film> searchFuzzy(String query, String[] by, int limit, int offset) {
+        return searchFuzzy(query, by, limit, offset, FilmField.ALL);
+    }
+
+    /**
+     * Full films are taken from the film cache, films with selected fields are read from the storage
+     */
+    @Override
+    public List<Film> searchFuzzy(String query, String[] by, int limit, int offset, Set<FilmField> fields) {
+        List<String> searchFields = Arrays.asList(by);
+        List<Long> ids = searchIndex.search(query, searchFields.contains("title"), searchFields.contains("director"),
+                limit, offset);
+
+        if (fields.containsAll(FilmField.ALL)) {
+            return getFilmsByIds(ids);
         }
 
-        List<Film> films = filmStorage.getFilmsByDirector(directorId, sortBy);
+        List<Film> films = filmStorage.getFilmsByIds(ids, fields);
 
-        addGenresToFilms(films);
-        addDirectorsToFilms(films);
+        addSelectedFields(films, fields);
 
         return films;
     }
 
     @Override
-    public List<Film> search(String query, String[] by) {
-        List<Film> films = filmStorage.search(query, by);
+    public Map<String, List<FacetCount>> getPopularFacets(Integer genreId, Integer year, Set<String> facets) {
+        return FilmFacets.byFacet(facetIndex.countPopular(genreId, year,
+                FilmFacets.getRequiredFields(facets)), facets);
+    }
 
-        addGenresToFilms(films);
-        addDirectorsToFilms(films);
+    @Override
+    public Map<String, List<FacetCount>> getSearchFacets(String query, String[] by, Set<String> facets) {
+        List<String> fields = Arrays.asList(by);
 
-        return films;
+        return FilmFacets.byFacet(facetIndex.countSearch(query, fields.contains("title"), fields.contains("director"),
+                FilmFacets.getRequiredFields(facets)), facets);
+    }
+
+    @Override
+    public Map<String, List<FacetCount>> getFuzzySearchFacets(String query, String[] by, Set<String> facets) {
+        List<String> fields = Arrays.asList(by);
+        Set<Long> filmIds = searchIndex.match(query, fields.contains("title"), fields.contains("director"));
+
+        return FilmFacets.byFacet(facetIndex.countFilms(filmIds, FilmFacets.getRequiredFields(facets)), facets);
+    }
+
+    @Override
+    public List<Suggestion> getSuggestions(String prefix, int limit) {
+        return autocompleteIndex.suggest(prefix, limit);
     }
 
     @Override
@@ -216,6 +320,39 @@ public class FilmServiceImpl implements FilmService {
         }
     }
 
+    /**
+     * Loads the selected genres and directors of the films, each with one query
+     */
+    private void addSelectedFields(List<Film> films, Set<FilmField> fields) {
+        if (fields.contains(FilmField.GENRES)) {
+            addGenresToFilms(films);
+        }
+
+        if (fields.contains(FilmField.DIRECTORS)) {
+            addDirectorsToFilms(films);
+        }
+    }
+
+    private Film loadFilm(Long id) {
+        Film film = filmStorage.getFilmById(id).orElseThrow(
+                () -> new NotFoundException(String.format("Film width id %d does not exist", id))
+        );
+
+        film.addGenres(genreStorage.getGenresByFilmId(film.getId()));
+        film.addDirectors(directorStorage.getDirectorsByFilmId(film.getId()));
+
+        return film;
+    }
+
+    private List<Film> loadFilms(List<Long> ids) {
+        List<Film> films = filmStorage.getFilmsByIds(ids);
+
+        addGenresToFilms(films);
+        addDirectorsToFilms(films);
+
+        return films;
+    }
+
     private List<Long> getFilmIds(List<Film> films) {
         return films.stream()
                 .map(Film::getId)
@@ -225,4 +362,10 @@ public class FilmServiceImpl implements FilmService {
     private boolean isIdValueNull(Film film) {
         return film.getId() == null;
     }
+
+    private static List<Film> copyFilms(List<Film> films) {
+        return films.stream()
+                .map(Film::copy)
+                .collect(Collectors.toList());
+    }
 }
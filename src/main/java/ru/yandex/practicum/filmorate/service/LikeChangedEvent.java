@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.yandex.practicum.filmorate.model.Operation;
+
+/**
+ * Published by the film service after a user like has been added to or removed from a film.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class LikeChangedEvent {
+
+    private final Long filmId;
+
+    private final Long userId;
+
+    private final Operation operation;
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+import ru.yandex.practicum.filmorate.storage.PopularityStorage;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically recomputes the popularity rollup from films, genres and likes
+ * and rebuilds the buckets that differ from the stored ones.
+ * Fixes drift left by changes made around the storage, like bulk imports or manual SQL.
+ * Films are read in chunks, so memory is bounded by the number of buckets times the rollup size.
+ * A bucket is rebuilt under the rollup lock from the current likes of the computed and the stored films,
+ * so changes made while the rollup was being computed are not lost.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularityReconciliationJob {
+
+    static final int CHUNK_SIZE = 10_000;
+
+    private final PopularityStorage popularityStorage;
+
+    @Scheduled(initialDelayString = "${filmorate.popularity.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${filmorate.popularity.reconcile-interval-ms:3600000}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        int rebuilt = reconcile();
+
+        log.info("Popularity rollup reconciled in {} ms, {} buckets rebuilt",
+                System.currentTimeMillis() - start, rebuilt);
+    }
+
+    /**
+     * Rebuilds the buckets of the rollup that differ from the computed ones
+     *
+     * @return number of rebuilt buckets
+     */
+    public int reconcile() {
+        Map<Bucket, List<FilmPopularity>> expected = groupByBucket(popularityStorage.computeRollup(CHUNK_SIZE));
+        Map<Bucket, List<FilmPopularity>> stored = groupByBucket(popularityStorage.getRollup());
+
+        Set<Bucket> buckets = new HashSet<>(expected.keySet());
+        buckets.addAll(stored.keySet());
+
+        int rebuilt = 0;
+
+        for (Bucket bucket : buckets) {
+            List<FilmPopularity> films = expected.getOrDefault(bucket, List.of());
+
+            if (Objects.equals(new HashSet<>(films), new HashSet<>(stored.getOrDefault(bucket, List.of())))) {
+                continue;
+            }
+
+            List<Long> filmIds = films.stream()
+                    .map(FilmPopularity::getFilmId)
+                    .collect(Collectors.toList());
+
+            if (popularityStorage.rebuildBucket(bucket.genreId, bucket.releaseYear, filmIds)) {
+                rebuilt++;
+            }
+        }
+
+        return rebuilt;
+    }
+
+    private Map<Bucket, List<FilmPopularity>> groupByBucket(List<FilmPopularity> films) {
+        return films.stream()
+                .collect(Collectors.groupingBy(film -> new Bucket(film.getGenreId(), film.getReleaseYear())));
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Bucket {
+
+        private final int genreId;
+        private final int releaseYear;
+    }
+}
@@ -0,0 +1,392 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compressed prefix tree of values stored under string keys, each edge is labelled with a run of characters.
+ * A node whose subtree holds more than {@code topSize} values keeps the best of them in the given order,
+ * so a lookup walks the characters of the prefix and copies a ready list instead of visiting the subtree.
+ * Smaller subtrees are collected on lookup, they hold at most {@code topSize} values.
+ * The order of a value must not change while it is stored: to change it, remove the value and put the new one.
+ * Putting a value merges it into the lists of the nodes on the path of its key,
+ * removing a value recomputes only the lists it was in.
+ * Not thread-safe.
+ *
+ * @param <T> value type, compared with {@code equals} on removal
+ */
+public class PrefixTrie<T> {
+
+    private final int topSize;
+    private final Comparator<? super T> order;
+    private final Node<T> root = new Node<>("");
+
+    public PrefixTrie(int topSize, Comparator<? super T> order) {
+        this.topSize = topSize;
+        this.order = order;
+    }
+
+    /**
+     * Stores a value under the key, does nothing if the value is already stored under the key
+     *
+     * @param key
+     * @param value
+     */
+    public void put(String key, T value) {
+        List<Node<T>> path = new ArrayList<>();
+        Node<T> node = root;
+        int position = 0;
+
+        path.add(node);
+
+        while (position < key.length()) {
+            Node<T> child = node.getChild(key.charAt(position));
+
+            if (child == null) {
+                child = new Node<>(key.substring(position));
+                node.putChild(child);
+                path.add(child);
+                node = child;
+                break;
+            }
+
+            int common = commonPrefixLength(child.label, key, position);
+
+            if (common < child.label.length()) {
+                Node<T> middle = new Node<>(child.label.substring(0, common));
+
+                node.putChild(middle);
+                child.label = child.label.substring(common);
+                middle.putChild(child);
+                middle.size = child.size;
+                child = middle;
+            }
+
+            path.add(child);
+            node = child;
+            position += common;
+        }
+
+        if (!node.addValue(value, order)) {
+            return;
+        }
+
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node<T> pathNode = path.get(i);
+
+            pathNode.size++;
+
+            if (pathNode.top == null) {
+                updateTop(pathNode);
+            } else {
+                addToTop(pathNode, value);
+            }
+        }
+    }
+
+    /**
+     * Removes a value stored under the key
+     *
+     * @param key
+     * @param value
+     * @return true if the value was stored under the key
+     */
+    public boolean remove(String key, T value) {
+        List<Node<T>> path = new ArrayList<>();
+        Node<T> node = root;
+        int position = 0;
+
+        path.add(node);
+
+        while (position < key.length()) {
+            node = node.getChild(key.charAt(position));
+
+            if (node == null || !key.startsWith(node.label, position)) {
+                return false;
+            }
+
+            path.add(node);
+            position += node.label.length();
+        }
+
+        if (!node.removeValue(value, order)) {
+            return false;
+        }
+
+        path.forEach(pathNode -> pathNode.size--);
+
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node<T> pathNode = path.get(i);
+            Node<T> parent = path.get(i - 1);
+
+            if (pathNode.values != null) {
+                continue;
+            }
+
+            if (pathNode.children.length == 0) {
+                parent.removeChild(pathNode.label.charAt(0));
+                path.set(i, null);
+            } else if (pathNode.children.length == 1) {
+                Node<T> child = pathNode.children[0];
+
+                child.label = pathNode.label + child.label;
+                parent.putChild(child);
+                path.set(i, null);
+            }
+        }
+
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node<T> pathNode = path.get(i);
+
+            if (pathNode != null && pathNode.top != null
+                    && (pathNode.size <= topSize || Collections.binarySearch(pathNode.top, value, order) >= 0)) {
+                updateTop(pathNode);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the best values stored under keys starting with the prefix
+     *
+     * @param prefix
+     * @param limit  maximum number of values, at most {@code topSize} values are returned
+     * @return list of values in the order of the trie
+     */
+    public List<T> find(String prefix, int limit) {
+        Node<T> node = root;
+        int position = 0;
+
+        while (position < prefix.length()) {
+            node = node.getChild(prefix.charAt(position));
+
+            if (node == null) {
+                return Collections.emptyList();
+            }
+
+            int length = Math.min(node.label.length(), prefix.length() - position);
+
+            if (!prefix.regionMatches(position, node.label, 0, length)) {
+                return Collections.emptyList();
+            }
+
+            position += length;
+        }
+
+        List<T> values = getTop(node);
+
+        return new ArrayList<>(values.subList(0, Math.min(limit, values.size())));
+    }
+
+    /**
+     * Returns the number of stored values
+     *
+     * @return number of values
+     */
+    public int size() {
+        return root.size;
+    }
+
+    private void updateTop(Node<T> node) {
+        if (node.size <= topSize) {
+            node.top = null;
+            return;
+        }
+
+        List<T> candidates = new ArrayList<>();
+
+        if (node.values != null) {
+            candidates.addAll(node.values.subList(0, Math.min(topSize, node.values.size())));
+        }
+
+        for (Node<T> child : node.children) {
+            candidates.addAll(getTop(child));
+        }
+
+        node.top = Collections.unmodifiableList(candidates.stream()
+                .distinct()
+                .sorted(order)
+                .limit(topSize)
+                .collect(Collectors.toList()));
+    }
+
+    private void addToTop(Node<T> node, T value) {
+        int index = Collections.binarySearch(node.top, value, order);
+
+        if (index >= 0 || -index - 1 >= topSize) {
+            return;
+        }
+
+        List<T> top = new ArrayList<>(node.top);
+
+        top.add(-index - 1, value);
+
+        if (top.size() > topSize) {
+            top.remove(topSize);
+        }
+
+        node.top = Collections.unmodifiableList(top);
+    }
+
+    private List<T> getTop(Node<T> node) {
+        if (node.top != null) {
+            return node.top;
+        }
+
+        List<T> values = new ArrayList<>(node.size);
+        collect(node, values);
+
+        return values.stream()
+                .distinct()
+                .sorted(order)
+                .collect(Collectors.toList());
+    }
+
+    private void collect(Node<T> node, List<T> values) {
+        if (node.values != null) {
+            values.addAll(node.values);
+        }
+
+        for (Node<T> child : node.children) {
+            collect(child, values);
+        }
+    }
+
+    private static int commonPrefixLength(String label, String key, int position) {
+        int length = Math.min(label.length(), key.length() - position);
+        int common = 0;
+
+        while (common < length && label.charAt(common) == key.charAt(position + common)) {
+            common++;
+        }
+
+        return common;
+    }
+
+    private static final class Node<T> {
+
+        @SuppressWarnings("rawtypes")
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private String label;
+
+        @SuppressWarnings("unchecked")
+        private Node<T>[] children = NO_CHILDREN;
+
+        /**
+         * Values stored under the key ending at this node, sorted, or null
+         */
+        private List<T> values;
+
+        /**
+         * Number of values in the subtree
+         */
+        private int size;
+
+        /**
+         * Best values of the subtree if it holds more than topSize values, otherwise null
+         */
+        private List<T> top;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node<T> getChild(char first) {
+            int index = indexOf(first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Adds the child or replaces the child starting with the same character
+         */
+        void putChild(Node<T> child) {
+            int index = indexOf(child.label.charAt(0));
+
+            if (index >= 0) {
+                children[index] = child;
+                return;
+            }
+
+            int insertion = -index - 1;
+            Node<T>[] updated = Arrays.copyOf(children, children.length + 1);
+
+            System.arraycopy(children, insertion, updated, insertion + 1, children.length - insertion);
+            updated[insertion] = child;
+            children = updated;
+        }
+
+        void removeChild(char first) {
+            int index = indexOf(first);
+
+            if (index < 0) {
+                return;
+            }
+
+            Node<T>[] updated = Arrays.copyOf(children, children.length - 1);
+
+            System.arraycopy(children, index + 1, updated, index, children.length - index - 1);
+            children = updated;
+        }
+
+        boolean addValue(T value, Comparator<? super T> order) {
+            if (values == null) {
+                values = new ArrayList<>(1);
+            }
+
+            int index = Collections.binarySearch(values, value, order);
+
+            if (index >= 0) {
+                return false;
+            }
+
+            values.add(-index - 1, value);
+            return true;
+        }
+
+        boolean removeValue(T value, Comparator<? super T> order) {
+            if (values == null) {
+                return false;
+            }
+
+            int index = Collections.binarySearch(values, value, order);
+
+            if (index < 0 || !values.get(index).equals(value)) {
+                return false;
+            }
+
+            values.remove(index);
+
+            if (values.isEmpty()) {
+                values = null;
+            }
+
+            return true;
+        }
+
+        private int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char key = children[middle].label.charAt(0);
+
+                if (key < first) {
+                    low = middle + 1;
+                } else if (key > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+
+            return -(low + 1);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import ru.yandex.practicum.filmorate.model.Operation;
+
+/**
+ * Published by the review service after a review has been created, updated or removed.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class ReviewChangedEvent {
+
+    private final Long reviewId;
+
+    private final Operation operation;
+}
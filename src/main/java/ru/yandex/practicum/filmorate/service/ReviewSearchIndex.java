@@ -0,0 +1,342 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.ReviewStorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over the words of review content.
+ * Words are analyzed by {@link TextAnalyzer#words}, so word forms and scripts of Russian words match each other.
+ * A review matches if it contains every word of the query, and its relevance is the sum of the BM25 scores
+ * of the query words. The posting lists are intersected starting from the shortest one.
+ * The index is loaded on first use and updated from review events; removed films drop their reviews.
+ * It is rebuilt from the storage every {@code filmorate.review-search.rebuild-interval-ms} to pick up
+ * reviews removed with their user.
+ * Reviews changed while the index is being rebuilt are reloaded after the new index is published.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReviewSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReviewStorage reviewStorage;
+
+    private final Set<Long> changedReviewIds = ConcurrentHashMap.newKeySet();
+
+    private volatile ReviewCatalog catalog;
+    private volatile boolean rebuilding;
+
+    /**
+     * Returns reviews containing every word of the query
+     *
+     * @param query
+     * @param filmId film of the reviews, any film if null
+     * @param limit  maximum number of reviews
+     * @param offset number of most relevant reviews to skip
+     * @return list of review ids, most relevant first
+     */
+    public List<Long> search(String query, Long filmId, int limit, int offset) {
+        Set<String> words = new LinkedHashSet<>(TextAnalyzer.words(query));
+
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        return getCatalog().search(words, filmId, limit, offset);
+    }
+
+    @EventListener
+    public void onReviewChanged(ReviewChangedEvent event) {
+        if (rebuilding) {
+            changedReviewIds.add(event.getReviewId());
+        }
+
+        ReviewCatalog current = catalog;
+
+        if (current != null) {
+            if (event.getOperation() == Operation.REMOVE) {
+                current.removeReview(event.getReviewId());
+            } else {
+                reloadReview(current, event.getReviewId());
+            }
+        }
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        ReviewCatalog current = catalog;
+
+        if (current != null && event.getOperation() == Operation.REMOVE) {
+            current.removeFilm(event.getFilmId());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.review-search.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${filmorate.review-search.rebuild-interval-ms:3600000}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        int reviews = rebuild();
+
+        log.info("Review search index rebuilt in {} ms, {} reviews", System.currentTimeMillis() - start, reviews);
+    }
+
+    /**
+     * Loads a new index from the storage and publishes it
+     *
+     * @return number of indexed reviews
+     */
+    public synchronized int rebuild() {
+        ReviewCatalog rebuilt = new ReviewCatalog();
+
+        rebuilding = true;
+        try {
+            for (Review review : reviewStorage.getAllReviews()) {
+                rebuilt.putReview(review);
+            }
+
+            catalog = rebuilt;
+        } finally {
+            rebuilding = false;
+        }
+
+        Set<Long> changed = new HashSet<>(changedReviewIds);
+        changedReviewIds.removeAll(changed);
+
+        for (Long reviewId : changed) {
+            reloadReview(rebuilt, reviewId);
+        }
+
+        return rebuilt.size();
+    }
+
+    static double idf(int reviews, int documentFrequency) {
+        return Math.log(1 + (reviews - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private ReviewCatalog getCatalog() {
+        ReviewCatalog current = catalog;
+
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (catalog == null) {
+                rebuild();
+            }
+
+            return catalog;
+        }
+    }
+
+    private void reloadReview(ReviewCatalog current, Long reviewId) {
+        reviewStorage.getReviewById(reviewId)
+                .ifPresentOrElse(current::putReview, () -> current.removeReview(reviewId));
+    }
+
+    /**
+     * Posting lists of review words, guarded by a read-write lock
+     */
+    static class ReviewCatalog {
+
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private final Map<Long, ReviewEntry> reviews = new HashMap<>();
+        private final Map<Long, Set<Long>> filmReviews = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private long totalWords;
+
+        List<Long> search(Set<String> words, Long filmId, int limit, int offset) {
+            lock.readLock().lock();
+            try {
+                List<Map<Long, Integer>> lists = new ArrayList<>(words.size());
+
+                for (String word : words) {
+                    Map<Long, Integer> list = postings.get(word);
+
+                    if (list == null) {
+                        return Collections.emptyList();
+                    }
+
+                    lists.add(list);
+                }
+
+                lists.sort(Comparator.comparingInt(Map::size));
+
+                double averageLength = reviews.isEmpty() ? 1 : (double) totalWords / reviews.size();
+                Map<Long, Double> scores = new HashMap<>();
+
+                for (Long reviewId : lists.get(0).keySet()) {
+                    ReviewEntry review = reviews.get(reviewId);
+
+                    if (filmId != null && !filmId.equals(review.filmId)) {
+                        continue;
+                    }
+
+                    double score = 0;
+
+                    for (Map<Long, Integer> list : lists) {
+                        Integer frequency = list.get(reviewId);
+
+                        if (frequency == null) {
+                            score = -1;
+                            break;
+                        }
+
+                        score += idf(reviews.size(), list.size()) * frequency * (K1 + 1)
+                                / (frequency + K1 * (1 - B + B * review.length / averageLength));
+                    }
+
+                    if (score >= 0) {
+                        scores.put(reviewId, score);
+                    }
+                }
+
+                return getPage(scores, limit, offset);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return reviews.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void putReview(Review review) {
+            lock.writeLock().lock();
+            try {
+                removeReviewUnlocked(review.getReviewId());
+
+                List<String> words = TextAnalyzer.words(review.getContent());
+                Map<String, Integer> frequencies = new HashMap<>();
+
+                for (String word : words) {
+                    frequencies.merge(word, 1, Integer::sum);
+                }
+
+                reviews.put(review.getReviewId(),
+                        new ReviewEntry(review.getFilmId(), words.size(), frequencies.keySet()));
+                filmReviews.computeIfAbsent(review.getFilmId(), id -> new HashSet<>()).add(review.getReviewId());
+                totalWords += words.size();
+
+                frequencies.forEach((word, frequency) ->
+                        postings.computeIfAbsent(word, key -> new HashMap<>()).put(review.getReviewId(), frequency));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void removeReview(Long reviewId) {
+            lock.writeLock().lock();
+            try {
+                removeReviewUnlocked(reviewId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void removeFilm(Long filmId) {
+            lock.writeLock().lock();
+            try {
+                for (Long reviewId : new ArrayList<>(filmReviews.getOrDefault(filmId, Collections.emptySet()))) {
+                    removeReviewUnlocked(reviewId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Returns the ids of the reviews on the page, keeping only offset + limit best reviews while selecting them
+         */
+        private List<Long> getPage(Map<Long, Double> scores, int limit, int offset) {
+            Comparator<Map.Entry<Long, Double>> byRelevance = Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey());
+            long size = Math.min((long) offset + limit, scores.size());
+            PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(byRelevance.reversed());
+
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                best.add(entry);
+
+                if (best.size() > size) {
+                    best.poll();
+                }
+            }
+
+            List<Map.Entry<Long, Double>> page = new ArrayList<>(best);
+            page.sort(byRelevance);
+
+            return page.subList(Math.min(offset, page.size()), page.size()).stream()
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        }
+
+        private void removeReviewUnlocked(Long reviewId) {
+            ReviewEntry review = reviews.remove(reviewId);
+
+            if (review == null) {
+                return;
+            }
+
+            totalWords -= review.length;
+
+            Set<Long> reviewIds = filmReviews.get(review.filmId);
+
+            reviewIds.remove(reviewId);
+
+            if (reviewIds.isEmpty()) {
+                filmReviews.remove(review.filmId);
+            }
+
+            for (String word : review.words) {
+                Map<Long, Integer> list = postings.get(word);
+
+                list.remove(reviewId);
+
+                if (list.isEmpty()) {
+                    postings.remove(word);
+                }
+            }
+        }
+    }
+
+    private static class ReviewEntry {
+
+        private final Long filmId;
+        private final int length;
+        private final Set<String> words;
+
+        ReviewEntry(Long filmId, int length, Set<String> words) {
+            this.filmId = filmId;
+            this.length = length;
+            this.words = words;
+        }
+    }
+}
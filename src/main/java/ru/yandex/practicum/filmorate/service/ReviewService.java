@@ -17,6 +17,18 @@ public interface ReviewService {
      */
     List<Review> getReviews(Long filmId, int count);
 
+    /**
+     * Returns reviews containing every word of the query, most relevant first
+     * If film id is not specified, searches reviews of all films
+     *
+     * @param query
+     * @param filmId
+     * @param limit
+     * @param offset
+     * @return list of reviews
+     */
+    List<Review> searchReviews(String query, Long filmId, int limit, int offset);
+
     /**
      * Returns review by id
      * If the review is not found throws NotFoundException
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.EventType;
@@ -14,6 +15,10 @@ import ru.yandex.practicum.filmorate.validator.NotFoundException;
 import ru.yandex.practicum.filmorate.validator.ValidationException;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +28,8 @@ public class ReviewServiceImpl implements ReviewService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final EventStorage eventStorage;
+    private final ReviewSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<Review> getReviews(Long filmId, int count) {
@@ -33,6 +40,18 @@ public class ReviewServiceImpl implements ReviewService {
         return reviewStorage.getReviewsByFilmId(filmId, count);
     }
 
+    @Override
+    public List<Review> searchReviews(String query, Long filmId, int limit, int offset) {
+        List<Long> ids = searchIndex.search(query, filmId, limit, offset);
+        Map<Long, Review> reviews = reviewStorage.getReviewsByIds(ids).stream()
+                .collect(Collectors.toMap(Review::getReviewId, Function.identity()));
+
+        return ids.stream()
+                .map(reviews::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Review getReviewById(Long id) {
         return reviewStorage.getReviewById(id).orElseThrow(
@@ -55,6 +74,7 @@ public class ReviewServiceImpl implements ReviewService {
         }
 
         Review newReview = reviewStorage.createReview(review);
+        eventPublisher.publishEvent(new ReviewChangedEvent(newReview.getReviewId(), Operation.ADD));
 
         eventStorage.addEvent(Event.builder()
                 .userId(newReview.getUserId())
@@ -78,6 +98,7 @@ public class ReviewServiceImpl implements ReviewService {
         }
 
         Review newReview = reviewStorage.updateReview(review);
+        eventPublisher.publishEvent(new ReviewChangedEvent(newReview.getReviewId(), Operation.UPDATE));
 
         eventStorage.addEvent(Event.builder()
                 .userId(newReview.getUserId())
@@ -92,10 +113,6 @@ public class ReviewServiceImpl implements ReviewService {
 
     @Override
     public void removeReviewById(Long id) {
-        if (!reviewStorage.reviewExists(id)) {
-            throw new NotFoundException(String.format("Review width id %d does not exist", id));
-        }
-
         Review review = getReviewById(id);
 
         eventStorage.addEvent(Event.builder()
@@ -107,6 +124,7 @@ public class ReviewServiceImpl implements ReviewService {
                 .build());
 
         reviewStorage.removeReviewById(id);
+        eventPublisher.publishEvent(new ReviewChangedEvent(id, Operation.REMOVE));
     }
 
     @Override
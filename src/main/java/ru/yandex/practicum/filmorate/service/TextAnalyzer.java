@@ -0,0 +1,166 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Text analysis shared by the in-memory indexes, so that one lookup finds every spelling of a name.
+ * Text is split into words at every character other than a letter or a digit, letters are folded
+ * to lower case, ё to е, and combining marks are dropped, except the breve of й typed as two characters.
+ * Russian words optionally lose one inflectional ending, so that "войны" and "война" give the same word.
+ * Cyrillic letters are finally transliterated to Latin ones, so "Сталкер" and "Stalker" give the same word
+ * and "Солярис" gives "solyaris", one edit away from "solaris".
+ * Transliteration maps every letter on its own, so a prefix of a name gives a prefix of its normalized name.
+ * A text is analyzed in one pass over two buffers reused for all its words.
+ */
+public final class TextAnalyzer {
+
+    private static final char FIRST_CYRILLIC = 'а';
+    private static final String[] LATIN = {
+            "a", "b", "v", "g", "d", "e", "zh", "z", "i", "y", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya"};
+
+    /**
+     * Endings removed by the stemmer, longest first
+     */
+    private static final String[] ENDINGS = {
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "иях", "ией",
+            "ов", "ев", "ей", "ий", "ый", "ой", "ая", "яя", "ое", "ее", "ые", "ие", "ом", "ем", "ам", "ям",
+            "ах", "ях", "ую", "юю", "ых", "их",
+            "а", "я", "ы", "и", "у", "ю", "е", "о", "ь", "й"};
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private static final char COMBINING_BREVE = '\u0306';
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Returns the words of the text joined with single spaces, without stemming
+     *
+     * @param text
+     * @return normalized text, empty if the text has no letters or digits
+     */
+    public static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+
+        analyze(text, false, word -> {
+            if (normalized.length() > 0) {
+                normalized.append(' ');
+            }
+
+            normalized.append(word);
+        });
+
+        return normalized.toString();
+    }
+
+    /**
+     * Returns the stemmed words of the text
+     *
+     * @param text
+     * @return list of words in the order of the text
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+
+        analyze(text, true, word -> words.add(word.toString()));
+
+        return words.isEmpty() ? Collections.emptyList() : words;
+    }
+
+    /**
+     * Passes every analyzed word to the consumer in a buffer reused for the next word
+     */
+    private static void analyze(String text, boolean stem, Consumer<CharSequence> consumer) {
+        StringBuilder word = new StringBuilder(16);
+        StringBuilder latin = new StringBuilder(24);
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (Character.isLetterOrDigit(c)) {
+                word.append(fold(c));
+            } else if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                if (c == COMBINING_BREVE && word.length() > 0 && word.charAt(word.length() - 1) == 'и') {
+                    word.setCharAt(word.length() - 1, 'й');
+                }
+            } else {
+                flush(word, latin, stem, consumer);
+            }
+        }
+
+        flush(word, latin, stem, consumer);
+    }
+
+    private static void flush(StringBuilder word, StringBuilder latin, boolean stem,
+                              Consumer<CharSequence> consumer) {
+        if (word.length() == 0) {
+            return;
+        }
+
+        if (stem) {
+            stem(word);
+        }
+
+        latin.setLength(0);
+
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+
+            if (isCyrillic(c)) {
+                latin.append(LATIN[c - FIRST_CYRILLIC]);
+            } else {
+                latin.append(c);
+            }
+        }
+
+        if (latin.length() > 0) {
+            consumer.accept(latin);
+        }
+
+        word.setLength(0);
+    }
+
+    private static char fold(char c) {
+        char lower = Character.toLowerCase(c);
+
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    /**
+     * Removes the longest ending that leaves at least {@link #MIN_STEM_LENGTH} characters of a Russian word
+     */
+    private static void stem(StringBuilder word) {
+        if (!isCyrillic(word.charAt(word.length() - 1))) {
+            return;
+        }
+
+        for (String ending : ENDINGS) {
+            int stemLength = word.length() - ending.length();
+
+            if (stemLength >= MIN_STEM_LENGTH && endsWith(word, ending)) {
+                word.setLength(stemLength);
+                return;
+            }
+        }
+    }
+
+    private static boolean isCyrillic(char c) {
+        return c >= FIRST_CYRILLIC && c < FIRST_CYRILLIC + LATIN.length;
+    }
+
+    private static boolean endsWith(StringBuilder word, String ending) {
+        int offset = word.length() - ending.length();
+
+        for (int i = 0; i < ending.length(); i++) {
+            if (word.charAt(offset + i) != ending.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
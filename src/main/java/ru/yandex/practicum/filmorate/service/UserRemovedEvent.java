@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Published by the user service after a user has been removed together with the user's likes.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+@RequiredArgsConstructor
+public class UserRemovedEvent {
+
+    private final Long userId;
+
+    /**
+     * Films that lost a like of the user
+     */
+    private final List<Long> likedFilmIds;
+}
@@ -87,6 +87,8 @@ public interface UserService {
 
     /**
      * Returns a list of films related to users preferences
+     * If there is no user with intersecting likes, films are recommended
+     * by genres and directors of the liked films or by popularity
      * If the user is not found throws NotFoundException
      *
      * @param id
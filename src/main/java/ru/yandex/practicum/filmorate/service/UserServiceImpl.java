@@ -1,7 +1,10 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache.Recommendations;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.Film;
@@ -13,17 +16,26 @@ import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
 import ru.yandex.practicum.filmorate.validator.ValidationException;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final int COLD_START_RECOMMENDATIONS = 10;
+
     private final UserStorage storage;
     private final FilmStorage filmStorage;
     private final EventStorage eventStorage;
     private final FilmService filmService;
+    private final ContentRecommender contentRecommender;
+    private final RecommendationCache recommendationCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<User> getUsers() {
@@ -135,7 +147,10 @@ public class UserServiceImpl implements UserService {
             throw new NotFoundException(String.format("User with id %d does not exist", id));
         }
 
+        List<Long> likedFilmIds = filmStorage.getLikedFilmIds(id);
+
         storage.removeUser(id);
+        eventPublisher.publishEvent(new UserRemovedEvent(id, likedFilmIds));
     }
 
     @Override
@@ -144,11 +159,7 @@ public class UserServiceImpl implements UserService {
             throw new NotFoundException(String.format("User with id %d does not exist", id));
         }
 
-        List<Film> films = filmStorage.getRecommendations(id);
-        filmService.addGenresToFilms(films);
-        filmService.addDirectorsToFilms(films);
-
-        return films;
+        return filmService.getFilmsByIds(recommendationCache.get(id, this::loadRecommendations));
     }
 
     @Override
@@ -160,6 +171,33 @@ public class UserServiceImpl implements UserService {
         return eventStorage.getUserEvents(id);
     }
 
+    /**
+     * Films of the user with the most common likes go first, content-based recommendations fill the list
+     * up to {@link #COLD_START_RECOMMENDATIONS}. Both exclude the films the user liked.
+     */
+    private Recommendations loadRecommendations(Long id) {
+        Optional<Long> neighbourId = filmStorage.getUserWithMostIntersections(id);
+        List<Long> filmIds = neighbourId
+                .map(neighbour -> filmStorage.getRecommendedFilmIds(id, neighbour))
+                .orElse(List.of());
+
+        if (filmIds.size() >= COLD_START_RECOMMENDATIONS) {
+            return new Recommendations(filmIds, neighbourId.get());
+        }
+
+        Set<Long> blended = new LinkedHashSet<>(filmIds);
+
+        for (Long filmId : contentRecommender.recommend(id, COLD_START_RECOMMENDATIONS)) {
+            if (blended.size() >= COLD_START_RECOMMENDATIONS) {
+                break;
+            }
+
+            blended.add(filmId);
+        }
+
+        return new Recommendations(new ArrayList<>(blended), neighbourId.orElse(null));
+    }
+
     private void changeNameToLogin(User user) {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -9,8 +10,13 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFeatures;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
@@ -21,10 +27,18 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -32,13 +46,14 @@ public class FilmDbStorage implements FilmStorage {
 
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PopularityStorage popularityStorage;
 
     @Override
-    public List<Film> getFilms() {
-        String sqlQuery = "SELECT f.*, m.name mpa_name " +
+    public List<Film> getFilms(Set<FilmField> fields) {
+        String sqlQuery = "SELECT " + getColumns(fields) + " " +
                 "FROM films f " +
-                "INNER JOIN mpa m ON m.id = f.mpa_id";
-        return jdbcTemplate.query(sqlQuery, this::mapRowToFilm);
+                getMpaJoin(fields);
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> mapRowToFilm(rs, fields));
     }
 
     @Override
@@ -57,9 +72,37 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        return getFilmsByIds(ids, FilmField.ALL);
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids, Set<FilmField> fields) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String sqlQuery = String.format("SELECT " + getColumns(fields) + " " +
+                        "FROM films f " +
+                        getMpaJoin(fields) +
+                        "WHERE f.id IN (%s)",
+                String.join(", ", Collections.nCopies(ids.size(), "?")));
+
+        Map<Long, Film> films = jdbcTemplate.query(sqlQuery, (rs, rowNum) -> mapRowToFilm(rs, fields), ids.toArray())
+                .stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
     public Film createFilm(Film film) {
-        String sqlQuery = "INSERT INTO films (name, description, release_date, duration, mpa_id) " +
-                "VALUES (?, ?, ?, ?, ?)";
+        String sqlQuery = "INSERT INTO films (name, description, release_date, release_year, duration, mpa_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
 
         GeneratedKeyHolder generatedKeyHolder = new GeneratedKeyHolder();
 
@@ -69,8 +112,9 @@ public class FilmDbStorage implements FilmStorage {
             ps.setString(1, film.getName());
             ps.setString(2, film.getDescription());
             ps.setDate(3, Date.valueOf(film.getReleaseDate()));
-            ps.setInt(4, film.getDuration());
-            ps.setInt(5, film.getMpa().getId());
+            ps.setInt(4, film.getReleaseDate().getYear());
+            ps.setInt(5, film.getDuration());
+            ps.setInt(6, film.getMpa().getId());
 
             return ps;
         }, generatedKeyHolder);
@@ -78,54 +122,106 @@ public class FilmDbStorage implements FilmStorage {
         Long id = generatedKeyHolder.getKey().longValue();
 
         film.setId(id);
-        addGenres(film.getId(), film.getGenres());
-        addDirectors(film.getId(), film.getDirectors());
+        addGenres(film.getId(), getGenreIds(film));
+        addDirectors(film.getId(), film.getReleaseDate().getYear(), getDirectorIds(film));
+        popularityStorage.refreshFilm(film.getId());
 
         return film;
     }
 
+    /**
+     * Updates a film, writing only what differs from the stored film
+     * The film row is locked while it is compared, so concurrent updates of a film are applied one after another.
+     * Only added and removed genres and directors are inserted and deleted, kept director rows get the new
+     * release year, and the popularity rollup is refreshed only if the release year or the genres changed
+     */
     @Override
+    @Transactional
     public Film updateFilm(Film film) {
-        String sqlQuery = "UPDATE films " +
-                "SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? " +
-                "WHERE id = ?";
+        String selectQuery = "SELECT name, description, release_date, duration, mpa_id " +
+                "FROM films " +
+                "WHERE id = ? " +
+                "FOR UPDATE";
+
+        Optional<Film> stored = jdbcTemplate.query(selectQuery, this::mapRowToStoredFilm, film.getId()).stream()
+                .findFirst();
+
+        if (stored.isEmpty()) {
+            return film;
+        }
+
+        int releaseYear = film.getReleaseDate().getYear();
+        boolean yearChanged = stored.get().getReleaseDate().getYear() != releaseYear;
+
+        if (!hasSameRow(stored.get(), film)) {
+            String sqlQuery = "UPDATE films " +
+                    "SET name = ?, description = ?, release_date = ?, release_year = ?, duration = ?, mpa_id = ? " +
+                    "WHERE id = ?";
+
+            jdbcTemplate.update(sqlQuery, film.getName(), film.getDescription(), film.getReleaseDate(),
+                    releaseYear, film.getDuration(), film.getMpa().getId(), film.getId());
+        }
 
-        jdbcTemplate.update(sqlQuery, film.getName(), film.getDescription(), film.getReleaseDate(),
-                film.getDuration(), film.getMpa().getId(), film.getId());
+        boolean genresChanged = updateGenres(film.getId(), getGenreIds(film));
 
-        removeGenreFilm(film.getId());
-        addGenres(film.getId(), film.getGenres());
-        addDirectors(film.getId(), film.getDirectors());
+        updateDirectors(film.getId(), releaseYear, yearChanged, getDirectorIds(film));
+
+        if (yearChanged || genresChanged) {
+            popularityStorage.refreshFilm(film.getId());
+        }
 
         return film;
     }
 
     @Override
-    public void addLike(Long id, Long userId) {
+    @Transactional
+    public boolean addLike(Long id, Long userId) {
         String sqlQuery = "INSERT INTO film_likes (film_id, user_id) " +
-                "VALUES (?, ?)";
+                "SELECT ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)";
 
-        jdbcTemplate.update(sqlQuery, id, userId);
+        try {
+            if (jdbcTemplate.update(sqlQuery, id, userId, id, userId) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+
+        updateDirectorLikeCount(id);
+        popularityStorage.refreshFilm(id);
+        return true;
     }
 
     @Override
-    public void removeLike(Long id, Long userId) {
+    @Transactional
+    public boolean removeLike(Long id, Long userId) {
         String sqlQuery = "DELETE FROM film_likes " +
                 "WHERE film_id = ? AND user_id = ?";
 
-        jdbcTemplate.update(sqlQuery, id, userId);
+        if (jdbcTemplate.update(sqlQuery, id, userId) == 0) {
+            return false;
+        }
+
+        updateDirectorLikeCount(id);
+        popularityStorage.refreshFilm(id);
+        return true;
     }
 
     @Override
-    public List<Film> getPopular(int count, Integer genreId, Integer year) {
-        String sqlTemplate = "SELECT f.*, m.name mpa_name, " +
+    public List<Film> getPopular(int count, Integer genreId, Integer year, Set<FilmField> fields) {
+        if (count <= popularityStorage.getTopSize()) {
+            return getPopularFromRollup(count, genreId, year, fields);
+        }
+
+        String sqlTemplate = "SELECT " + getColumns(fields) + ", " +
                 "COUNT(fl.user_id) count_of_likes " +
                 "FROM films f " +
-                "INNER JOIN mpa m ON m.id = f.mpa_id " +
+                getMpaJoin(fields) +
                 "LEFT JOIN film_likes fl ON fl.film_id = f.id " +
                 "%s " +
                 "GROUP BY f.id " +
-                "ORDER BY count_of_likes DESC " +
+                "ORDER BY count_of_likes DESC, f.id " +
                 "LIMIT :limit";
 
         String sqlWhere = "";
@@ -146,13 +242,13 @@ public class FilmDbStorage implements FilmStorage {
                 sqlWhere += "WHERE ";
             }
 
-            sqlWhere += "EXTRACT(YEAR FROM f.release_date) = :year ";
+            sqlWhere += "f.release_year = :year ";
             sqlParameterSource.addValue("year", year);
         }
 
         String sqlQuery = String.format(sqlTemplate, sqlWhere);
 
-        return namedParameterJdbcTemplate.query(sqlQuery, sqlParameterSource, this::mapRowToFilm);
+        return namedParameterJdbcTemplate.query(sqlQuery, sqlParameterSource, (rs, rowNum) -> mapRowToFilm(rs, fields));
     }
 
     @Override
@@ -165,6 +261,7 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
+    @Transactional
     public void removeFilm(Long id) {
         removeLikeFilm(id);
         removeGenreFilm(id);
@@ -175,6 +272,7 @@ public class FilmDbStorage implements FilmStorage {
                 "WHERE id = ?";
 
         jdbcTemplate.update(sqlQuery, id);
+        popularityStorage.refreshFilm(id);
     }
 
     @Override
@@ -211,58 +309,49 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public void removeFilmDirector(long id) {
-        String sqlQuery = "DELETE FROM film_director WHERE director_id = ?";
+        String sqlQuery = "DELETE FROM film_director WHERE film_id = ?";
 
         jdbcTemplate.update(sqlQuery, id);
     }
 
     @Override
-    public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
-        String sqlTemplate = "SELECT DISTINCT f.*, m.name mpa_name " +
+    public List<Film> getFilmsByDirector(Long directorId, String sortBy, Set<FilmField> fields) {
+        String sqlTemplate = "SELECT " + getColumns(fields) + " " +
                 "FROM film_director fd " +
-                "LEFT JOIN films f ON f.id = fd.film_id " +
-                "INNER JOIN mpa m ON m.id = f.mpa_id " +
-                "%s";
-
-        String sqlQuery = "";
-
-        if ("year".equals(sortBy)) {
-            sqlQuery = String.format(sqlTemplate, "WHERE fd.director_ID = ? " +
-                    "ORDER BY EXTRACT(YEAR FROM f.release_date)");
-        } else {
-            sqlQuery = String.format(sqlTemplate, "LEFT JOIN film_likes fl ON fl.film_id =f.id " +
-                    "WHERE fd.director_ID = ? " +
-                    "GROUP BY f.id " +
-                    "ORDER BY COUNT(f.id)");
-        }
+                "INNER JOIN films f ON f.id = fd.film_id " +
+                getMpaJoin(fields) +
+                "WHERE fd.director_id = ? " +
+                "ORDER BY %s";
 
-        return jdbcTemplate.query(sqlQuery, this::mapRowToFilm, directorId);
+        String sqlQuery = String.format(sqlTemplate, "year".equals(sortBy)
+                ? "fd.release_year, fd.film_id"
+                : "fd.like_count DESC, fd.film_id");
+
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> mapRowToFilm(rs, fields), directorId);
     }
 
     @Override
-    public List<Film> getRecommendations(Long id) {
-        List<Film> recommendedFilms = new ArrayList<>();
-
-        /* Finding a user with the most intersections by likes with the primary user */
-        String sqlQueryForUserId = "SELECT user_id FROM film_likes " +
+    public Optional<Long> getUserWithMostIntersections(Long id) {
+        String sqlQuery = "SELECT user_id FROM film_likes " +
                 "WHERE film_id IN (SELECT film_id FROM film_likes WHERE user_id = ?) AND user_id != ? " +
                 "GROUP BY user_id ORDER BY COUNT(film_id) DESC LIMIT 1";
 
-        SqlRowSet rowUser = jdbcTemplate.queryForRowSet(sqlQueryForUserId, id, id);
+        SqlRowSet rowUser = jdbcTemplate.queryForRowSet(sqlQuery, id, id);
 
         if (!rowUser.first()) {
-            return recommendedFilms;
+            return Optional.empty();
         }
 
-        Long userWithIntersections = rowUser.getLong("user_id");
+        return Optional.of(rowUser.getLong("user_id"));
+    }
 
-        /* Finding films according to the user with most intersections that primary user haven't liked yet */
-        String sqlQueryForFilms = "SELECT f.*, m.name mpa_name FROM film_likes fl " +
-                "LEFT JOIN films f ON fl.film_id = f.id INNER JOIN mpa m ON m.id = f.mpa_id " +
+    @Override
+    public List<Long> getRecommendedFilmIds(Long id, Long otherId) {
+        String sqlQuery = "SELECT film_id FROM film_likes " +
                 "WHERE user_id = ? AND film_id NOT IN " +
                 "(SELECT film_id FROM film_likes WHERE user_id = ?)";
 
-        return jdbcTemplate.query(sqlQueryForFilms, this::mapRowToFilm, userWithIntersections, id);
+        return jdbcTemplate.queryForList(sqlQuery, Long.class, otherId, id);
     }
 
     @Override
@@ -276,46 +365,224 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
-    public List<Film> search(String query, String[] by) {
-        String sqlTemplate = "SELECT f.*, m.name mpa_name FROM films f " +
-                "INNER JOIN mpa m ON m.id = f.mpa_id " +
+    public List<Film> search(String query, String[] by, int limit, int offset, Set<FilmField> fields) {
+        String sql = "SELECT " + getColumns(fields) + " FROM films f " +
+                getMpaJoin(fields) +
                 "LEFT JOIN film_likes fl ON fl.film_id = f.id " +
-                "%s " +
+                getSearchCondition(by) + " " +
                 "GROUP BY f.id " +
-                "ORDER BY COUNT(fl.film_id) DESC, f.id ASC";
+                "ORDER BY COUNT(fl.film_id) DESC, f.id ASC " +
+                "LIMIT :limit OFFSET :offset";
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("query", "%" + query + "%");
+        params.put("limit", limit);
+        params.put("offset", offset);
 
-        String sql;
+        MapSqlParameterSource param = new MapSqlParameterSource(params);
 
-        if ((by.length == 1) && by[0].equals("title")) {
-            sql = String.format(sqlTemplate, "WHERE lower(f.name) LIKE lower(:query)");
-        } else {
-            if (by.length == 1) {
-                sql = String.format(sqlTemplate,
-                        "INNER JOIN film_director df ON f.id = df.film_id " +
-                                "INNER JOIN director d ON d.director_id = df.director_id " +
-                                "WHERE lower(d.name) LIKE lower(:query)");
+        return namedParameterJdbcTemplate.query(sql, param, (rs, rowNum) -> mapRowToFilm(rs, fields));
+    }
+
+    @Override
+    public List<FilmFeatures> getFilmFeatures() {
+        String sqlQuery = "SELECT f.id, COUNT(fl.user_id) count_of_likes " +
+                "FROM films f " +
+                "LEFT JOIN film_likes fl ON fl.film_id = f.id " +
+                "GROUP BY f.id";
+
+        Map<Long, Integer> likes = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, rs -> {
+            likes.put(rs.getLong("id"), rs.getInt("count_of_likes"));
+        });
+
+        Map<Long, Long> genreMasks = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            genreMasks.merge(rs.getLong("film_id"), FilmFeatures.genreBit(rs.getInt("genre_id")), (a, b) -> a | b);
+        });
+
+        Map<Long, Set<Long>> directors = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, director_id FROM film_director", rs -> {
+            directors.computeIfAbsent(rs.getLong("film_id"), filmId -> new HashSet<>())
+                    .add(rs.getLong("director_id"));
+        });
+
+        List<FilmFeatures> features = new ArrayList<>(likes.size());
+
+        for (Map.Entry<Long, Integer> entry : likes.entrySet()) {
+            Long filmId = entry.getKey();
+
+            features.add(FilmFeatures.builder()
+                    .filmId(filmId)
+                    .genreMask(genreMasks.getOrDefault(filmId, 0L))
+                    .directorIds(directors.getOrDefault(filmId, Collections.emptySet()))
+                    .likeCount(entry.getValue())
+                    .build());
+        }
+
+        return features;
+    }
+
+    @Override
+    public List<Long> getLikedFilmIds(Long userId) {
+        String sqlQuery = "SELECT film_id FROM film_likes " +
+                "WHERE user_id = ?";
+
+        return jdbcTemplate.queryForList(sqlQuery, Long.class, userId);
+    }
+
+    @Override
+    public List<FilmTitle> getFilmTitles() {
+        String sqlQuery = "SELECT f.id, f.name, f.mpa_id, f.release_year, COUNT(fl.user_id) count_of_likes " +
+                "FROM films f " +
+                "LEFT JOIN film_likes fl ON fl.film_id = f.id " +
+                "GROUP BY f.id";
+
+        Map<Long, Set<Long>> directors = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, director_id FROM film_director", rs -> {
+            directors.computeIfAbsent(rs.getLong("film_id"), filmId -> new HashSet<>())
+                    .add(rs.getLong("director_id"));
+        });
+
+        Map<Long, Set<Integer>> genres = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            genres.computeIfAbsent(rs.getLong("film_id"), filmId -> new HashSet<>())
+                    .add(rs.getInt("genre_id"));
+        });
+
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> mapRowToFilmTitle(rs,
+                directors.getOrDefault(rs.getLong("id"), Collections.emptySet()),
+                genres.getOrDefault(rs.getLong("id"), Collections.emptySet())));
+    }
+
+    @Override
+    public Optional<FilmTitle> getFilmTitle(Long id) {
+        String sqlQuery = "SELECT f.id, f.name, f.mpa_id, f.release_year, " +
+                "(SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id) count_of_likes " +
+                "FROM films f " +
+                "WHERE f.id = ?";
+
+        Set<Long> directors = new HashSet<>();
+        Set<Integer> genres = new HashSet<>();
+        jdbcTemplate.query("SELECT 'director' link, director_id link_id FROM film_director WHERE film_id = ? " +
+                "UNION ALL " +
+                "SELECT 'genre' link, genre_id link_id FROM film_genres WHERE film_id = ?", rs -> {
+            if ("director".equals(rs.getString("link"))) {
+                directors.add(rs.getLong("link_id"));
             } else {
-                sql = String.format(sqlTemplate,
-                        "LEFT JOIN film_director df ON f.id = df.film_id " +
-                                "LEFT JOIN director d ON d.director_id = df.director_id " +
-                                "WHERE lower(d.name) LIKE lower(:query) OR lower(f.name) LIKE lower(:query)");
+                genres.add(rs.getInt("link_id"));
             }
+        }, id, id);
+
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> mapRowToFilmTitle(rs, directors, genres), id).stream()
+                .findFirst();
+    }
+
+    /**
+     * Reads the most liked films of the genre and year bucket of the popularity rollup
+     */
+    private List<Film> getPopularFromRollup(int count, Integer genreId, Integer year, Set<FilmField> fields) {
+        String sqlQuery = "SELECT " + getColumns(fields) + " " +
+                "FROM popularity_rollup p " +
+                "INNER JOIN films f ON f.id = p.film_id " +
+                getMpaJoin(fields) +
+                "WHERE p.genre_id = :genre_id AND p.release_year = :year " +
+                "ORDER BY p.like_count DESC, p.film_id " +
+                "LIMIT :limit";
+
+        MapSqlParameterSource sqlParameterSource = new MapSqlParameterSource()
+                .addValue("genre_id", genreId == null ? FilmPopularity.ANY_GENRE : genreId)
+                .addValue("year", year == null ? FilmPopularity.ANY_YEAR : year)
+                .addValue("limit", count);
+
+        return namedParameterJdbcTemplate.query(sqlQuery, sqlParameterSource, (rs, rowNum) -> mapRowToFilm(rs, fields));
+    }
+
+    /**
+     * Returns the columns of the selected fields, the id is always read
+     */
+    private static String getColumns(Set<FilmField> fields) {
+        StringJoiner columns = new StringJoiner(", ");
+
+        columns.add("f.id");
+
+        if (fields.contains(FilmField.NAME)) {
+            columns.add("f.name");
         }
 
-        Map<String, Object> params = new HashMap<>();
-        params.put("query", "%" + query + "%");
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            columns.add("f.description");
+        }
 
-        MapSqlParameterSource param = new MapSqlParameterSource(params);
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            columns.add("f.release_date");
+        }
+
+        if (fields.contains(FilmField.DURATION)) {
+            columns.add("f.duration");
+        }
+
+        if (fields.contains(FilmField.MPA)) {
+            columns.add("f.mpa_id");
+            columns.add("m.name mpa_name");
+        }
+
+        return columns.toString();
+    }
+
+    /**
+     * Returns the joins and the condition of films matching the :query parameter by title or/and director's name
+     */
+    private static String getSearchCondition(String[] by) {
+        if ((by.length == 1) && by[0].equals("title")) {
+            return "WHERE lower(f.name) LIKE lower(:query)";
+        }
+
+        if (by.length == 1) {
+            return "INNER JOIN film_director df ON f.id = df.film_id " +
+                    "INNER JOIN director d ON d.director_id = df.director_id " +
+                    "WHERE lower(d.name) LIKE lower(:query)";
+        }
 
-        return namedParameterJdbcTemplate.query(sql, param, this::mapRowToFilm);
+        return "LEFT JOIN film_director df ON f.id = df.film_id " +
+                "LEFT JOIN director d ON d.director_id = df.director_id " +
+                "WHERE lower(d.name) LIKE lower(:query) OR lower(f.name) LIKE lower(:query)";
     }
 
-    private void addGenres(Long filmId, Collection<Genre> filmGenres) {
-        if (filmGenres == null || filmGenres.isEmpty()) {
+    private static String getMpaJoin(Set<FilmField> fields) {
+        return fields.contains(FilmField.MPA) ? "INNER JOIN mpa m ON m.id = f.mpa_id " : "";
+    }
+
+    /**
+     * Applies the difference between the stored genres of a film and the given ones
+     *
+     * @return true if any genre was added or removed
+     */
+    private boolean updateGenres(Long filmId, Set<Integer> genreIds) {
+        Set<Integer> storedIds = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genres WHERE film_id = ?", Integer.class, filmId));
+
+        List<Integer> removedIds = getMissing(storedIds, genreIds);
+        List<Integer> addedIds = getMissing(genreIds, storedIds);
+
+        if (!removedIds.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?",
+                    removedIds.stream()
+                            .map(genreId -> new Object[]{filmId, genreId})
+                            .collect(Collectors.toList()));
+        }
+
+        addGenres(filmId, addedIds);
+
+        return !removedIds.isEmpty() || !addedIds.isEmpty();
+    }
+
+    private void addGenres(Long filmId, Collection<Integer> genreIds) {
+        if (genreIds.isEmpty()) {
             return;
         }
 
-        List<Genre> genres = new ArrayList<>(filmGenres);
+        List<Integer> genres = new ArrayList<>(genreIds);
 
         String sqlQuery = "INSERT INTO film_genres (film_id, genre_id) " +
                 "VALUES (?, ?)";
@@ -325,7 +592,7 @@ public class FilmDbStorage implements FilmStorage {
                     @Override
                     public void setValues(PreparedStatement ps, int i) throws SQLException {
                         ps.setLong(1, filmId);
-                        ps.setInt(2, genres.get(i).getId());
+                        ps.setInt(2, genres.get(i));
                     }
 
                     @Override
@@ -335,19 +602,48 @@ public class FilmDbStorage implements FilmStorage {
                 });
     }
 
-    private void addDirectors(Long filmId, Collection<Director> directors) {
-        removeDirectorsFromFilm(filmId);
-        if (directors == null || directors.isEmpty()) {
+    /**
+     * Applies the difference between the stored directors of a film and the given ones,
+     * copying a changed release year into the kept director rows
+     */
+    private void updateDirectors(Long filmId, int releaseYear, boolean yearChanged, Set<Long> directorIds) {
+        Set<Long> storedIds = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT director_id FROM film_director WHERE film_id = ?", Long.class, filmId));
+
+        List<Long> removedIds = getMissing(storedIds, directorIds);
+
+        if (!removedIds.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM film_director WHERE film_id = ? AND director_id = ?",
+                    removedIds.stream()
+                            .map(directorId -> new Object[]{filmId, directorId})
+                            .collect(Collectors.toList()));
+        }
+
+        if (yearChanged && storedIds.size() > removedIds.size()) {
+            jdbcTemplate.update("UPDATE film_director SET release_year = ? WHERE film_id = ?", releaseYear, filmId);
+        }
+
+        addDirectors(filmId, releaseYear, getMissing(directorIds, storedIds));
+    }
+
+    /**
+     * Adds directors to a film, copying its release year and number of likes into every row
+     */
+    private void addDirectors(Long filmId, int releaseYear, Collection<Long> directorIds) {
+        if (directorIds.isEmpty()) {
             return;
         }
 
-        List<Director> listDirectors = new ArrayList<>(directors);
-        jdbcTemplate.batchUpdate("INSERT INTO film_director(film_id, director_id) VALUES(? , ?)",
+        List<Long> listDirectors = new ArrayList<>(directorIds);
+        jdbcTemplate.batchUpdate("INSERT INTO film_director (film_id, director_id, release_year, like_count) " +
+                        "SELECT ?, ?, ?, COUNT(*) FROM film_likes WHERE film_id = ?",
                 new BatchPreparedStatementSetter() {
                     @Override
                     public void setValues(PreparedStatement ps, int i) throws SQLException {
                         ps.setLong(1, filmId);
-                        ps.setLong(2, listDirectors.get(i).getId());
+                        ps.setLong(2, listDirectors.get(i));
+                        ps.setInt(3, releaseYear);
+                        ps.setLong(4, filmId);
                     }
 
                     @Override
@@ -357,25 +653,115 @@ public class FilmDbStorage implements FilmStorage {
                 });
     }
 
-    private void removeDirectorsFromFilm(Long filmId) {
-        final String sql = "DELETE FROM film_director WHERE film_id = ?";
-        jdbcTemplate.update(sql, filmId);
+    private static Set<Integer> getGenreIds(Film film) {
+        return film.getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
-    private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
+    private static Set<Long> getDirectorIds(Film film) {
+        if (film.getDirectors() == null) {
+            return Collections.emptySet();
+        }
+
+        return film.getDirectors().stream()
+                .map(Director::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Returns the ids of the first set that are not in the second one, in the order of the first set
+     */
+    private static <T> List<T> getMissing(Set<T> ids, Set<T> otherIds) {
+        return ids.stream()
+                .filter(id -> !otherIds.contains(id))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean hasSameRow(Film stored, Film film) {
+        return Objects.equals(stored.getName(), film.getName())
+                && Objects.equals(stored.getDescription(), film.getDescription())
+                && Objects.equals(stored.getReleaseDate(), film.getReleaseDate())
+                && stored.getDuration() == film.getDuration()
+                && Objects.equals(stored.getMpa().getId(), film.getMpa().getId());
+    }
+
+    /**
+     * Copies the number of likes of a film into its director rows
+     * The rows are locked before the likes are counted, H2 does not recount a subquery of an update
+     * that has waited for a concurrent like. Must be called before the popularity rollup is locked,
+     * so that locks are always taken in the same order
+     */
+    private void updateDirectorLikeCount(Long filmId) {
+        jdbcTemplate.queryForList("SELECT director_id FROM film_director WHERE film_id = ? FOR UPDATE",
+                Long.class, filmId);
+
+        String sqlQuery = "UPDATE film_director " +
+                "SET like_count = (SELECT COUNT(*) FROM film_likes WHERE film_id = ?) " +
+                "WHERE film_id = ?";
+
+        jdbcTemplate.update(sqlQuery, filmId, filmId);
+    }
+
+    private Film mapRowToStoredFilm(ResultSet resultSet, int rowNum) throws SQLException {
         Film film = new Film();
+        Mpa mpa = new Mpa();
 
-        film.setId(resultSet.getLong("id"));
+        mpa.setId(resultSet.getInt("mpa_id"));
         film.setName(resultSet.getString("name"));
         film.setDescription(resultSet.getString("description"));
         film.setReleaseDate(resultSet.getDate("release_date").toLocalDate());
         film.setDuration(resultSet.getInt("duration"));
-
-        Mpa mpa = new Mpa();
-        mpa.setId(resultSet.getInt("mpa_id"));
-        mpa.setName(resultSet.getString("mpa_name"));
         film.setMpa(mpa);
 
         return film;
     }
+
+    private FilmTitle mapRowToFilmTitle(ResultSet resultSet, Set<Long> directorIds, Set<Integer> genreIds)
+            throws SQLException {
+        return FilmTitle.builder()
+                .filmId(resultSet.getLong("id"))
+                .name(resultSet.getString("name"))
+                .likeCount(resultSet.getInt("count_of_likes"))
+                .directorIds(directorIds)
+                .genreIds(genreIds)
+                .mpaId(resultSet.getObject("mpa_id", Integer.class))
+                .releaseYear(resultSet.getInt("release_year"))
+                .build();
+    }
+
+    private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
+        return mapRowToFilm(resultSet, FilmField.ALL);
+    }
+
+    private Film mapRowToFilm(ResultSet resultSet, Set<FilmField> fields) throws SQLException {
+        Film film = new Film();
+
+        film.setId(resultSet.getLong("id"));
+
+        if (fields.contains(FilmField.NAME)) {
+            film.setName(resultSet.getString("name"));
+        }
+
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            film.setDescription(resultSet.getString("description"));
+        }
+
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            film.setReleaseDate(resultSet.getDate("release_date").toLocalDate());
+        }
+
+        if (fields.contains(FilmField.DURATION)) {
+            film.setDuration(resultSet.getInt("duration"));
+        }
+
+        if (fields.contains(FilmField.MPA)) {
+            Mpa mpa = new Mpa();
+            mpa.setId(resultSet.getInt("mpa_id"));
+            mpa.setName(resultSet.getString("mpa_name"));
+            film.setMpa(mpa);
+        }
+
+        return film;
+    }
 }
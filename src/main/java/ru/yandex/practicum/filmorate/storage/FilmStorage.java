@@ -1,18 +1,24 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFeatures;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface FilmStorage {
 
     /**
      * Returns a list of all films
+     * Only the columns of the selected fields are read, genres, directors and likes are not loaded
      *
+     * @param fields
      * @return list of all films
      */
-    List<Film> getFilms();
+    List<Film> getFilms(Set<FilmField> fields);
 
     /**
      * Returns a film by id
@@ -22,6 +28,26 @@ public interface FilmStorage {
      */
     Optional<Film> getFilmById(Long id);
 
+    /**
+     * Returns a list of films by id list
+     * Films are returned in the order of the id list, missing ids are skipped
+     *
+     * @param ids
+     * @return list of films by id list
+     */
+    List<Film> getFilmsByIds(List<Long> ids);
+
+    /**
+     * Returns a list of films by id list
+     * Films are returned in the order of the id list, missing ids are skipped
+     * Only the columns of the selected fields are read, genres and directors are not loaded
+     *
+     * @param ids
+     * @param fields
+     * @return list of films by id list
+     */
+    List<Film> getFilmsByIds(List<Long> ids, Set<FilmField> fields);
+
     /**
      * Creates a new film
      *
@@ -40,31 +66,38 @@ public interface FilmStorage {
 
     /**
      * Adds a user like to a film
+     * Does nothing if the like already exists, also when it was added concurrently
      *
      * @param id
      * @param userId
+     * @return true if the like was added
      */
-    void addLike(Long id, Long userId);
+    boolean addLike(Long id, Long userId);
 
     /**
      * Removes a user like to a film
      *
      * @param id
      * @param userId
+     * @return true if the like existed
      */
-    void removeLike(Long id, Long userId);
+    boolean removeLike(Long id, Long userId);
 
     /**
-     * Returns a list of popular films by number of likes
+     * Returns a list of popular films by number of likes, films with the same number of likes by id
      * The number of films is set by the parameter count
      * Filtering should be based on two parameters: by genre and for the year
+     * Up to {@link PopularityStorage#getTopSize()} films are read from the popularity rollup
+     *
+     * Only the columns of the selected fields are read
      *
      * @param count
      * @param genreId
      * @param year
+     * @param fields
      * @return list of popular films
      */
-    List<Film> getPopular(int count, Integer genreId, Integer year);
+    List<Film> getPopular(int count, Integer genreId, Integer year, Set<FilmField> fields);
 
     /**
      * Removes a film
@@ -89,13 +122,21 @@ public interface FilmStorage {
     boolean filmExists(Long id);
 
     /**
-     * Returns a list of films related to users preferences
-     * If the user is not found throws NotFoundException
+     * Returns the user with the most intersections by likes with the user
      *
      * @param id
-     * @return list of films recommended to user
+     * @return user id or empty if no other user liked the same films
      */
-    List<Film> getRecommendations(Long id);
+    Optional<Long> getUserWithMostIntersections(Long id);
+
+    /**
+     * Returns ids of films liked by the other user that the user haven't liked yet
+     *
+     * @param id
+     * @param otherId
+     * @return list of film ids recommended to user
+     */
+    List<Long> getRecommendedFilmIds(Long id, Long otherId);
 
     /**
      * Removes a film from film_likes
@@ -114,18 +155,23 @@ public interface FilmStorage {
     /**
      * Removes film directors
      *
-     * @param id
+     * @param id film id
      */
     void removeFilmDirector(long id);
 
     /**
      * Returns a list of films for director, sorted by likes or year
+     * Films with the same year or number of likes are sorted by id, the most liked films come first
+     *
+     * @param directorId director's id
+     * Only the columns of the selected fields are read
      *
      * @param directorId director's id
      * @param sortBy     sorted type (likes or year)
+     * @param fields     fields to read
      * @return list of films
      */
-    List<Film> getFilmsByDirector(Long directorId, String sortBy);
+    List<Film> getFilmsByDirector(Long directorId, String sortBy, Set<FilmField> fields);
 
     /**
      * Checks for the existence of a film like
@@ -141,7 +187,41 @@ public interface FilmStorage {
      *
      * @param query search substring
      * @param by search param title or/and director's name
-     * @return list of films
+     * @param limit maximum number of films
+     * @param offset number of most liked films to skip
+     * @param fields fields to read
+     * @return list of films, most liked first
+     */
+    List<Film> search(String query, String[] by, int limit, int offset, Set<FilmField> fields);
+
+    /**
+     * Returns content feature vectors of all films:
+     * genre bitmask, director ids and number of likes
+     *
+     * @return list of film feature vectors
+     */
+    List<FilmFeatures> getFilmFeatures();
+
+    /**
+     * Returns ids of films liked by the user
+     *
+     * @param userId
+     * @return list of film ids
+     */
+    List<Long> getLikedFilmIds(Long userId);
+
+    /**
+     * Returns titles of all films with their number of likes and director ids
+     *
+     * @return list of film titles
+     */
+    List<FilmTitle> getFilmTitles();
+
+    /**
+     * Returns the title of a film with its number of likes and director ids
+     *
+     * @param id
+     * @return film title or empty if the film does not exist
      */
-    List<Film> search(String query, String[] by);
+    Optional<FilmTitle> getFilmTitle(Long id);
 }
@@ -0,0 +1,388 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the popularity rollup in the popularity_rollup table.
+ * A change of a film updates only the buckets of the film: its row is updated, inserted if it now ranks
+ * above the last film of a full bucket, or removed. When a film leaves a full bucket or drops to its last place,
+ * the best film outside the bucket is looked up with a GROUP BY over the bucket, which is the only case
+ * where the cost depends on the size of the bucket.
+ * Every film belongs to the bucket of all films, so changes are serialized by one lock row
+ * held until the end of the transaction.
+ */
+@Component
+public class PopularityDbStorage implements PopularityStorage {
+
+    static final int TOP_SIZE = 100;
+
+    private static final Comparator<FilmPopularity> RANKING = Comparator
+            .comparingInt(FilmPopularity::getLikeCount).reversed()
+            .thenComparing(FilmPopularity::getFilmId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final int topSize;
+
+    @Autowired
+    public PopularityDbStorage(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, TOP_SIZE);
+    }
+
+    PopularityDbStorage(JdbcTemplate jdbcTemplate, int topSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.topSize = topSize;
+    }
+
+    @Override
+    public int getTopSize() {
+        return topSize;
+    }
+
+    @Override
+    @Transactional
+    public void refreshFilm(Long filmId) {
+        lock();
+
+        Map<Bucket, Integer> stored = getStoredBuckets(filmId);
+        Set<Bucket> buckets = getBuckets(filmId);
+        int likeCount = buckets.isEmpty() ? 0 : countLikes(filmId);
+
+        if (!buckets.isEmpty() && stored.values().stream().anyMatch(count -> count != likeCount)) {
+            jdbcTemplate.update("UPDATE popularity_rollup SET like_count = ? WHERE film_id = ?", likeCount, filmId);
+        }
+
+        Set<Bucket> affected = new HashSet<>(buckets);
+        affected.addAll(stored.keySet());
+
+        for (Bucket bucket : affected) {
+            Integer storedCount = stored.get(bucket);
+
+            if (!buckets.contains(bucket)) {
+                leave(bucket, filmId);
+            } else if (storedCount == null) {
+                join(bucket.toFilmPopularity(filmId, likeCount));
+            } else if (likeCount < storedCount) {
+                afterDecrease(bucket, filmId);
+            }
+        }
+    }
+
+    @Override
+    public List<FilmPopularity> computeRollup(int chunkSize) {
+        Map<Bucket, PriorityQueue<FilmPopularity>> tops = new HashMap<>();
+        long lastId = 0;
+
+        while (true) {
+            Map<Long, Integer> years = new LinkedHashMap<>();
+
+            jdbcTemplate.query("SELECT id, release_year FROM films WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        years.put(rs.getLong("id"), rs.getInt("release_year"));
+                    }, lastId, chunkSize);
+
+            if (years.isEmpty()) {
+                break;
+            }
+
+            long firstId = years.keySet().iterator().next();
+
+            for (Long id : years.keySet()) {
+                lastId = id;
+            }
+
+            Map<Long, Integer> likes = new HashMap<>();
+            jdbcTemplate.query("SELECT film_id, COUNT(*) like_count FROM film_likes " +
+                    "WHERE film_id BETWEEN ? AND ? GROUP BY film_id", rs -> {
+                likes.put(rs.getLong("film_id"), rs.getInt("like_count"));
+            }, firstId, lastId);
+
+            Map<Long, List<Integer>> genres = new HashMap<>();
+            jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres WHERE film_id BETWEEN ? AND ?", rs -> {
+                genres.computeIfAbsent(rs.getLong("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+            }, firstId, lastId);
+
+            for (Map.Entry<Long, Integer> film : years.entrySet()) {
+                int likeCount = likes.getOrDefault(film.getKey(), 0);
+
+                for (Bucket bucket : getBuckets(film.getValue(), genres.getOrDefault(film.getKey(), List.of()))) {
+                    offer(tops.computeIfAbsent(bucket, b -> new PriorityQueue<>(RANKING.reversed())),
+                            bucket.toFilmPopularity(film.getKey(), likeCount));
+                }
+            }
+        }
+
+        return tops.values().stream()
+                .flatMap(top -> top.stream().sorted(RANKING))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FilmPopularity> getRollup() {
+        String sqlQuery = "SELECT genre_id, release_year, film_id, like_count " +
+                "FROM popularity_rollup";
+
+        return jdbcTemplate.query(sqlQuery, this::mapRowToFilmPopularity);
+    }
+
+    @Override
+    @Transactional
+    public boolean rebuildBucket(int genreId, int releaseYear, Collection<Long> filmIds) {
+        lock();
+
+        Bucket bucket = new Bucket(genreId, releaseYear);
+        List<FilmPopularity> stored = jdbcTemplate.query("SELECT genre_id, release_year, film_id, like_count " +
+                        "FROM popularity_rollup " +
+                        "WHERE genre_id = ? AND release_year = ? " +
+                        "ORDER BY like_count DESC, film_id",
+                this::mapRowToFilmPopularity, genreId, releaseYear);
+
+        Set<Long> candidates = new HashSet<>(filmIds);
+        stored.forEach(film -> candidates.add(film.getFilmId()));
+
+        List<FilmPopularity> expected = candidates.isEmpty() ? List.of() : queryBucket(bucket,
+                "f.id IN (:ids)", new MapSqlParameterSource("ids", candidates), topSize);
+
+        if (expected.equals(stored)) {
+            return false;
+        }
+
+        jdbcTemplate.update("DELETE FROM popularity_rollup WHERE genre_id = ? AND release_year = ?",
+                genreId, releaseYear);
+        jdbcTemplate.batchUpdate("INSERT INTO popularity_rollup (genre_id, release_year, film_id, like_count) " +
+                        "VALUES (?, ?, ?, ?)",
+                expected.stream()
+                        .map(film -> new Object[]{genreId, releaseYear, film.getFilmId(), film.getLikeCount()})
+                        .collect(Collectors.toList()));
+
+        return true;
+    }
+
+    private void join(FilmPopularity film) {
+        Bucket bucket = Bucket.of(film);
+        Tail tail = getTail(bucket);
+
+        if (tail.size < topSize) {
+            insert(film);
+        } else if (RANKING.compare(film, tail.last) < 0) {
+            delete(bucket, tail.last.getFilmId());
+            insert(film);
+        }
+    }
+
+    private void leave(Bucket bucket, Long filmId) {
+        Tail tail = getTail(bucket);
+
+        delete(bucket, filmId);
+
+        if (tail.size >= topSize) {
+            findBestOutsider(bucket).ifPresent(this::insert);
+        }
+    }
+
+    /**
+     * Films outside a full bucket rank below all films in it, so only a film that dropped
+     * to the last place may have to give way to the best film outside
+     */
+    private void afterDecrease(Bucket bucket, Long filmId) {
+        Tail tail = getTail(bucket);
+
+        if (tail.size < topSize || !tail.last.getFilmId().equals(filmId)) {
+            return;
+        }
+
+        findBestOutsider(bucket)
+                .filter(best -> RANKING.compare(best, tail.last) < 0)
+                .ifPresent(best -> {
+                    delete(bucket, filmId);
+                    insert(best);
+                });
+    }
+
+    private Optional<FilmPopularity> findBestOutsider(Bucket bucket) {
+        String condition = "NOT EXISTS (SELECT 1 FROM popularity_rollup p " +
+                "WHERE p.genre_id = :genre_id AND p.release_year = :release_year AND p.film_id = f.id)";
+
+        return queryBucket(bucket, condition, new MapSqlParameterSource(), 1).stream().findFirst();
+    }
+
+    /**
+     * Ranks films of a bucket matching the condition by their current number of likes
+     */
+    private List<FilmPopularity> queryBucket(Bucket bucket, String condition, MapSqlParameterSource params,
+                                             int limit) {
+        String sqlTemplate = "SELECT f.id, COUNT(fl.user_id) like_count " +
+                "FROM films f " +
+                "%s" +
+                "LEFT JOIN film_likes fl ON fl.film_id = f.id " +
+                "WHERE %s %s" +
+                "GROUP BY f.id " +
+                "ORDER BY like_count DESC, f.id " +
+                "LIMIT :limit";
+
+        String genreJoin = bucket.genreId == FilmPopularity.ANY_GENRE ? ""
+                : "INNER JOIN film_genres fg ON fg.film_id = f.id AND fg.genre_id = :genre_id ";
+        String yearFilter = bucket.releaseYear == FilmPopularity.ANY_YEAR ? ""
+                : "AND f.release_year = :release_year ";
+
+        params.addValue("genre_id", bucket.genreId)
+                .addValue("release_year", bucket.releaseYear)
+                .addValue("limit", limit);
+
+        return namedParameterJdbcTemplate.query(String.format(sqlTemplate, genreJoin, condition, yearFilter), params,
+                (rs, rowNum) -> bucket.toFilmPopularity(rs.getLong("id"), rs.getInt("like_count")));
+    }
+
+    /**
+     * Returns the number of films in the bucket and the film at the last place
+     */
+    private Tail getTail(Bucket bucket) {
+        String sqlQuery = "SELECT genre_id, release_year, film_id, like_count, COUNT(*) OVER () film_count " +
+                "FROM popularity_rollup " +
+                "WHERE genre_id = ? AND release_year = ? " +
+                "ORDER BY like_count, film_id DESC " +
+                "LIMIT 1";
+
+        return jdbcTemplate.query(sqlQuery, (rs, rowNum) -> new Tail(rs.getInt("film_count"),
+                        mapRowToFilmPopularity(rs, rowNum)), bucket.genreId, bucket.releaseYear).stream()
+                .findFirst()
+                .orElse(new Tail(0, null));
+    }
+
+    private Map<Bucket, Integer> getStoredBuckets(Long filmId) {
+        String sqlQuery = "SELECT genre_id, release_year, like_count " +
+                "FROM popularity_rollup " +
+                "WHERE film_id = ?";
+
+        Map<Bucket, Integer> buckets = new HashMap<>();
+        jdbcTemplate.query(sqlQuery, rs -> {
+            buckets.put(new Bucket(rs.getInt("genre_id"), rs.getInt("release_year")), rs.getInt("like_count"));
+        }, filmId);
+
+        return buckets;
+    }
+
+    /**
+     * Returns the buckets the film belongs to, no buckets if the film does not exist
+     */
+    private Set<Bucket> getBuckets(Long filmId) {
+        String sqlQuery = "SELECT f.release_year, fg.genre_id " +
+                "FROM films f " +
+                "LEFT JOIN film_genres fg ON fg.film_id = f.id " +
+                "WHERE f.id = ?";
+
+        List<Integer> genreIds = new ArrayList<>();
+        List<Integer> years = new ArrayList<>();
+
+        jdbcTemplate.query(sqlQuery, rs -> {
+            years.add(rs.getInt("release_year"));
+
+            int genreId = rs.getInt("genre_id");
+
+            if (!rs.wasNull()) {
+                genreIds.add(genreId);
+            }
+        }, filmId);
+
+        return years.isEmpty() ? Set.of() : getBuckets(years.get(0), genreIds);
+    }
+
+    private Set<Bucket> getBuckets(int releaseYear, List<Integer> genreIds) {
+        Set<Bucket> buckets = new HashSet<>();
+
+        buckets.add(new Bucket(FilmPopularity.ANY_GENRE, FilmPopularity.ANY_YEAR));
+        buckets.add(new Bucket(FilmPopularity.ANY_GENRE, releaseYear));
+
+        for (Integer genreId : genreIds) {
+            buckets.add(new Bucket(genreId, FilmPopularity.ANY_YEAR));
+            buckets.add(new Bucket(genreId, releaseYear));
+        }
+
+        return buckets;
+    }
+
+    private int countLikes(Long filmId) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes WHERE film_id = ?",
+                Integer.class, filmId);
+
+        return count == null ? 0 : count;
+    }
+
+    private void offer(PriorityQueue<FilmPopularity> top, FilmPopularity film) {
+        if (top.size() < topSize) {
+            top.add(film);
+        } else if (RANKING.compare(film, top.peek()) < 0) {
+            top.poll();
+            top.add(film);
+        }
+    }
+
+    private void insert(FilmPopularity film) {
+        jdbcTemplate.update("INSERT INTO popularity_rollup (genre_id, release_year, film_id, like_count) " +
+                "VALUES (?, ?, ?, ?)", film.getGenreId(), film.getReleaseYear(), film.getFilmId(), film.getLikeCount());
+    }
+
+    private void delete(Bucket bucket, Long filmId) {
+        jdbcTemplate.update("DELETE FROM popularity_rollup WHERE genre_id = ? AND release_year = ? AND film_id = ?",
+                bucket.genreId, bucket.releaseYear, filmId);
+    }
+
+    /**
+     * Locks the rollup until the end of the transaction
+     */
+    private void lock() {
+        jdbcTemplate.queryForRowSet("SELECT id FROM popularity_rollup_lock WHERE id = 1 FOR UPDATE");
+    }
+
+    private FilmPopularity mapRowToFilmPopularity(ResultSet resultSet, int rowNum) throws SQLException {
+        return new FilmPopularity(resultSet.getInt("genre_id"), resultSet.getInt("release_year"),
+                resultSet.getLong("film_id"), resultSet.getInt("like_count"));
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Bucket {
+
+        private final int genreId;
+        private final int releaseYear;
+
+        static Bucket of(FilmPopularity film) {
+            return new Bucket(film.getGenreId(), film.getReleaseYear());
+        }
+
+        FilmPopularity toFilmPopularity(Long filmId, int likeCount) {
+            return new FilmPopularity(genreId, releaseYear, filmId, likeCount);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Tail {
+
+        private final int size;
+        private final FilmPopularity last;
+    }
+}
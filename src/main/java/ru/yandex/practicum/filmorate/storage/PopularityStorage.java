@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Rollup of the most liked films per genre and release year.
+ * Every film belongs to the buckets of each of its genres and its release year, of each genre for any year,
+ * of its release year for any genre and to the bucket of all films.
+ * A bucket keeps at most {@link #getTopSize()} films ranked by number of likes and then by film id,
+ * a bucket with fewer films contains all films of the bucket.
+ */
+public interface PopularityStorage {
+
+    /**
+     * Returns the maximum number of films kept per bucket
+     *
+     * @return number of films
+     */
+    int getTopSize();
+
+    /**
+     * Updates all buckets of a film after its likes, genres or release year have changed
+     * or after the film has been removed
+     * Must be called in the transaction that made the change
+     *
+     * @param filmId
+     */
+    void refreshFilm(Long filmId);
+
+    /**
+     * Computes the rollup from films, genres and likes, reading films in chunks ordered by id
+     *
+     * @param chunkSize number of films read at once
+     * @return top films of every non-empty bucket
+     */
+    List<FilmPopularity> computeRollup(int chunkSize);
+
+    /**
+     * Returns all stored rows of the rollup
+     *
+     * @return list of rollup rows
+     */
+    List<FilmPopularity> getRollup();
+
+    /**
+     * Rebuilds a bucket from the current likes of the candidate films and of the films stored in the bucket
+     * Does nothing if the stored rows are already correct
+     *
+     * @param genreId     genre id or {@link FilmPopularity#ANY_GENRE}
+     * @param releaseYear release year or {@link FilmPopularity#ANY_YEAR}
+     * @param filmIds     candidate films
+     * @return true if the stored rows have changed
+     */
+    boolean rebuildBucket(int genreId, int releaseYear, Collection<Long> filmIds);
+}
@@ -1,25 +1,34 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Review;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Component
-@RequiredArgsConstructor
 public class ReviewDbStorage implements ReviewStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public ReviewDbStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
 
     @Override
     public List<Review> getReviews(int count) {
@@ -42,6 +51,28 @@ public class ReviewDbStorage implements ReviewStorage {
         return jdbcTemplate.query(sqlQuery, this::mapRowToReview, filmId, count);
     }
 
+    @Override
+    public List<Review> getAllReviews() {
+        String sqlQuery = "SELECT * " +
+                "FROM reviews";
+
+        return jdbcTemplate.query(sqlQuery, this::mapRowToReview);
+    }
+
+    @Override
+    public List<Review> getReviewsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String sqlQuery = "SELECT * " +
+                "FROM reviews " +
+                "WHERE id IN (:ids)";
+
+        return namedParameterJdbcTemplate.query(sqlQuery, new MapSqlParameterSource("ids", ids),
+                this::mapRowToReview);
+    }
+
     @Override
     public Optional<Review> getReviewById(Long id) {
         String sqlQuery = "SELECT * " +
@@ -104,59 +135,27 @@ public class ReviewDbStorage implements ReviewStorage {
     }
 
     @Override
+    @Transactional
     public void addLike(Long id, Long userId) {
-        String sqlQuery = "INSERT INTO review_likes (review_id, user_id, is_useful) " +
-                "VALUES (?, ?, ?)";
-
-        jdbcTemplate.update(sqlQuery, id, userId, true);
-
-        sqlQuery = "UPDATE reviews " +
-                "SET useful = useful + 1 " +
-                "WHERE id = ?";
-
-        jdbcTemplate.update(sqlQuery, id);
+        addVote(id, userId, true);
     }
 
     @Override
+    @Transactional
     public void removeLike(Long id, Long userId) {
-        String sqlQuery = "DELETE FROM review_likes " +
-                "WHERE review_id = ? AND user_id = ? AND is_useful = ?";
-
-        jdbcTemplate.update(sqlQuery, id, userId, true);
-
-        sqlQuery = "UPDATE reviews " +
-                "SET useful = useful - 1" +
-                "WHERE id = ?";
-
-        jdbcTemplate.update(sqlQuery, id);
+        removeVote(id, userId, true);
     }
 
     @Override
+    @Transactional
     public void addDislike(Long id, Long userId) {
-        String sqlQuery = "INSERT INTO review_likes (review_id, user_id, is_useful) " +
-                "VALUES (?, ?, ?)";
-
-        jdbcTemplate.update(sqlQuery, id, userId, false);
-
-        sqlQuery = "UPDATE reviews " +
-                "SET useful = useful - 1 " +
-                "WHERE id = ?";
-
-        jdbcTemplate.update(sqlQuery, id);
+        addVote(id, userId, false);
     }
 
     @Override
+    @Transactional
     public void removeDislike(Long id, Long userId) {
-        String sqlQuery = "DELETE FROM review_likes " +
-                "WHERE review_id = ? AND user_id = ? AND is_useful = ?";
-
-        jdbcTemplate.update(sqlQuery, id, userId, false);
-
-        sqlQuery = "UPDATE reviews " +
-                "SET useful = useful + 1" +
-                "WHERE id = ?";
-
-        jdbcTemplate.update(sqlQuery, id);
+        removeVote(id, userId, false);
     }
 
     @Override
@@ -188,6 +187,50 @@ public class ReviewDbStorage implements ReviewStorage {
         return row.next();
     }
 
+    private void addVote(Long id, Long userId, boolean isUseful) {
+        lockReview(id);
+
+        String sqlQuery = "MERGE INTO review_likes (review_id, user_id, is_useful) " +
+                "KEY (review_id, user_id, is_useful) " +
+                "VALUES (?, ?, ?)";
+
+        jdbcTemplate.update(sqlQuery, id, userId, isUseful);
+
+        updateUseful(id);
+    }
+
+    private void removeVote(Long id, Long userId, boolean isUseful) {
+        lockReview(id);
+
+        String sqlQuery = "DELETE FROM review_likes " +
+                "WHERE review_id = ? AND user_id = ? AND is_useful = ?";
+
+        jdbcTemplate.update(sqlQuery, id, userId, isUseful);
+
+        updateUseful(id);
+    }
+
+    /**
+     * Locks the review row until the end of the transaction,
+     * so votes of a review are changed and counted by one transaction at a time
+     */
+    private void lockReview(Long id) {
+        String sqlQuery = "SELECT id FROM reviews WHERE id = ? FOR UPDATE";
+
+        jdbcTemplate.queryForRowSet(sqlQuery, id);
+    }
+
+    private void updateUseful(Long id) {
+        String sqlQuery = "UPDATE reviews " +
+                "SET useful = (" +
+                "SELECT COALESCE(SUM(CASE WHEN is_useful THEN 1 ELSE -1 END), 0) " +
+                "FROM review_likes " +
+                "WHERE review_id = ?) " +
+                "WHERE id = ?";
+
+        jdbcTemplate.update(sqlQuery, id, id);
+    }
+
     private Review mapRowToReview(ResultSet resultSet, int rowNum) throws SQLException {
         Review review = new Review();
 
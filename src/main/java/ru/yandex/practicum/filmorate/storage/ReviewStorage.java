@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Review;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +27,22 @@ public interface ReviewStorage {
      */
     List<Review> getReviewsByFilmId(Long filmId, int count);
 
+    /**
+     * Returns all reviews in no particular order
+     *
+     * @return list of reviews
+     */
+    List<Review> getAllReviews();
+
+    /**
+     * Returns reviews by ids in one query, in no particular order
+     * Ids of missing reviews are skipped
+     *
+     * @param ids
+     * @return list of reviews
+     */
+    List<Review> getReviewsByIds(Collection<Long> ids);
+
     /**
      * Returns review by id
      *
@@ -59,7 +76,8 @@ public interface ReviewStorage {
     void removeReviewById(Long id);
 
     /**
-     * Adds a user like to a review
+     * Adds a user like to a review and updates the usefulness of the review
+     * Does nothing if the like already exists
      *
      * @param id
      * @param userId
@@ -67,7 +85,7 @@ public interface ReviewStorage {
     void addLike(Long id, Long userId);
 
     /**
-     * Removes a user like to a review
+     * Removes a user like to a review and updates the usefulness of the review
      *
      * @param id
      * @param userId
@@ -75,7 +93,8 @@ public interface ReviewStorage {
     void removeLike(Long id, Long userId);
 
     /**
-     * Adds a user dislike to a review
+     * Adds a user dislike to a review and updates the usefulness of the review
+     * Does nothing if the dislike already exists
      *
      * @param id
      * @param userId
@@ -83,7 +102,7 @@ public interface ReviewStorage {
     void addDislike(Long id, Long userId);
 
     /**
-     * Removes a user dislike to a review
+     * Removes a user dislike to a review and updates the usefulness of the review
      *
      * @param id
      * @param userId
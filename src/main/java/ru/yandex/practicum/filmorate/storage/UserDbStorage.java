@@ -6,6 +6,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.Date;
@@ -15,12 +16,14 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class UserDbStorage implements UserStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final PopularityStorage popularityStorage;
 
     @Override
     public List<User> getUsers() {
@@ -79,7 +82,8 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public void addFriend(Long id, Long friendId) {
-        String sqlQuery = "INSERT INTO user_friends (user_id, friend_id) " +
+        String sqlQuery = "MERGE INTO user_friends (user_id, friend_id) " +
+                "KEY (user_id, friend_id) " +
                 "VALUES (?, ?)";
 
         jdbcTemplate.update(sqlQuery, id, friendId);
@@ -115,6 +119,7 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public void removeUser(Long id) {
         removeUserLike(id);
         removeUserFromFriends(id);
@@ -149,11 +154,30 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public void removeUserLike(Long id) {
+        List<Long> filmIds = jdbcTemplate.queryForList("SELECT film_id FROM film_likes WHERE user_id = ? " +
+                "ORDER BY film_id", Long.class, id);
+
+        // Director rows are locked before the likes are counted and before the first refresh
+        // locks the popularity rollup, in the same order as a like takes the locks
+        jdbcTemplate.queryForList("SELECT film_id FROM film_director " +
+                "WHERE film_id IN (SELECT film_id FROM film_likes WHERE user_id = ?) " +
+                "ORDER BY film_id, director_id FOR UPDATE", Long.class, id);
+
         String sqlQuery = "DELETE FROM film_likes " +
                 "WHERE user_id = ?";
 
         jdbcTemplate.update(sqlQuery, id);
+
+        sqlQuery = "UPDATE film_director " +
+                "SET like_count = (SELECT COUNT(*) FROM film_likes WHERE film_id = ?) " +
+                "WHERE film_id = ?";
+
+        jdbcTemplate.batchUpdate(sqlQuery, filmIds.stream()
+                .map(filmId -> new Object[]{filmId, filmId})
+                .collect(Collectors.toList()));
+        filmIds.forEach(popularityStorage::refreshFilm);
     }
 
     @Override
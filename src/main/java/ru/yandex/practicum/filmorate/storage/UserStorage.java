@@ -40,6 +40,7 @@ public interface UserStorage {
 
     /**
      * Adds a user as a friend
+     * Does nothing if the user is already a friend
      *
      * @param id
      * @param friendId
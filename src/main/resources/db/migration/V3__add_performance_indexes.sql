@@ -0,0 +1,12 @@
+-- H2 backs every foreign key column with an index of its own, so film_likes(user_id), events(user_id)
+-- and review_likes(user_id) are already indexed. The indexes below extend those access paths:
+-- they cover the queries that filter by the column, or return the rows in the order the query sorts them.
+CREATE INDEX IF NOT EXISTS film_likes_user_id_idx ON film_likes (user_id, film_id);
+
+CREATE INDEX IF NOT EXISTS film_genres_genre_id_idx ON film_genres (genre_id, film_id);
+
+CREATE INDEX IF NOT EXISTS film_director_director_id_idx ON film_director (director_id, film_id);
+
+CREATE INDEX IF NOT EXISTS user_friends_friend_id_idx ON user_friends (friend_id, user_id);
+
+CREATE INDEX IF NOT EXISTS reviews_film_id_useful_idx ON reviews (film_id, useful DESC);
@@ -0,0 +1,7 @@
+ALTER TABLE films ADD COLUMN IF NOT EXISTS release_year INT;
+
+UPDATE films
+SET release_year = EXTRACT(YEAR FROM release_date)
+WHERE release_year IS NULL;
+
+CREATE INDEX IF NOT EXISTS films_release_year_idx ON films (release_year);
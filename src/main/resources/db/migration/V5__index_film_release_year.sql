@@ -0,0 +1,12 @@
+UPDATE films
+SET release_year = EXTRACT(YEAR FROM release_date)
+WHERE release_year IS NULL OR release_year <> EXTRACT(YEAR FROM release_date);
+
+ALTER TABLE films ALTER COLUMN release_year SET NOT NULL;
+
+ALTER TABLE films ADD CONSTRAINT IF NOT EXISTS films_release_year_check
+    CHECK (release_year = EXTRACT(YEAR FROM release_date));
+
+DROP INDEX IF EXISTS films_release_year_idx;
+
+CREATE INDEX IF NOT EXISTS films_release_year_id_idx ON films (release_year, id);
@@ -0,0 +1,47 @@
+-- Most liked films per genre and release year, kept up to date by PopularityDbStorage.
+-- genre_id = 0 and release_year = 0 stand for any genre and any year.
+-- A bucket holds at most 100 films (PopularityDbStorage.TOP_SIZE), a bucket with fewer rows holds all its films.
+CREATE TABLE IF NOT EXISTS popularity_rollup (
+  genre_id int NOT NULL,
+  release_year int NOT NULL,
+  film_id bigint NOT NULL,
+  like_count int NOT NULL,
+  PRIMARY KEY (genre_id, release_year, film_id)
+);
+
+CREATE INDEX IF NOT EXISTS popularity_rollup_film_id_idx ON popularity_rollup (film_id);
+
+-- The only row is locked by every change of the rollup
+CREATE TABLE IF NOT EXISTS popularity_rollup_lock (
+  id int NOT NULL PRIMARY KEY
+);
+
+INSERT INTO popularity_rollup_lock (id) VALUES (1);
+
+CREATE TABLE popularity_seed AS
+SELECT f.id film_id, f.release_year, COUNT(fl.user_id) like_count
+FROM films f
+LEFT JOIN film_likes fl ON fl.film_id = f.id
+GROUP BY f.id, f.release_year;
+
+INSERT INTO popularity_rollup (genre_id, release_year, film_id, like_count)
+SELECT genre_id, release_year, film_id, like_count
+FROM (SELECT b.genre_id, b.release_year, b.film_id, b.like_count,
+             ROW_NUMBER() OVER (PARTITION BY b.genre_id, b.release_year
+                                ORDER BY b.like_count DESC, b.film_id) film_rank
+      FROM (SELECT 0 genre_id, 0 release_year, s.film_id, s.like_count
+            FROM popularity_seed s
+            UNION ALL
+            SELECT 0, s.release_year, s.film_id, s.like_count
+            FROM popularity_seed s
+            UNION ALL
+            SELECT fg.genre_id, 0, s.film_id, s.like_count
+            FROM popularity_seed s
+            INNER JOIN film_genres fg ON fg.film_id = s.film_id
+            UNION ALL
+            SELECT fg.genre_id, s.release_year, s.film_id, s.like_count
+            FROM popularity_seed s
+            INNER JOIN film_genres fg ON fg.film_id = s.film_id) b) ranked
+WHERE film_rank <= 100;
+
+DROP TABLE popularity_seed;
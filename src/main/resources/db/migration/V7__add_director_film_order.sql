@@ -0,0 +1,17 @@
+-- Release year and number of likes of the film, kept up to date by FilmDbStorage and UserDbStorage,
+-- so the films of a director are read in index order sorted by year or by likes.
+ALTER TABLE film_director ADD COLUMN IF NOT EXISTS release_year int;
+
+ALTER TABLE film_director ADD COLUMN IF NOT EXISTS like_count int NOT NULL DEFAULT 0;
+
+UPDATE film_director fd
+SET release_year = (SELECT f.release_year FROM films f WHERE f.id = fd.film_id),
+    like_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = fd.film_id);
+
+ALTER TABLE film_director ALTER COLUMN release_year SET NOT NULL;
+
+DROP INDEX IF EXISTS film_director_director_id_idx;
+
+CREATE INDEX IF NOT EXISTS film_director_year_idx ON film_director (director_id, release_year, film_id);
+
+CREATE INDEX IF NOT EXISTS film_director_likes_idx ON film_director (director_id, like_count DESC, film_id);
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.model.Suggestion;
+import ru.yandex.practicum.filmorate.service.AutocompleteIndex;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Autocomplete lookups on an index of a million film titles, sampled to report p99 latency.
+ * Titles are two words of the synthetic dataset and a sequence number, so short prefixes match
+ * hundreds of thousands of titles and long ones at most one.
+ * The index is loaded from stubbed storages, the database is not involved in lookups.
+ * Not part of the regression gate because building the index takes a large heap; run with:
+ * mvn test -Pbenchmark -Dtest=BenchmarkRegressionTest -Dbenchmark.include=AutocompleteBenchmark -Dbenchmark.heap=3g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AutocompleteBenchmark {
+
+    private static final List<String> WORDS = List.of(
+            "nisi", "eiusmod", "dolore", "magna", "aliqua", "tempor", "labore", "veniam",
+            "quis", "nostrud", "ullamco", "laboris", "commodo", "consequat", "aute", "irure",
+            "velit", "esse", "cillum", "fugiat", "nulla", "pariatur", "excepteur", "sint",
+            "occaecat", "cupidatat", "proident", "culpa", "officia", "deserunt");
+
+    @Param("1000000")
+    private int films;
+
+    private AutocompleteIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<FilmTitle> titles = new ArrayList<>(films);
+
+        for (int i = 1; i <= films; i++) {
+            titles.add(FilmTitle.builder()
+                    .filmId((long) i)
+                    .name(WORDS.get(random.nextInt(WORDS.size())) + " "
+                            + WORDS.get(random.nextInt(WORDS.size())) + " " + i)
+                    .likeCount(random.nextInt(1_000))
+                    .directorIds(Set.of())
+                    .build());
+        }
+
+        FilmStorage filmStorage = mock(FilmStorage.class);
+        DirectorStorage directorStorage = mock(DirectorStorage.class);
+
+        when(filmStorage.getFilmTitles()).thenReturn(titles);
+        when(directorStorage.getDirectors()).thenReturn(List.of());
+
+        index = new AutocompleteIndex(filmStorage, directorStorage);
+        index.rebuild();
+    }
+
+    @Benchmark
+    public List<Suggestion> oneLetter() {
+        return index.suggest("n", 10);
+    }
+
+    @Benchmark
+    public List<Suggestion> twoWords() {
+        return index.suggest("nisi eius", 10);
+    }
+
+    @Benchmark
+    public List<Suggestion> wholeTitle() {
+        return index.suggest("nisi eiusmod 12345", 10);
+    }
+}
@@ -0,0 +1,198 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Committed benchmark results with an allowed slowdown per benchmark.
+ * Scores are average times, so a higher score is a regression.
+ * Scores are compared as ratios to the reference benchmark of the same run and of the baseline,
+ * so a slower or faster machine does not change the result.
+ * A tolerance of 0.3 allows a ratio up to 30% above the baseline.
+ * A benchmark regresses only if its ratio minus the error of the ratio is above the limit,
+ * so a noisy run does not fail the gate by itself.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BenchmarkBaseline {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private double defaultTolerance = 0.5;
+    private String reference = "ReferenceBenchmark.sortAndGroup";
+    private Map<String, Entry> benchmarks = new TreeMap<>();
+
+    public static BenchmarkBaseline read(File file) throws IOException {
+        return file.exists() ? MAPPER.readValue(file, BenchmarkBaseline.class) : new BenchmarkBaseline();
+    }
+
+    public void write(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+
+        MAPPER.writeValue(file, this);
+    }
+
+    /**
+     * Returns a baseline with the given scores, keeping tolerances of known benchmarks
+     *
+     * @param results benchmark name to score
+     * @param unit    score unit
+     * @return new baseline
+     */
+    public BenchmarkBaseline update(Map<String, Score> results, String unit) {
+        BenchmarkBaseline updated = new BenchmarkBaseline();
+        updated.setDefaultTolerance(defaultTolerance);
+        updated.setReference(reference);
+        updated.getBenchmarks().putAll(benchmarks);
+
+        results.forEach((name, score) -> {
+            Entry previous = benchmarks.get(name);
+            updated.getBenchmarks().put(name,
+                    new Entry(score.getScore(), unit, previous == null ? null : previous.getTolerance()));
+        });
+
+        return updated;
+    }
+
+    /**
+     * Compares results with the baseline relative to the reference benchmark
+     *
+     * @param results benchmark name to score, including the reference benchmark
+     * @return comparison of every benchmark found in the results or in the baseline, scores in reference runs
+     * @throws IllegalStateException if the reference benchmark is missing from the results or the baseline
+     */
+    public List<Comparison> compare(Map<String, Score> results) {
+        Score currentReference = results.get(reference);
+        Entry baselineReference = benchmarks.get(reference);
+
+        if (currentReference == null || baselineReference == null) {
+            throw new IllegalStateException("Reference benchmark " + reference
+                    + " is missing from the results or the baseline, rewrite the baseline");
+        }
+
+        Map<String, Comparison> comparisons = new TreeMap<>();
+
+        results.forEach((name, score) -> {
+            if (name.equals(reference)) {
+                return;
+            }
+
+            double ratio = score.getScore() / currentReference.getScore();
+            Entry entry = benchmarks.get(name);
+
+            if (entry == null) {
+                comparisons.put(name, new Comparison(name, null, ratio, defaultTolerance, Status.NEW));
+                return;
+            }
+
+            double baselineRatio = entry.getScore() / baselineReference.getScore();
+            double tolerance = entry.getTolerance() == null ? defaultTolerance : entry.getTolerance();
+            double error = ratio * (relativeError(score) + relativeError(currentReference));
+            Status status = ratio - error > baselineRatio * (1 + tolerance) ? Status.REGRESSION
+                    : ratio + error < baselineRatio / (1 + tolerance) ? Status.IMPROVEMENT
+                    : Status.OK;
+
+            comparisons.put(name, new Comparison(name, baselineRatio, ratio, tolerance, status));
+        });
+
+        benchmarks.forEach((name, entry) -> {
+            if (!name.equals(reference)) {
+                comparisons.putIfAbsent(name, new Comparison(name, entry.getScore() / baselineReference.getScore(),
+                        null, defaultTolerance, Status.NOT_RUN));
+            }
+        });
+
+        return new ArrayList<>(comparisons.values());
+    }
+
+    private static double relativeError(Score score) {
+        return Double.isNaN(score.getError()) ? 0 : score.getError() / score.getScore();
+    }
+
+    /**
+     * Formats comparisons as a table, scores in reference runs
+     *
+     * @param comparisons
+     * @return table
+     */
+    public static String format(List<Comparison> comparisons) {
+        String row = "%-45s %14s %14s %9s %7s  %s%n";
+        StringBuilder table = new StringBuilder(String.format(row,
+                "Benchmark", "Baseline", "Current", "Change", "Limit", "Status"));
+
+        for (Comparison comparison : comparisons) {
+            table.append(String.format(row,
+                    comparison.getName(),
+                    comparison.getBaseline() == null ? "-" : String.format("%.4g x", comparison.getBaseline()),
+                    comparison.getScore() == null ? "-" : String.format("%.4g x", comparison.getScore()),
+                    comparison.getChange() == null ? "-" : String.format("%+.1f%%", comparison.getChange() * 100),
+                    String.format("+%.0f%%", comparison.getTolerance() * 100),
+                    comparison.getStatus()));
+        }
+
+        return table.toString();
+    }
+
+    public enum Status {
+        OK,
+        REGRESSION,
+        IMPROVEMENT,
+        NEW,
+        NOT_RUN
+    }
+
+    /**
+     * Score of a benchmark run and its error at 99.9% confidence
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Score {
+
+        private final double score;
+        private final double error;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Entry {
+
+        private double score;
+        private String unit;
+        private Double tolerance;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Comparison {
+
+        private final String name;
+        private final Double baseline;
+        private final Double score;
+        private final double tolerance;
+        private final Status status;
+
+        public Double getChange() {
+            return baseline == null || score == null ? null : score / baseline - 1;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.benchmark.BenchmarkBaseline.Comparison;
+import ru.yandex.practicum.filmorate.benchmark.BenchmarkBaseline.Entry;
+import ru.yandex.practicum.filmorate.benchmark.BenchmarkBaseline.Score;
+import ru.yandex.practicum.filmorate.benchmark.BenchmarkBaseline.Status;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BenchmarkBaselineTest {
+
+    private static final String REFERENCE = "ReferenceBenchmark.sortAndGroup";
+
+    @Test
+    void compare_shouldUseTheToleranceOfTheBenchmark() {
+        BenchmarkBaseline baseline = initBaseline();
+
+        List<Comparison> comparisons = baseline.compare(Map.of(
+                REFERENCE, new Score(10.0, 0),
+                "StorageBenchmark.getPopular", new Score(140.0, 0),
+                "StorageBenchmark.search", new Score(140.0, 0)));
+
+        assertEquals(List.of(Status.REGRESSION, Status.OK), statuses(comparisons));
+    }
+
+    @Test
+    void compare_shouldNotReportARegression_ifTheReferenceIsSlowerToo() {
+        BenchmarkBaseline baseline = initBaseline();
+
+        List<Comparison> comparisons = baseline.compare(Map.of(
+                REFERENCE, new Score(20.0, 0),
+                "StorageBenchmark.getPopular", new Score(200.0, 0),
+                "StorageBenchmark.search", new Score(60.0, 0)));
+
+        assertEquals(List.of(Status.OK, Status.IMPROVEMENT), statuses(comparisons));
+        assertEquals(10.0, comparisons.get(0).getScore());
+    }
+
+    @Test
+    void compare_shouldFail_ifTheReferenceWasNotRun() {
+        BenchmarkBaseline baseline = initBaseline();
+        Map<String, Score> results = Map.of("StorageBenchmark.getPopular", new Score(100.0, 0));
+
+        assertThrows(IllegalStateException.class, () -> baseline.compare(results));
+    }
+
+    @Test
+    void compare_shouldNotReportARegression_ifTheLimitIsWithinTheScoreError() {
+        BenchmarkBaseline baseline = initBaseline();
+
+        List<Comparison> comparisons = baseline.compare(Map.of(
+                REFERENCE, new Score(10.0, 0),
+                "StorageBenchmark.getPopular", new Score(140.0, 20.0)));
+
+        assertEquals(Status.OK, comparisons.get(0).getStatus());
+    }
+
+    @Test
+    void compare_shouldReportNewBenchmarksImprovementsAndBenchmarksNotRun() {
+        BenchmarkBaseline baseline = initBaseline();
+
+        List<Comparison> comparisons = baseline.compare(Map.of(
+                REFERENCE, new Score(10.0, 0),
+                "ServiceBenchmark.getPopular", new Score(10.0, 0),
+                "StorageBenchmark.getPopular", new Score(50.0, 0)));
+
+        assertEquals(List.of(Status.NEW, Status.IMPROVEMENT, Status.NOT_RUN), statuses(comparisons));
+    }
+
+    @Test
+    void format_shouldPrintTheChangeOfEveryBenchmark() {
+        String table = BenchmarkBaseline.format(initBaseline().compare(Map.of(
+                REFERENCE, new Score(10.0, 0),
+                "StorageBenchmark.getPopular", new Score(150.0, 0))));
+
+        assertTrue(table.contains("StorageBenchmark.getPopular"));
+        assertTrue(table.contains("+50.0%"));
+        assertTrue(table.contains("REGRESSION"));
+    }
+
+    @Test
+    void update_shouldKeepTolerances() {
+        BenchmarkBaseline updated = initBaseline()
+                .update(Map.of("StorageBenchmark.search", new Score(80.0, 0)), "us/op");
+
+        assertEquals(80.0, updated.getBenchmarks().get("StorageBenchmark.search").getScore());
+        assertEquals(0.5, updated.getBenchmarks().get("StorageBenchmark.search").getTolerance());
+        assertEquals(100.0, updated.getBenchmarks().get("StorageBenchmark.getPopular").getScore());
+    }
+
+    private List<Status> statuses(List<Comparison> comparisons) {
+        return comparisons.stream().map(Comparison::getStatus).collect(Collectors.toList());
+    }
+
+    private BenchmarkBaseline initBaseline() {
+        BenchmarkBaseline baseline = new BenchmarkBaseline();
+
+        baseline.setDefaultTolerance(0.3);
+        baseline.getBenchmarks().put(REFERENCE, new Entry(10.0, "us/op", null));
+        baseline.getBenchmarks().put("StorageBenchmark.getPopular", new Entry(100.0, "us/op", null));
+        baseline.getBenchmarks().put("StorageBenchmark.search", new Entry(100.0, "us/op", 0.5));
+
+        return baseline;
+    }
+}
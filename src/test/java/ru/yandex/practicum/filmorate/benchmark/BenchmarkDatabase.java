@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.load.Dataset;
+import ru.yandex.practicum.filmorate.load.DatasetConfig;
+import ru.yandex.practicum.filmorate.load.SyntheticDataGenerator;
+
+import java.util.UUID;
+
+/**
+ * In-memory H2 database with the application schema and a fixed synthetic dataset for benchmarks.
+ * The schema is created by the application migrations, optionally only up to a given version,
+ * so a benchmark can compare queries before and after a migration.
+ * Benchmarks run in a forked JVM without the Spring Boot logging configuration,
+ * so the root logger is set to WARN here to keep debug logging of every statement out of the scores.
+ */
+public class BenchmarkDatabase {
+
+    static final DatasetConfig DATASET = DatasetConfig.builder()
+            .users(2_000)
+            .films(1_000)
+            .directors(100)
+            .reviews(1_000)
+            .votes(2_000)
+            .build();
+
+    private final JdbcDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final Dataset dataset;
+
+    public BenchmarkDatabase() {
+        this(DATASET, MigrationVersion.LATEST);
+    }
+
+    public BenchmarkDatabase(DatasetConfig config, MigrationVersion schemaVersion) {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        migrate(schemaVersion);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        dataset = new SyntheticDataGenerator(jdbcTemplate, config).generate();
+    }
+
+    /**
+     * Applies pending migrations up to the version
+     *
+     * @param schemaVersion target version
+     */
+    public void migrate(MigrationVersion schemaVersion) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .target(schemaVersion)
+                .load()
+                .migrate();
+    }
+
+    public JdbcDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public void shutdown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import ru.yandex.practicum.filmorate.benchmark.BenchmarkBaseline.Comparison;
+import ru.yandex.practicum.filmorate.benchmark.BenchmarkBaseline.Score;
+import ru.yandex.practicum.filmorate.benchmark.BenchmarkBaseline.Status;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs a short JMH pass over the storage and service benchmarks together with {@link ReferenceBenchmark}
+ * and fails if any of them, relative to the reference, is slower than the committed baseline
+ * by more than its tolerance.
+ * Run with: mvn test -Pbenchmark
+ * -Dbenchmark.include=regexp selects benchmarks, -Dbenchmark.heap sets the heap of the forked JVM,
+ * -Dbenchmark.updateBaseline=true rewrites the baseline with the current results instead of comparing.
+ */
+@Tag("benchmark")
+class BenchmarkRegressionTest {
+
+    private static final String UNIT = "us/op";
+
+    @Test
+    void benchmarksShouldNotRegress() throws Exception {
+        File baselineFile = new File(System.getProperty("benchmark.baseline",
+                "src/test/resources/benchmark-baseline.json"));
+        BenchmarkBaseline baseline = BenchmarkBaseline.read(baselineFile);
+
+        Map<String, Score> results = run();
+
+        if (Boolean.getBoolean("benchmark.updateBaseline")) {
+            baseline.update(results, UNIT).write(baselineFile);
+            System.out.println("Benchmark baseline written to " + baselineFile.getAbsolutePath());
+            return;
+        }
+
+        List<Comparison> comparisons = baseline.compare(results);
+        String table = BenchmarkBaseline.format(comparisons);
+        System.out.println(table);
+
+        if (comparisons.stream().anyMatch(comparison -> comparison.getStatus() == Status.REGRESSION)) {
+            fail("Benchmarks regressed against " + baselineFile + ":" + System.lineSeparator() + table);
+        }
+    }
+
+    private Map<String, Score> run() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("benchmark.include",
+                        "ru\\.yandex\\.practicum\\.filmorate\\.benchmark\\.(Storage|Service)Benchmark"))
+                .include(ReferenceBenchmark.class.getName())
+                .forks(Integer.getInteger("benchmark.forks", 1))
+                .warmupIterations(Integer.getInteger("benchmark.warmupIterations", 3))
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(Integer.getInteger("benchmark.iterations", 5))
+                .measurementTime(TimeValue.seconds(1))
+                .shouldFailOnError(true)
+                .jvmArgsAppend("-Xmx" + System.getProperty("benchmark.heap", "1g"))
+                .build();
+
+        Collection<RunResult> runResults = new Runner(options).run();
+        Map<String, Score> results = new TreeMap<>();
+
+        for (RunResult result : runResults) {
+            String label = result.getParams().getBenchmark();
+            String name = label.substring(label.lastIndexOf('.', label.lastIndexOf('.') - 1) + 1);
+            results.put(name, new Score(result.getPrimaryResult().getScore(),
+                    result.getPrimaryResult().getScoreError()));
+        }
+
+        return results;
+    }
+}
@@ -0,0 +1,274 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.load.Dataset;
+import ru.yandex.practicum.filmorate.metrics.SlowQuery;
+import ru.yandex.practicum.filmorate.metrics.SlowQueryLog;
+import ru.yandex.practicum.filmorate.metrics.SqlCountingDataSource;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.storage.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.PopularityDbStorage;
+import ru.yandex.practicum.filmorate.storage.ReviewDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Captures H2 plans and timings of the storage queries affected by the index migrations,
+ * first on a database migrated to the last version without indexes and then after the remaining migrations.
+ * The report is written to target/query-plans.md.
+ * Every query must find its rows with an index condition, shown by H2 as an unquoted comment like
+ * PUBLIC.FILM_LIKES_USER_ID_IDX: USER_ID = ?1. Where H2 still prefers the index it creates for a foreign key,
+ * only the condition is checked.
+ * Run with: mvn test -Pbenchmark -Dtest=QueryPlanReportTest
+ */
+@Tag("benchmark")
+class QueryPlanReportTest {
+
+    private static final MigrationVersion BEFORE_INDEXES = MigrationVersion.fromVersion("2");
+    private static final MigrationVersion RELEASE_YEAR = MigrationVersion.fromVersion("4");
+    private static final MigrationVersion POPULARITY_ROLLUP = MigrationVersion.fromVersion("6");
+    private static final MigrationVersion DIRECTOR_FILM_ORDER = MigrationVersion.fromVersion("7");
+    private static final int REPETITIONS = 20;
+    private static final Path REPORT = Paths.get("target", "query-plans.md");
+
+    private BenchmarkDatabase database;
+    private SlowQueryLog slowQueryLog;
+    private Dataset dataset;
+    private Storages explainedStorages;
+    private Storages timedStorages;
+
+    @BeforeEach
+    void createDatabase() {
+        database = new BenchmarkDatabase(BenchmarkDatabase.DATASET, BEFORE_INDEXES);
+        dataset = database.getDataset();
+        ((Logger) LoggerFactory.getLogger(SlowQueryLog.class)).setLevel(Level.ERROR);
+
+        slowQueryLog = new SlowQueryLog(0, 1, 10_000, 0);
+        explainedStorages = new Storages(new JdbcTemplate(
+                new SqlCountingDataSource(database.getDataSource(), slowQueryLog)));
+        timedStorages = new Storages(database.getJdbcTemplate());
+    }
+
+    @AfterEach
+    void shutdown() {
+        slowQueryLog.shutdown();
+        database.shutdown();
+    }
+
+    @Test
+    void indexesShouldBeUsedByStorageQueries() throws Exception {
+        List<QueryCase> cases = initCases();
+
+        Map<String, Measurement> before = measure(cases, BEFORE_INDEXES);
+        database.migrate(MigrationVersion.LATEST);
+        Map<String, Measurement> after = measure(cases, MigrationVersion.LATEST);
+
+        StringBuilder report = new StringBuilder("# Storage query plans before and after the index migrations\n");
+        List<String> missingIndexes = new ArrayList<>();
+
+        for (QueryCase queryCase : cases) {
+            Measurement beforeCase = before.get(queryCase.name);
+            Measurement afterCase = after.get(queryCase.name);
+
+            if (beforeCase == null) {
+                report.append(String.format("%n## %s%n%nMedian time: %.3f ms, the query needs migration %s%n",
+                        queryCase.name, afterCase.medianMillis, queryCase.since));
+            } else {
+                report.append(String.format("%n## %s%n%nMedian time: %.3f ms before, %.3f ms after%n",
+                        queryCase.name, beforeCase.medianMillis, afterCase.medianMillis));
+                appendPlans(report, "Before", beforeCase);
+            }
+            appendPlans(report, "After", afterCase);
+
+            if (afterCase.plans.values().stream().noneMatch(plan -> plan.contains(queryCase.expectedAccess))) {
+                missingIndexes.add(queryCase.name + " does not look up " + queryCase.expectedAccess);
+            }
+        }
+
+        write(report.toString());
+        System.out.println(report);
+
+        assertTrue(missingIndexes.isEmpty(), String.join(System.lineSeparator(), missingIndexes));
+    }
+
+    private List<QueryCase> initCases() {
+        Long userId = dataset.getUserIds().get(0);
+        Long otherUserId = dataset.getUserIds().get(1);
+        Long removedUserId = dataset.getUserIds().get(dataset.getUserIds().size() - 1);
+        Long filmId = dataset.getFilmIds().get(0);
+        Long directorId = dataset.getDirectorIds().get(0);
+
+        return List.of(
+                new QueryCase("FilmDbStorage.getPopular from the rollup", ": GENRE_ID = ?1",
+                        POPULARITY_ROLLUP, storages -> storages.filmStorage.getPopular(10, 1, 2000, FilmField.ALL)),
+                new QueryCase("FilmDbStorage.getPopular by genre beyond the rollup", "GENRE_ID = ?1",
+                        storages -> storages.filmStorage.getPopular(storages.beyondRollup, 1, null, FilmField.ALL)),
+                new QueryCase("FilmDbStorage.getPopular by year beyond the rollup",
+                        "FILMS_RELEASE_YEAR_ID_IDX: RELEASE_YEAR = ?1", RELEASE_YEAR,
+                        storages -> storages.filmStorage.getPopular(storages.beyondRollup, null, 2000, FilmField.ALL)),
+                new QueryCase("FilmDbStorage.getFilmsByDirector by year", "FILM_DIRECTOR_YEAR_IDX: DIRECTOR_ID = ?1",
+                        DIRECTOR_FILM_ORDER,
+                        storages -> storages.filmStorage.getFilmsByDirector(directorId, "year", FilmField.ALL)),
+                new QueryCase("FilmDbStorage.getFilmsByDirector by likes", "FILM_DIRECTOR_LIKES_IDX: DIRECTOR_ID = ?1",
+                        DIRECTOR_FILM_ORDER,
+                        storages -> storages.filmStorage.getFilmsByDirector(directorId, "likes", FilmField.ALL)),
+                new QueryCase("FilmDbStorage.getLikedFilmIds", "FILM_LIKES_USER_ID_IDX: USER_ID = ?1",
+                        storages -> storages.filmStorage.getLikedFilmIds(userId)),
+                new QueryCase("FilmDbStorage.getUserWithMostIntersections", "FILM_LIKES_USER_ID_IDX: USER_ID = ?1",
+                        storages -> storages.filmStorage.getUserWithMostIntersections(userId)),
+                new QueryCase("FilmDbStorage.getRecommendedFilmIds", "FILM_LIKES_USER_ID_IDX: USER_ID = ?1",
+                        storages -> storages.filmStorage.getRecommendedFilmIds(userId, otherUserId)),
+                new QueryCase("UserDbStorage.getCommonFriends", "USER_ID = ?2",
+                        storages -> storages.userStorage.getCommonFriends(userId, otherUserId)),
+                new QueryCase("UserDbStorage.removeUserLike", "USER_ID = ?1", DIRECTOR_FILM_ORDER,
+                        storages -> storages.userStorage.removeUserLike(removedUserId)),
+                new QueryCase("UserDbStorage.removeReviewByUserId", "USER_ID = ?1",
+                        storages -> storages.userStorage.removeReviewByUserId(removedUserId)),
+                new QueryCase("ReviewDbStorage.getReviewsByFilmId", "FILM_ID = ?1",
+                        storages -> storages.reviewStorage.getReviewsByFilmId(filmId, 10)),
+                new QueryCase("EventDbStorage.getUserEvents", "USER_ID = ?1",
+                        storages -> storages.eventStorage.getUserEvents(userId)));
+    }
+
+    private Map<String, Measurement> measure(List<QueryCase> cases, MigrationVersion schemaVersion)
+            throws InterruptedException {
+        Map<String, Measurement> measurements = new LinkedHashMap<>();
+
+        for (QueryCase queryCase : cases) {
+            if (queryCase.since.isNewerThan(schemaVersion.getVersion())) {
+                continue;
+            }
+
+            slowQueryLog.clear();
+            queryCase.call.accept(explainedStorages);
+
+            Map<String, List<SlowQuery>> queries = slowQueryLog.getQueries().stream()
+                    .collect(Collectors.groupingBy(SlowQuery::getSql, LinkedHashMap::new, Collectors.toList()));
+
+            Map<String, String> plans = new LinkedHashMap<>();
+            for (Map.Entry<String, List<SlowQuery>> query : queries.entrySet()) {
+                plans.put(query.getKey(), awaitPlan(query.getValue()));
+            }
+
+            long[] nanos = new long[REPETITIONS];
+            for (int i = 0; i < REPETITIONS; i++) {
+                long start = System.nanoTime();
+                queryCase.call.accept(timedStorages);
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+
+            measurements.put(queryCase.name, new Measurement(plans, nanos[REPETITIONS / 2] / 1_000_000.0));
+        }
+
+        return measurements;
+    }
+
+    /**
+     * Waits for the plan of any execution of a statement, the log drops explains that do not fit its queue
+     */
+    private String awaitPlan(List<SlowQuery> executions) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (System.nanoTime() < deadline) {
+            for (SlowQuery execution : executions) {
+                if (execution.getPlan() != null) {
+                    return execution.getPlan();
+                }
+            }
+
+            Thread.sleep(10);
+        }
+
+        return "plan was not captured";
+    }
+
+    private void appendPlans(StringBuilder report, String title, Measurement measurement) {
+        report.append(String.format("%n%s:%n", title));
+        measurement.plans.values().forEach(plan -> report.append("```sql\n").append(plan).append("\n```\n"));
+    }
+
+    private void write(String report) throws IOException {
+        Files.createDirectories(REPORT.getParent());
+        Files.write(REPORT, report.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class QueryCase {
+
+        private final String name;
+        private final String expectedAccess;
+        private final MigrationVersion since;
+        private final Consumer<Storages> call;
+
+        QueryCase(String name, String expectedAccess, Consumer<Storages> call) {
+            this(name, expectedAccess, BEFORE_INDEXES, call);
+        }
+
+        QueryCase(String name, String expectedAccess, MigrationVersion since, Consumer<Storages> call) {
+            this.name = name;
+            this.expectedAccess = expectedAccess;
+            this.since = since;
+            this.call = call;
+        }
+    }
+
+    /**
+     * Storages over one data source: queries are explained through the slow query log
+     * and timed without it
+     */
+    private static final class Storages {
+
+        private final FilmDbStorage filmStorage;
+        private final UserDbStorage userStorage;
+        private final ReviewDbStorage reviewStorage;
+        private final EventDbStorage eventStorage;
+        private final int beyondRollup;
+
+        Storages(JdbcTemplate jdbcTemplate) {
+            PopularityDbStorage popularityStorage = new PopularityDbStorage(jdbcTemplate);
+
+            filmStorage = new FilmDbStorage(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                    popularityStorage);
+            userStorage = new UserDbStorage(jdbcTemplate, popularityStorage);
+            reviewStorage = new ReviewDbStorage(jdbcTemplate);
+            eventStorage = new EventDbStorage(jdbcTemplate);
+            beyondRollup = popularityStorage.getTopSize() + 1;
+        }
+    }
+
+    private static final class Measurement {
+
+        private final Map<String, String> plans;
+        private final double medianMillis;
+
+        Measurement(Map<String, String> plans, double medianMillis) {
+            this.plans = plans;
+            this.medianMillis = medianMillis;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed workload that does not depend on the application code: sorting and grouping synthetic strings.
+ * {@link BenchmarkRegressionTest} runs it together with the other benchmarks and compares their scores
+ * relative to it, so the gate measures the code rather than the speed of the machine.
+ * The workload must not change, otherwise the baseline has to be rewritten.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReferenceBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    private List<String> words;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        words = new ArrayList<>(SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            words.add(Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+        }
+    }
+
+    @Benchmark
+    public Map<Character, Integer> sortAndGroup() {
+        List<String> sorted = new ArrayList<>(words);
+        sorted.sort(null);
+
+        Map<Character, Integer> counts = new HashMap<>();
+
+        for (String word : sorted) {
+            counts.merge(word.charAt(0), 1, Integer::sum);
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache;
+import ru.yandex.practicum.filmorate.cache.RequestCoalescer;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.model.Suggestion;
+import ru.yandex.practicum.filmorate.service.AutocompleteIndex;
+import ru.yandex.practicum.filmorate.service.ContentRecommender;
+import ru.yandex.practicum.filmorate.service.FacetIndex;
+import ru.yandex.practicum.filmorate.service.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.UserServiceImpl;
+import ru.yandex.practicum.filmorate.storage.DirectorDBStorage;
+import ru.yandex.practicum.filmorate.storage.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.PopularityDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service calls including hydration of films with genres and directors.
+ * Recommendations of the user are evicted from the cache before every call, so the full computation is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceBenchmark {
+
+    private static final String[] BY_TITLE = {"title"};
+
+    private BenchmarkDatabase database;
+    private FilmService filmService;
+    private UserService userService;
+    private RecommendationCache recommendationCache;
+    private Long userId;
+    private Long directorId;
+
+    @Setup
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        JdbcTemplate jdbcTemplate = database.getJdbcTemplate();
+
+        PopularityDbStorage popularityStorage = new PopularityDbStorage(jdbcTemplate);
+        FilmDbStorage filmStorage = new FilmDbStorage(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                popularityStorage);
+        UserDbStorage userStorage = new UserDbStorage(jdbcTemplate, popularityStorage);
+        EventDbStorage eventStorage = new EventDbStorage(jdbcTemplate);
+
+        DirectorDBStorage directorStorage = new DirectorDBStorage(jdbcTemplate);
+        MpaDbStorage mpaStorage = new MpaDbStorage(jdbcTemplate);
+        GenreDbStorage genreStorage = new GenreDbStorage(jdbcTemplate);
+
+        filmService = new FilmServiceImpl(filmStorage, mpaStorage, userStorage, genreStorage, directorStorage,
+                eventStorage, event -> {
+                }, new FilmCache(), new RequestCoalescer(), new AutocompleteIndex(filmStorage, directorStorage),
+                new FilmSearchIndex(filmStorage, directorStorage),
+                new FacetIndex(filmStorage, directorStorage, genreStorage, mpaStorage));
+        recommendationCache = new RecommendationCache();
+        userService = new UserServiceImpl(userStorage, filmStorage, eventStorage, filmService,
+                new ContentRecommender(filmStorage), recommendationCache, event -> {
+                });
+
+        userId = database.getDataset().getUserIds().get(0);
+        directorId = database.getDataset().getDirectorIds().get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        recommendationCache.shutdown();
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return filmService.getPopular(10, null, null);
+    }
+
+    @Benchmark
+    public List<Film> search() {
+        return filmService.search("dolore", BY_TITLE, 20, 0);
+    }
+
+    @Benchmark
+    public List<Film> searchFuzzy() {
+        return filmService.searchFuzzy("dolroe", BY_TITLE, 20, 0);
+    }
+
+    @Benchmark
+    public List<Suggestion> autocomplete() {
+        return filmService.getSuggestions("do", 10);
+    }
+
+    @Benchmark
+    public List<Film> getFilmsByDirector() {
+        return filmService.getFilmsByDirector(directorId, "likes");
+    }
+
+    @Benchmark
+    public List<Film> recommendations() {
+        recommendationCache.onLikeChanged(new LikeChangedEvent(0L, userId, Operation.ADD));
+        return userService.getRecommendations(userId);
+    }
+
+    @Benchmark
+    public List<Event> feed() {
+        return userService.getUserEvents(userId);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.storage.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.EventStorage;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.PopularityDbStorage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StorageBenchmark {
+
+    private static final String[] BY_TITLE = {"title"};
+
+    private BenchmarkDatabase database;
+    private FilmStorage filmStorage;
+    private EventStorage eventStorage;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        filmStorage = new FilmDbStorage(database.getJdbcTemplate(),
+                new NamedParameterJdbcTemplate(database.getJdbcTemplate()),
+                new PopularityDbStorage(database.getJdbcTemplate()));
+        eventStorage = new EventDbStorage(database.getJdbcTemplate());
+        userId = database.getDataset().getUserIds().get(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return filmStorage.getPopular(10, null, null, FilmField.ALL);
+    }
+
+    @Benchmark
+    public List<Film> getPopularByGenreAndYear() {
+        return filmStorage.getPopular(10, 1, 2000, FilmField.ALL);
+    }
+
+    @Benchmark
+    public List<Film> search() {
+        return filmStorage.search("dolore", BY_TITLE, 20, 0, FilmField.ALL);
+    }
+
+    @Benchmark
+    public List<Long> recommendations() {
+        return filmStorage.getUserWithMostIntersections(userId)
+                .map(otherId -> filmStorage.getRecommendedFilmIds(userId, otherId))
+                .orElse(List.of());
+    }
+
+    @Benchmark
+    public List<Event> feed() {
+        return eventStorage.getUserEvents(userId);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.load.DatasetConfig;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.PopularityDbStorage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Year filters and sorts on a catalog of a million films.
+ * popularByYearWithExtract runs the year filter in its former form, EXTRACT(YEAR FROM release_date) = ?,
+ * which H2 evaluates for every film, for comparison with the indexed release_year column.
+ * Both ask for more films than the popularity rollup keeps, so they aggregate likes of the whole year;
+ * popularByGenreAndYearFromRollup reads the same bucket from the rollup.
+ * Not part of the regression gate because seeding takes minutes; run with:
+ * mvn test -Pbenchmark -Dtest=BenchmarkRegressionTest -Dbenchmark.include=YearFilterBenchmark -Dbenchmark.heap=3g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class YearFilterBenchmark {
+
+    private static final int YEAR = 2000;
+    private static final int DIRECTOR_RANK = 100;
+    private static final String POPULAR_BY_YEAR_WITH_EXTRACT = "SELECT f.id " +
+            "FROM films f " +
+            "LEFT JOIN film_likes fl ON fl.film_id = f.id " +
+            "WHERE EXTRACT(YEAR FROM f.release_date) = ? " +
+            "GROUP BY f.id " +
+            "ORDER BY COUNT(fl.user_id) DESC " +
+            "LIMIT ?";
+
+    @Param("1000000")
+    private int films;
+
+    private BenchmarkDatabase database;
+    private FilmStorage filmStorage;
+    private Long directorId;
+    private int beyondRollup;
+
+    @Setup
+    public void setUp() {
+        database = new BenchmarkDatabase(DatasetConfig.builder()
+                .films(films)
+                .users(10_000)
+                .directors(1_000)
+                .meanFriends(0)
+                .reviews(0)
+                .votes(0)
+                .build(), MigrationVersion.LATEST);
+        PopularityDbStorage popularityStorage = new PopularityDbStorage(database.getJdbcTemplate());
+
+        filmStorage = new FilmDbStorage(database.getJdbcTemplate(),
+                new NamedParameterJdbcTemplate(database.getJdbcTemplate()), popularityStorage);
+        beyondRollup = popularityStorage.getTopSize() + 1;
+        directorId = database.getDataset().getDirectorIds().get(DIRECTOR_RANK);
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Film> popularByYear() {
+        return filmStorage.getPopular(beyondRollup, null, YEAR, FilmField.ALL);
+    }
+
+    @Benchmark
+    public List<Long> popularByYearWithExtract() {
+        return database.getJdbcTemplate().queryForList(POPULAR_BY_YEAR_WITH_EXTRACT, Long.class, YEAR, beyondRollup);
+    }
+
+    @Benchmark
+    public List<Film> popularByGenreAndYear() {
+        return filmStorage.getPopular(beyondRollup, 1, YEAR, FilmField.ALL);
+    }
+
+    @Benchmark
+    public List<Film> popularByGenreAndYearFromRollup() {
+        return filmStorage.getPopular(10, 1, YEAR, FilmField.ALL);
+    }
+
+    @Benchmark
+    public List<Film> filmsByDirectorSortedByYear() {
+        return filmStorage.getFilmsByDirector(directorId, "year", FilmField.ALL);
+    }
+}
@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.service.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.service.FilmChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class FilmCacheTest {
+
+    private final FilmCache cache = new FilmCache(100);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void getFilm_shouldLoadTheFilmOnce() {
+        Film film = initFilm(1L);
+
+        cache.getFilm(1L, loader(film));
+
+        assertEquals(film, cache.getFilm(1L, loader(film)));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getSize());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    @Test
+    void getFilm_shouldReturnACopyOfTheCachedFilm() {
+        Film film = initFilm(1L);
+        cache.getFilm(1L, loader(film));
+
+        Film cached = cache.getFilm(1L, loader(film));
+        cached.setName("changed");
+        cached.getMpa().setName("changed");
+
+        Film other = cache.getFilm(1L, loader(film));
+
+        assertNotSame(cached, other);
+        assertEquals("nisi eiusmod", other.getName());
+        assertEquals("G", other.getMpa().getName());
+    }
+
+    @Test
+    void getFilms_shouldLoadOnlyMissingFilms_andKeepTheOrderOfIds() {
+        Film film1 = initFilm(1L);
+        Film film2 = initFilm(2L);
+        Film film3 = initFilm(3L);
+        cache.getFilm(2L, loader(film2));
+
+        List<Long> requested = List.of(3L, 2L, 1L);
+        List<Film> films = cache.getFilms(requested, ids -> {
+            assertEquals(List.of(3L, 1L), ids);
+            return List.of(film1, film3);
+        });
+
+        assertEquals(requested, films.stream().map(Film::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void onFilmChanged_shouldInvalidateTheFilm() {
+        Film film = initFilm(1L);
+        cache.getFilm(1L, loader(film));
+
+        cache.onFilmChanged(new FilmChangedEvent(1L, Operation.UPDATE));
+        cache.getFilm(1L, loader(film));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onDirectorChanged_shouldInvalidateFilmsOfTheDirector() {
+        Film film1 = initFilm(1L);
+        Film film2 = initFilm(2L);
+        film1.addDirectors(List.of(initDirector(5L)));
+        cache.getFilm(1L, loader(film1));
+        cache.getFilm(2L, loader(film2));
+
+        cache.onDirectorChanged(new DirectorChangedEvent(5L, Operation.UPDATE));
+
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void onDirectorChanged_shouldInvalidateTheFilm_afterItWasReloadedWithAnotherDirector() {
+        Film film = initFilm(1L);
+        film.addDirectors(List.of(initDirector(5L)));
+        cache.getFilm(1L, loader(film));
+        cache.invalidate(1L);
+
+        Film reloaded = initFilm(1L);
+        reloaded.addDirectors(List.of(initDirector(6L)));
+        cache.getFilm(1L, loader(reloaded));
+
+        cache.onDirectorChanged(new DirectorChangedEvent(5L, Operation.UPDATE));
+        assertEquals(1, cache.getSize());
+
+        cache.onDirectorChanged(new DirectorChangedEvent(6L, Operation.UPDATE));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void getFilm_shouldNotCacheTheFilm_ifItsDirectorChangedWhileLoading() {
+        Film film = initFilm(1L);
+        film.addDirectors(List.of(initDirector(5L)));
+
+        cache.getFilm(1L, id -> {
+            cache.onDirectorChanged(new DirectorChangedEvent(5L, Operation.UPDATE));
+            return film;
+        });
+
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void getFilm_shouldNotCacheTheFilm_ifItWasInvalidatedWhileLoading() {
+        Film film = initFilm(1L);
+
+        cache.getFilm(1L, id -> {
+            cache.invalidate(id);
+            return film;
+        });
+
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void concurrentLoadsEvictionsAndDirectorChanges_shouldNotDeadlock_norLoseDirectorLinks() {
+        FilmCache small = new FilmCache(16);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                List<Future<?>> futures = new ArrayList<>();
+
+                for (int t = 0; t < threads; t++) {
+                    long seed = t;
+                    futures.add(executor.submit(() -> {
+                        Random random = new Random(seed);
+
+                        for (int i = 0; i < 20_000; i++) {
+                            long id = random.nextInt(64) + 1;
+
+                            switch (random.nextInt(4)) {
+                                case 0:
+                                    small.invalidate(id);
+                                    break;
+                                case 1:
+                                    small.onDirectorChanged(new DirectorChangedEvent(id % 4, Operation.UPDATE));
+                                    break;
+                                default:
+                                    small.getFilm(id, filmId -> {
+                                        Film film = initFilm(filmId);
+                                        film.addDirectors(List.of(initDirector(filmId % 4)));
+                                        return film;
+                                    });
+                            }
+                        }
+                    }));
+                }
+
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (long directorId = 0; directorId < 4; directorId++) {
+            small.onDirectorChanged(new DirectorChangedEvent(directorId, Operation.UPDATE));
+        }
+
+        assertEquals(0, small.getSize());
+    }
+
+    private Function<Long, Film> loader(Film film) {
+        return id -> {
+            loads.incrementAndGet();
+            return film;
+        };
+    }
+
+    private Film initFilm(Long id) {
+        Film film = new Film();
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+        mpa.setName("G");
+
+        film.setId(id);
+        film.setName("nisi eiusmod");
+        film.setDescription("adipisicing");
+        film.setReleaseDate(LocalDate.of(1967, 3, 25));
+        film.setDuration(100);
+        film.setMpa(mpa);
+
+        return film;
+    }
+
+    private Director initDirector(Long id) {
+        Director director = new Director();
+
+        director.setId(id);
+        director.setName("Director");
+
+        return director;
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache.Resource;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.service.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.service.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.UserRemovedEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JsonResponseCacheTest {
+
+    private final JsonResponseCache cache = new JsonResponseCache(new ObjectMapper());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void respond_shouldSerializeTheBodyOnce() {
+        ResponseEntity<byte[]> first = cache.respond(Resource.GENRES, "all", null, body(List.of(1, 2)));
+        ResponseEntity<byte[]> second = cache.respond(Resource.GENRES, "all", null, body(List.of(1, 2)));
+
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertArrayEquals("[1,2]".getBytes(StandardCharsets.UTF_8), second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void respond_shouldReturnNotModified_ifETagMatches() {
+        String eTag = cache.respond(Resource.MPA, "all", null, body(List.of(1))).getHeaders().getETag();
+
+        ResponseEntity<byte[]> response = cache.respond(Resource.MPA, "all", "\"other\", " + eTag, body(List.of(1)));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(eTag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void respond_shouldCacheResponsesByKey() {
+        cache.respond(Resource.FILMS, "popular?count=1", null, body(List.of(1)));
+        cache.respond(Resource.FILMS, "popular?count=2", null, body(List.of(1, 2)));
+
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    void onLikeChanged_shouldInvalidateFilmResponses_only() {
+        String eTag = cache.respond(Resource.FILMS, "popular", null, body(List.of(1))).getHeaders().getETag();
+        cache.respond(Resource.GENRES, "all", null, body(List.of(1)));
+
+        cache.onLikeChanged(new LikeChangedEvent(2L, 1L, Operation.ADD));
+
+        ResponseEntity<byte[]> response = cache.respond(Resource.FILMS, "popular", eTag, body(List.of(2, 1)));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(eTag, response.getHeaders().getETag());
+        assertEquals(2, cache.getSize());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void onUserRemoved_shouldInvalidateFilmResponses() {
+        String eTag = cache.respond(Resource.FILMS, "popular", null, body(List.of(1))).getHeaders().getETag();
+
+        cache.onUserRemoved(new UserRemovedEvent(3L, List.of(1L)));
+
+        ResponseEntity<byte[]> response = cache.respond(Resource.FILMS, "popular", eTag, body(List.of(2, 1)));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onDirectorChanged_shouldInvalidateDirectorAndFilmResponses() {
+        cache.respond(Resource.DIRECTORS, "all", null, body(List.of(1)));
+        cache.respond(Resource.FILMS, "popular", null, body(List.of(1)));
+        cache.respond(Resource.MPA, "all", null, body(List.of(1)));
+
+        cache.onDirectorChanged(new DirectorChangedEvent(1L, Operation.UPDATE));
+
+        assertEquals(1, cache.getSize());
+    }
+
+    private Supplier<Object> body(Object value) {
+        return () -> {
+            loads.incrementAndGet();
+            return value;
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache.Recommendations;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.service.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.UserRemovedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecommendationCacheTest {
+
+    private final List<Runnable> refreshTasks = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private RecommendationCache cache;
+
+    @BeforeEach
+    void setCache() {
+        cache = new RecommendationCache(100, refreshTasks::add);
+    }
+
+    @Test
+    void get_shouldLoadRecommendationsOnce() {
+        Function<Long, Recommendations> loader = loader(List.of(1L), 2L);
+
+        assertEquals(List.of(1L), cache.get(1L, loader));
+        assertEquals(List.of(1L), cache.get(1L, loader));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test
+    void onLikeChanged_shouldEvictRecommendationsOfTheUser() {
+        cache.get(1L, loader(List.of(1L), 2L));
+
+        cache.onLikeChanged(new LikeChangedEvent(5L, 1L, Operation.ADD));
+
+        assertEquals(List.of(5L), cache.get(1L, loader(List.of(5L), 2L)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onLikeChanged_shouldServeStaleRecommendations_whileTheyAreRefreshed_ifNeighbourLikeChanged() {
+        cache.get(1L, loader(List.of(1L), 2L));
+
+        cache.onLikeChanged(new LikeChangedEvent(5L, 2L, Operation.ADD));
+
+        assertEquals(List.of(1L), cache.get(1L, loader(List.of(1L, 5L), 2L)));
+        assertEquals(List.of(1L), cache.get(1L, loader(List.of(1L, 5L), 2L)));
+        assertEquals(1, refreshTasks.size());
+        assertEquals(2, cache.getStaleHitCount());
+
+        refreshTasks.get(0).run();
+
+        assertEquals(List.of(1L, 5L), cache.get(1L, loader(List.of(1L, 5L), 2L)));
+        assertEquals(1, cache.getRefreshCount());
+    }
+
+    @Test
+    void onLikeChanged_shouldNotTouchRecommendationsOfOtherUsers() {
+        cache.get(1L, loader(List.of(1L), 2L));
+
+        cache.onLikeChanged(new LikeChangedEvent(5L, 3L, Operation.REMOVE));
+
+        assertEquals(List.of(1L), cache.get(1L, loader(List.of(7L), 2L)));
+        assertEquals(0, cache.getStaleHitCount());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void onUserRemoved_shouldMarkRecommendationsBuiltFromTheUserStale() {
+        cache.get(1L, loader(List.of(1L), 2L));
+
+        cache.onUserRemoved(new UserRemovedEvent(2L, List.of(1L, 5L)));
+
+        assertEquals(List.of(1L), cache.get(1L, loader(List.of(7L), 3L)));
+        assertEquals(1, refreshTasks.size());
+
+        refreshTasks.get(0).run();
+
+        assertEquals(List.of(7L), cache.get(1L, loader(List.of(7L), 3L)));
+    }
+
+    @Test
+    void refresh_shouldUnlinkReplacedRecommendations_fromTheirOldNeighbour() {
+        cache.get(1L, loader(List.of(1L), 2L));
+        cache.onLikeChanged(new LikeChangedEvent(5L, 2L, Operation.ADD));
+        cache.get(1L, loader(List.of(7L), 3L));
+
+        refreshTasks.get(0).run();
+
+        assertEquals(0, cache.getDependentUserCount(2L));
+        assertEquals(1, cache.getDependentUserCount(3L));
+
+        cache.onLikeChanged(new LikeChangedEvent(6L, 2L, Operation.ADD));
+
+        assertEquals(List.of(7L), cache.get(1L, loader(List.of(8L), 3L)));
+        assertEquals(1, refreshTasks.size());
+    }
+
+    @Test
+    void invalidate_shouldUnlinkRecommendationsFromTheirNeighbour() {
+        cache.get(1L, loader(List.of(1L), 2L));
+
+        cache.onLikeChanged(new LikeChangedEvent(5L, 1L, Operation.ADD));
+
+        assertEquals(0, cache.getDependentUserCount(2L));
+    }
+
+    @Test
+    void get_shouldReturnStaleRecommendations_ifNeighbourLikeChangedWhileTheyWereComputed() {
+        Function<Long, Recommendations> loader = userId -> {
+            if (loads.incrementAndGet() > 1) {
+                return new Recommendations(List.of(1L, 5L), 2L);
+            }
+
+            Recommendations recommendations = new Recommendations(List.of(1L), 2L);
+            cache.onLikeChanged(new LikeChangedEvent(5L, 2L, Operation.ADD));
+            return recommendations;
+        };
+
+        assertEquals(List.of(1L), cache.get(1L, loader));
+        assertEquals(1, refreshTasks.size());
+
+        refreshTasks.get(0).run();
+
+        assertEquals(List.of(1L, 5L), cache.get(1L, loader));
+    }
+
+    private Function<Long, Recommendations> loader(List<Long> filmIds, Long neighbourId) {
+        return userId -> {
+            loads.incrementAndGet();
+            return new Recommendations(filmIds, neighbourId);
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.service.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.validator.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestCoalescerTest {
+
+    private static final int THREADS = 8;
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    void execute_shouldRunConcurrentIdenticalCallsOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> result = List.of(1L, 2L);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> coalescer.execute("popular", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return result;
+            }, ArrayList::new)));
+            started.await(5, TimeUnit.SECONDS);
+
+            for (int i = 1; i < THREADS; i++) {
+                futures.add(executor.submit(() -> coalescer.execute("popular", () -> {
+                    computations.incrementAndGet();
+                    return List.of(3L);
+                }, ArrayList::new)));
+            }
+
+            while (coalescer.getCollapsedCallCount() < THREADS - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            Set<List<Long>> copies = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            for (Future<List<Long>> future : futures) {
+                List<Long> copy = future.get(5, TimeUnit.SECONDS);
+
+                assertEquals(result, copy);
+                assertNotSame(result, copy);
+                copies.add(copy);
+            }
+
+            assertEquals(THREADS, copies.size());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, computations.get());
+        assertEquals(THREADS, coalescer.getCallCount());
+        assertEquals(THREADS - 1, coalescer.getCollapsedCallCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void execute_shouldRunTheCallAgain_afterTheFirstCallCompleted() {
+        coalescer.execute("popular", computations::incrementAndGet, UnaryOperator.identity());
+        coalescer.execute("popular", computations::incrementAndGet, UnaryOperator.identity());
+
+        assertEquals(2, computations.get());
+        assertEquals(0, coalescer.getCollapsedCallCount());
+    }
+
+    @Test
+    void execute_shouldNotCollapseCallsWithDifferentKeys() {
+        assertEquals("a", coalescer.execute("popular:1", () -> "a", UnaryOperator.identity()));
+        assertEquals("b", coalescer.execute("popular:2", () -> "b", UnaryOperator.identity()));
+    }
+
+    @Test
+    void execute_shouldNotJoinACallStartedBeforeAChange() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> before = executor.submit(() -> coalescer.execute("popular", () -> {
+                started.countDown();
+                await(release);
+                return "before";
+            }, UnaryOperator.identity()));
+            started.await(5, TimeUnit.SECONDS);
+
+            coalescer.onLikeChanged(new LikeChangedEvent(1L, 2L, Operation.ADD));
+
+            assertEquals("after", coalescer.execute("popular", () -> "after", UnaryOperator.identity()));
+            release.countDown();
+            assertEquals("before", before.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, coalescer.getCollapsedCallCount());
+    }
+
+    @Test
+    void execute_shouldRethrowTheException_andForgetTheFailedCall() {
+        assertThrows(NotFoundException.class, () -> coalescer.execute("director:1", () -> {
+            throw new NotFoundException("Director with id 1 does not exist");
+        }, UnaryOperator.identity()));
+
+        assertEquals(0, coalescer.getInFlightCount());
+        assertEquals(1, (int) coalescer.execute("director:1", computations::incrementAndGet,
+                UnaryOperator.identity()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -11,10 +11,15 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.service.DirectorChangedEvent;
 import ru.yandex.practicum.filmorate.service.DirectorService;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
 
@@ -31,6 +36,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +50,9 @@ class DirectorControllerTest {
     @Mock
     private DirectorService service;
 
+    @Spy
+    private JsonResponseCache responseCache = new JsonResponseCache(objectMapper);
+
     @InjectMocks
     private DirectorController controller;
 
@@ -80,6 +89,27 @@ class DirectorControllerTest {
         verify(service, times(1)).getDirectors();
     }
 
+    @Test
+    void getDirectors_shouldReturnNewETag_afterDirectorChanged() throws Exception {
+        when(service.getDirectors()).thenReturn(List.of(initDirector(1L)));
+
+        String eTag = mockMvc.perform(get("/directors"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        when(service.getDirectors()).thenReturn(List.of(initDirector(1L), initDirector(2L)));
+        responseCache.onDirectorChanged(new DirectorChangedEvent(2L, Operation.ADD));
+
+        mockMvc.perform(get("/directors").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(content().json(objectMapper.writeValueAsString(
+                        List.of(initDirector(1L), initDirector(2L)))));
+
+        verify(service, times(2)).getDirectors();
+    }
+
     @Test
     void getDirectorById_shouldReturnDirectorById() throws Exception {
         Long directorId = 1L;
@@ -7,33 +7,50 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache;
+import ru.yandex.practicum.filmorate.model.FacetCount;
+import ru.yandex.practicum.filmorate.model.FacetedFilms;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Suggestion;
+import ru.yandex.practicum.filmorate.model.SuggestionType;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
 
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +64,9 @@ class FilmControllerTest {
     @Mock
     private FilmService service;
 
+    @Spy
+    private JsonResponseCache responseCache = new JsonResponseCache(objectMapper);
+
     @InjectMocks
     private FilmController controller;
 
@@ -260,6 +280,269 @@ class FilmControllerTest {
         verify(service, times(1)).getPopular(count, genreId, year);
     }
 
+    @Test
+    void getPopular_shouldReturnNotModified_ifETagMatches() throws Exception {
+        when(service.getPopular(10, null, null)).thenReturn(List.of(initFilm()));
+
+        String eTag = mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/films/popular").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        verify(service, times(1)).getPopular(10, null, null);
+    }
+
+    @Test
+    void getPopular_shouldReturnFacetCounts_ifFacetsAreRequested() throws Exception {
+        Film film1 = initFilm();
+        Film film2 = initFilm(film -> film.setReleaseDate(LocalDate.of(1995, 1, 1)));
+        Film film3 = initFilm(film -> film.setReleaseDate(LocalDate.of(1999, 1, 1)));
+        List<Film> films = List.of(film1, film2, film3);
+        Map<String, List<FacetCount>> counts = Map.of(
+                "decade", List.of(new FacetCount(1990, "1990s", 7), new FacetCount(1960, "1960s", 4)));
+        FacetedFilms expected = new FacetedFilms(films, counts);
+
+        when(service.getPopular(3, null, null)).thenReturn(films);
+        when(service.getPopularFacets(null, null, Set.of("decade"))).thenReturn(counts);
+
+        mockMvc.perform(get("/films/popular")
+                        .param("count", "3")
+                        .param("facets", "DECADE"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(expected), true));
+
+        verify(service, times(1)).getPopular(3, null, null);
+        verify(service, times(1)).getPopularFacets(null, null, Set.of("decade"));
+    }
+
+    @Test
+    void getPopular_shouldWriteOnlySelectedFields() throws Exception {
+        Set<FilmField> fields = EnumSet.of(FilmField.ID, FilmField.NAME, FilmField.RELEASE_DATE);
+        Film film = initFilm();
+        film.setId(1L);
+
+        when(service.getPopular(10, null, null, fields)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/popular").param("fields", "name,releaseDate"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(Map.of(
+                        "id", 1,
+                        "name", "nisi eiusmod",
+                        "releaseDate", film.getReleaseDate()))), true));
+
+        verify(service, times(1)).getPopular(10, null, null, fields);
+    }
+
+    @Test
+    void getPopular_shouldLoadOnlySelectedFields_ifFacetsAreRequested() throws Exception {
+        Set<FilmField> fields = EnumSet.of(FilmField.ID);
+        Film film = initFilm();
+        film.setId(1L);
+
+        when(service.getPopular(10, null, null, fields)).thenReturn(List.of(film));
+        when(service.getPopularFacets(null, null, Set.of("genre"))).thenReturn(Map.of("genre", List.of()));
+
+        mockMvc.perform(get("/films/popular")
+                        .param("fields", "id")
+                        .param("facets", "genre"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"films\":[{\"id\":1}],\"facets\":{\"genre\":[]}}", true));
+
+        verify(service, times(1)).getPopular(10, null, null, fields);
+    }
+
+    @Test
+    void getFilmsByDirector_shouldWriteOnlySelectedFields() throws Exception {
+        Set<FilmField> fields = EnumSet.of(FilmField.ID, FilmField.DIRECTORS);
+        Film film = initFilm();
+        film.setId(1L);
+
+        when(service.getFilmsByDirector(1L, "likes", fields)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/director/{directorId}", 1L)
+                        .param("sortBy", "likes")
+                        .param("fields", "DIRECTORS"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"directors\":[]}]", true));
+
+        verify(service, times(1)).getFilmsByDirector(1L, "likes", fields);
+    }
+
+    @Test
+    void getPopular_shouldResponseWithBadRequest_ifLikesAreSelected() throws Exception {
+        mockMvc.perform(get("/films/popular").param("fields", "name,likes"))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).getPopular(anyInt(), any(), any(), any());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/films", "/films/popular", "/films/director/1", "/films/search?query=nisi"})
+    void filmLists_shouldResponseWithBadRequest_ifFieldIsUnknown(String path) throws Exception {
+        mockMvc.perform(get(path).param("fields", "name,likeCount"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void getPopular_shouldResponseWithBadRequest_ifFacetIsUnknown() throws Exception {
+        mockMvc.perform(get("/films/popular").param("facets", "genre,director"))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).getPopular(anyInt(), any(), any());
+    }
+
+    @Test
+    void searchFilm_shouldReturnFacetCounts_ifFacetsAreRequested() throws Exception {
+        Film film = initFilm();
+        film.setId(1L);
+        Map<String, List<FacetCount>> counts = Map.of(
+                "mpa", List.of(),
+                "decade", List.of(new FacetCount(1960, "1960s", 3)));
+        FacetedFilms expected = new FacetedFilms(List.of(film), counts);
+
+        when(service.search("nisi", new String[]{"title"}, 1, 0)).thenReturn(List.of(film));
+        when(service.getSearchFacets("nisi", new String[]{"title"}, Set.of("mpa", "decade"))).thenReturn(counts);
+
+        mockMvc.perform(get("/films/search")
+                        .param("query", "nisi")
+                        .param("limit", "1")
+                        .param("facets", "mpa,decade"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(expected), true));
+
+        verify(service, times(1)).search("nisi", new String[]{"title"}, 1, 0);
+        verify(service, times(1)).getSearchFacets("nisi", new String[]{"title"}, Set.of("mpa", "decade"));
+    }
+
+    @Test
+    void searchFilm_shouldCountFuzzyMatches_ifFacetsAreRequestedInFuzzyMode() throws Exception {
+        Film film = initFilm();
+        film.setId(1L);
+        Map<String, List<FacetCount>> counts = Map.of("mpa", List.of(new FacetCount(1, "G", 2)));
+
+        when(service.searchFuzzy("nisy", new String[]{"title"}, 20, 0)).thenReturn(List.of(film));
+        when(service.getFuzzySearchFacets("nisy", new String[]{"title"}, Set.of("mpa"))).thenReturn(counts);
+
+        mockMvc.perform(get("/films/search")
+                        .param("query", "nisy")
+                        .param("mode", "fuzzy")
+                        .param("facets", "mpa"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(
+                        new FacetedFilms(List.of(film), counts)), true));
+
+        verify(service, never()).getSearchFacets(anyString(), any(), any());
+    }
+
+    @Test
+    void searchFilm_shouldResponseWithBadRequest_ifFacetIsUnknown() throws Exception {
+        mockMvc.perform(get("/films/search")
+                        .param("query", "nisi")
+                        .param("facets", "year"))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).search(anyString(), any(String[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchFilm_shouldSearchFuzzy_ifModeIsFuzzy() throws Exception {
+        Film film = initFilm();
+        film.setId(1L);
+
+        when(service.searchFuzzy("nsi", new String[]{"title", "director"}, 20, 0)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/search")
+                        .param("query", "nsi")
+                        .param("mode", "fuzzy")
+                        .param("by", "title,director"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(film))));
+
+        verify(service, times(1)).searchFuzzy("nsi", new String[]{"title", "director"}, 20, 0);
+        verify(service, never()).search(anyString(), any(String[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchFilm_shouldSearchFuzzyWithSelectedFields() throws Exception {
+        Set<FilmField> fields = EnumSet.of(FilmField.ID, FilmField.NAME);
+        Film film = initFilm();
+        film.setId(1L);
+
+        when(service.searchFuzzy("nsi", new String[]{"title"}, 20, 0, fields)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/search")
+                        .param("query", "nsi")
+                        .param("mode", "fuzzy")
+                        .param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"name\":\"nisi eiusmod\"}]", true));
+
+        verify(service, never()).searchFuzzy(anyString(), any(String[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchFilm_shouldReturnThePageOfFilms() throws Exception {
+        Film film = initFilm();
+        film.setId(1L);
+
+        when(service.search("nisi", new String[]{"title"}, 10, 30)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/search")
+                        .param("query", "nisi")
+                        .param("limit", "10")
+                        .param("offset", "30"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(film))));
+
+        verify(service, times(1)).search("nisi", new String[]{"title"}, 10, 30);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"regex, 20, 0", "exact, 0, 0", "fuzzy, 101, 0", "exact, 20, -1"})
+    void searchFilm_shouldResponseWithBadRequest_ifParametersAreInvalid(String mode, String limit, String offset)
+            throws Exception {
+        mockMvc.perform(get("/films/search")
+                        .param("query", "nisi")
+                        .param("mode", mode)
+                        .param("limit", limit)
+                        .param("offset", offset))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).search(anyString(), any(String[].class), anyInt(), anyInt());
+        verify(service, never()).searchFuzzy(anyString(), any(String[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void getSuggestions_shouldReturnSuggestions() throws Exception {
+        Suggestion suggestion = new Suggestion(SuggestionType.FILM, 1L, "nisi eiusmod", 3);
+
+        when(service.getSuggestions("nisi", 10)).thenReturn(List.of(suggestion));
+
+        mockMvc.perform(get("/films/autocomplete").param("prefix", "nisi"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(suggestion))));
+
+        verify(service, times(1)).getSuggestions("nisi", 10);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"' ', 10", "nisi, 0", "nisi, 21"})
+    void getSuggestions_shouldResponseWithBadRequest_ifParametersAreInvalid(String prefix, String limit)
+            throws Exception {
+        mockMvc.perform(get("/films/autocomplete").param("prefix", prefix).param("limit", limit))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).getSuggestions(anyString(), anyInt());
+    }
+
     private static Stream<Arguments> provideInvalidFilms() {
         return Stream.of(
                 Arguments.of(initFilm(film -> film.setName(null))),
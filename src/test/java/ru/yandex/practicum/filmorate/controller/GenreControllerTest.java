@@ -8,9 +8,12 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
@@ -22,6 +25,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +38,9 @@ class GenreControllerTest {
     @Mock
     private GenreService service;
 
+    @Spy
+    private JsonResponseCache responseCache = new JsonResponseCache(objectMapper);
+
     @InjectMocks
     private GenreController controller;
 
@@ -70,6 +77,24 @@ class GenreControllerTest {
         verify(service, times(1)).getGenres();
     }
 
+    @Test
+    void getGenres_shouldReturnNotModified_ifETagMatches() throws Exception {
+        when(service.getGenres()).thenReturn(List.of(initGenre()));
+
+        String eTag = mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(service, times(1)).getGenres();
+    }
+
     @Test
     void getGenreById_shouldReturnGenreById() throws Exception {
         Integer genreId = 1;
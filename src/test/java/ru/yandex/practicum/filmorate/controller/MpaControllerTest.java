@@ -8,9 +8,11 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.cache.JsonResponseCache;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
@@ -34,6 +36,9 @@ class MpaControllerTest {
     @Mock
     private MpaService service;
 
+    @Spy
+    private JsonResponseCache responseCache = new JsonResponseCache(objectMapper);
+
     @InjectMocks
     private MpaController controller;
 
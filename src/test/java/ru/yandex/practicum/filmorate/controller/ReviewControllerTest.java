@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
@@ -21,6 +22,8 @@ import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -114,6 +117,47 @@ class ReviewControllerTest {
         verify(service, times(1)).getReviews(filmId, count);
     }
 
+    @Test
+    void searchReviews_shouldReturnTheFoundReviews() throws Exception {
+        Review review = initReview();
+        List<Review> expected = List.of(review);
+        String json = objectMapper.writeValueAsString(expected);
+
+        when(service.searchReviews("bad film", 1L, 5, 10)).thenReturn(expected);
+
+        mockMvc.perform(get("/reviews/search")
+                        .param("query", "bad film")
+                        .param("filmId", "1")
+                        .param("limit", "5")
+                        .param("offset", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(json));
+
+        verify(service, times(1)).searchReviews("bad film", 1L, 5, 10);
+    }
+
+    @Test
+    void searchReviews_shouldUseTheDefaultPage() throws Exception {
+        mockMvc.perform(get("/reviews/search").param("query", "bad"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+
+        verify(service, times(1)).searchReviews("bad", null, 20, 0);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"' ', 20, 0", "bad, 0, 0", "bad, 101, 0", "bad, 20, -1"})
+    void searchReviews_shouldResponseWithBadRequest_ifParametersAreInvalid(String query, String limit, String offset)
+            throws Exception {
+        mockMvc.perform(get("/reviews/search")
+                        .param("query", query)
+                        .param("limit", limit)
+                        .param("offset", offset))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).searchReviews(any(), any(), anyInt(), anyInt());
+    }
+
     @Test
     void getReviewById_shouldReturnReviewById() throws Exception {
         Long reviewId = 1L;
@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.metrics.MaxSqlStatements;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounterExtension;
+import ru.yandex.practicum.filmorate.service.FacetIndex;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:sql-statement-budget;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ExtendWith(SqlStatementCounterExtension.class)
+class SqlStatementBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FacetIndex facetIndex;
+
+    private long userId;
+    private long filmId;
+    private long reviewId;
+
+    @BeforeEach
+    void createData() throws Exception {
+        userId = create("/users", Map.of(
+                "email", "mail@mail.ru",
+                "login", "dolore",
+                "name", "Nick Name",
+                "birthday", "1946-08-20"), "id");
+        filmId = create("/films", Map.of(
+                "name", "nisi eiusmod",
+                "description", "adipisicing",
+                "releaseDate", "1967-03-25",
+                "duration", 100,
+                "mpa", Map.of("id", 1),
+                "genres", new Object[]{Map.of("id", 1), Map.of("id", 2)}), "id");
+        reviewId = create("/reviews", Map.of(
+                "content", "This film is sooo good",
+                "isPositive", true,
+                "userId", userId,
+                "filmId", filmId), "reviewId");
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(3)
+    void getFilmById() throws Exception {
+        mockMvc.perform(get("/films/{id}", filmId))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(3)
+    void getPopular() throws Exception {
+        mockMvc.perform(get("/films/popular?count=5"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(3)
+    void getPopularWithFacets() throws Exception {
+        facetIndex.rebuild();
+
+        mockMvc.perform(get("/films/popular?count=5&facets=genre,mpa,decade"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(1)
+    void getPopularWithFields() throws Exception {
+        mockMvc.perform(get("/films/popular?count=5&fields=name,mpa"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(2)
+    void getReviewById() throws Exception {
+        mockMvc.perform(get("/reviews/{id}", reviewId))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(2)
+    void searchReviews() throws Exception {
+        mockMvc.perform(get("/reviews/search?query=good"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(4)
+    void removeReviewById() throws Exception {
+        mockMvc.perform(delete("/reviews/{id}", reviewId))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(9)
+    void getRecommendations() throws Exception {
+        mockMvc.perform(get("/users/{id}/recommendations", userId))
+                .andExpect(status().isOk());
+    }
+
+    private long create(String path, Map<String, Object> body, String idField) throws Exception {
+        String response = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        return objectMapper.readTree(response).get(idField).asLong();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Ids of the generated rows and words used in film names.
+ * Ids are ordered by popularity: the first film is the most liked one.
+ */
+@Getter
+@RequiredArgsConstructor
+public class Dataset {
+
+    private final List<Long> userIds;
+    private final List<Long> filmIds;
+    private final List<Long> directorIds;
+    private final List<Long> reviewIds;
+    private final List<String> words;
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Size and shape of the synthetic dataset.
+ */
+@Getter
+@Builder
+@ToString
+public class DatasetConfig {
+
+    @Builder.Default
+    private final long seed = 42;
+
+    @Builder.Default
+    private final int users = 2_000;
+
+    @Builder.Default
+    private final int films = 1_000;
+
+    @Builder.Default
+    private final int directors = 100;
+
+    @Builder.Default
+    private final int meanFriends = 10;
+
+    @Builder.Default
+    private final int meanLikes = 20;
+
+    @Builder.Default
+    private final int reviews = 2_000;
+
+    @Builder.Default
+    private final int votes = 5_000;
+
+    /**
+     * Skew of friendships, likes and reviews; 0 is uniform
+     */
+    @Builder.Default
+    private final double zipfExponent = 1.1;
+
+    public static DatasetConfig fromSystemProperties() {
+        return DatasetConfig.builder()
+                .seed(Long.getLong("load.seed", 42))
+                .users(Integer.getInteger("load.users", 2_000))
+                .films(Integer.getInteger("load.films", 1_000))
+                .directors(Integer.getInteger("load.directors", 100))
+                .meanFriends(Integer.getInteger("load.meanFriends", 10))
+                .meanLikes(Integer.getInteger("load.meanLikes", 20))
+                .reviews(Integer.getInteger("load.reviews", 2_000))
+                .votes(Integer.getInteger("load.votes", 5_000))
+                .zipfExponent(Double.parseDouble(System.getProperty("load.zipfExponent", "1.1")))
+                .build();
+    }
+}
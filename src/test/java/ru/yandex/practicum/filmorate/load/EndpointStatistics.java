@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count of one endpoint.
+ */
+public class EndpointStatistics {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long nanos, boolean error) {
+        latencies.recordValue(Math.min(nanos, MAX_LATENCY_NANOS));
+
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public long getCount() {
+        return latencies.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public Map<String, Object> toReport(double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+
+        report.put("count", getCount());
+        report.put("errors", getErrors());
+        report.put("throughput", round(getCount() / seconds));
+        report.put("meanMs", round(latencies.getMean() / 1e6));
+        report.put("p50Ms", millis(50));
+        report.put("p90Ms", millis(90));
+        report.put("p99Ms", millis(99));
+        report.put("p999Ms", millis(99.9));
+        report.put("maxMs", round(latencies.getMaxValue() / 1e6));
+
+        return report;
+    }
+
+    private double millis(double percentile) {
+        return round(latencies.getValueAtPercentile(percentile) / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * Parameters of a load run.
+ * In the closed model concurrency virtual users send requests back to back.
+ * In the open model requests arrive at a fixed rate regardless of response times and latency
+ * is measured from the scheduled start, so queueing delay is not hidden (no coordinated omission).
+ */
+@Getter
+@Builder
+@ToString
+public class LoadConfig {
+
+    public enum Model {
+        CLOSED,
+        OPEN
+    }
+
+    @Builder.Default
+    private final Model model = Model.CLOSED;
+
+    @Builder.Default
+    private final int concurrency = 16;
+
+    @Builder.Default
+    private final int rate = 200;
+
+    @Builder.Default
+    private final Duration warmup = Duration.ofSeconds(5);
+
+    @Builder.Default
+    private final Duration duration = Duration.ofSeconds(30);
+
+    @Builder.Default
+    private final long seed = 42;
+
+    @Builder.Default
+    private final String report = "target/load-report.json";
+
+    public static LoadConfig fromSystemProperties() {
+        return LoadConfig.builder()
+                .model(Model.valueOf(System.getProperty("load.model", "closed").toUpperCase()))
+                .concurrency(Integer.getInteger("load.concurrency", 16))
+                .rate(Integer.getInteger("load.rate", 200))
+                .warmup(Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5)))
+                .duration(Duration.ofSeconds(Long.getLong("load.durationSeconds", 30)))
+                .seed(Long.getLong("load.seed", 42))
+                .report(System.getProperty("load.report", "target/load-report.json"))
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the request mix against a running application over HTTP and writes a JSON report
+ * with throughput and latency percentiles per endpoint.
+ * Requests sent during the warmup are not recorded.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final RequestMix mix;
+    private final LoadConfig config;
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<String, EndpointStatistics> statistics = new ConcurrentHashMap<>();
+
+    private volatile long recordingStart;
+
+    public LoadGenerator(String baseUrl, RequestMix mix, LoadConfig config) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.config = config;
+    }
+
+    /**
+     * Runs the load and writes the report
+     *
+     * @return report
+     */
+    public Map<String, Object> run() throws InterruptedException, IOException {
+        log.info("Load run started: {}", config);
+
+        long start = System.nanoTime();
+        recordingStart = start + config.getWarmup().toNanos();
+        long end = recordingStart + config.getDuration().toNanos();
+
+        if (config.getModel() == LoadConfig.Model.OPEN) {
+            runOpen(start, end);
+        } else {
+            runClosed(end);
+        }
+
+        Map<String, Object> report = report();
+        Path path = Path.of(config.getReport());
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        log.info("Load report written to {}", path.toAbsolutePath());
+
+        return report;
+    }
+
+    private void runClosed(long end) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(config.getConcurrency());
+
+        for (int i = 0; i < config.getConcurrency(); i++) {
+            Random random = new Random(config.getSeed() + i);
+
+            executor.execute(() -> {
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    long requestStart = System.nanoTime();
+                    send(mix.next(random), requestStart);
+                }
+            });
+        }
+
+        executor.shutdown();
+        awaitTermination(executor);
+    }
+
+    private void runOpen(long start, long end) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(config.getConcurrency());
+        Random random = new Random(config.getSeed());
+        long interval = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            long delay = scheduled - System.nanoTime();
+
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            LoadRequest request = mix.next(random);
+            long intendedStart = scheduled;
+            executor.execute(() -> send(request, intendedStart));
+        }
+
+        executor.shutdown();
+        awaitTermination(executor);
+    }
+
+    private void send(LoadRequest request, long intendedStart) {
+        boolean error;
+
+        try {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + request.getPath()))
+                    .method(request.getMethod(), HttpRequest.BodyPublishers.noBody())
+                    .timeout(REQUEST_TIMEOUT)
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            error = response.statusCode() >= 500;
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (intendedStart >= recordingStart) {
+            statistics.computeIfAbsent(request.getEndpoint(), endpoint -> new EndpointStatistics())
+                    .record(System.nanoTime() - intendedStart, error);
+        }
+    }
+
+    private Map<String, Object> report() {
+        double seconds = config.getDuration().toMillis() / 1000.0;
+        long count = statistics.values().stream().mapToLong(EndpointStatistics::getCount).sum();
+        long errors = statistics.values().stream().mapToLong(EndpointStatistics::getErrors).sum();
+        Map<String, Object> endpoints = new TreeMap<>();
+        statistics.forEach((endpoint, endpointStatistics) ->
+                endpoints.put(endpoint, endpointStatistics.toReport(seconds)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("model", config.getModel());
+        report.put("concurrency", config.getConcurrency());
+        report.put("rate", config.getModel() == LoadConfig.Model.OPEN ? config.getRate() : null);
+        report.put("durationSeconds", seconds);
+        report.put("requests", count);
+        report.put("errors", errors);
+        report.put("throughput", Math.round(count / seconds * 1000) / 1000.0);
+        report.put("endpoints", endpoints);
+
+        return report;
+    }
+
+    private void awaitTermination(ExecutorService executor) throws InterruptedException {
+        if (!executor.awaitTermination(config.getDuration().plus(REQUEST_TIMEOUT).toMillis(), TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Request of the load mix. Requests are grouped in the report by endpoint.
+ */
+@Getter
+@RequiredArgsConstructor
+public class LoadRequest {
+
+    private final String endpoint;
+    private final String method;
+    private final String path;
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load run against the application on a random port with a synthetic dataset.
+ * Excluded from the regular build, run with: mvn test -Pload
+ * Dataset and load are configured with -Dload.* system properties, see {@link DatasetConfig} and {@link LoadConfig}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+        "logging.level.ru.yandex.practicum.filmorate=WARN"
+})
+class LoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void run() throws Exception {
+        DatasetConfig datasetConfig = DatasetConfig.fromSystemProperties();
+        Dataset dataset = new SyntheticDataGenerator(jdbcTemplate, datasetConfig).generate();
+
+        Map<String, Object> report = new LoadGenerator("http://localhost:" + port,
+                new RequestMix(dataset, datasetConfig.getZipfExponent()),
+                LoadConfig.fromSystemProperties()).run();
+
+        assertTrue((Long) report.get("requests") > 0);
+        assertEquals(0L, report.get("errors"));
+    }
+}
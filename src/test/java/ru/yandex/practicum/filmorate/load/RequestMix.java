@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+/**
+ * Weighted mix of film, user and review requests over the synthetic dataset.
+ * Films and reviews are picked with a Zipf distribution, users uniformly.
+ */
+public class RequestMix {
+
+    private final Dataset dataset;
+    private final ZipfDistribution films;
+    private final ZipfDistribution reviews;
+    private final List<BiFunction<RequestMix, Random, LoadRequest>> requests = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    private int totalWeight;
+
+    public RequestMix(Dataset dataset, double zipfExponent) {
+        this.dataset = dataset;
+        this.films = new ZipfDistribution(dataset.getFilmIds().size(), zipfExponent);
+        this.reviews = new ZipfDistribution(Math.max(1, dataset.getReviewIds().size()), zipfExponent);
+
+        add(25, (mix, random) -> get("GET /films/popular", "/films/popular?count=10"));
+        add(5, (mix, random) -> get("GET /films/popular?genreId", "/films/popular?count=10&genreId="
+                + (1 + random.nextInt(6))));
+        add(20, (mix, random) -> get("GET /films/{id}", "/films/" + mix.film(random)));
+        add(10, (mix, random) -> get("GET /films/search", "/films/search?by=title&query="
+                + mix.dataset.getWords().get(random.nextInt(mix.dataset.getWords().size()))));
+        add(5, (mix, random) -> get("GET /films/director/{directorId}", "/films/director/"
+                + mix.dataset.getDirectorIds().get(random.nextInt(mix.dataset.getDirectorIds().size()))
+                + "?sortBy=likes"));
+        add(8, (mix, random) -> get("GET /users/{id}/recommendations", "/users/" + mix.user(random)
+                + "/recommendations"));
+        add(7, (mix, random) -> get("GET /users/{id}/friends", "/users/" + mix.user(random) + "/friends"));
+        add(5, (mix, random) -> get("GET /users/{id}/feed", "/users/" + mix.user(random) + "/feed"));
+        add(7, (mix, random) -> get("GET /reviews?filmId", "/reviews?count=10&filmId=" + mix.film(random)));
+        add(5, (mix, random) -> new LoadRequest("PUT /films/{id}/like/{userId}", "PUT",
+                "/films/" + mix.film(random) + "/like/" + mix.user(random)));
+        add(3, (mix, random) -> new LoadRequest("PUT /reviews/{id}/like/{userId}", "PUT",
+                "/reviews/" + mix.review(random) + "/like/" + mix.user(random)));
+    }
+
+    public LoadRequest next(Random random) {
+        int value = random.nextInt(totalWeight);
+
+        for (int i = 0; i < requests.size(); i++) {
+            if (value < cumulativeWeights.get(i)) {
+                return requests.get(i).apply(this, random);
+            }
+        }
+
+        throw new IllegalStateException("Request mix is empty");
+    }
+
+    private void add(int weight, BiFunction<RequestMix, Random, LoadRequest> request) {
+        totalWeight += weight;
+        requests.add(request);
+        cumulativeWeights.add(totalWeight);
+    }
+
+    private static LoadRequest get(String endpoint, String path) {
+        return new LoadRequest(endpoint, "GET", path);
+    }
+
+    private Long film(Random random) {
+        return dataset.getFilmIds().get(films.sample(random));
+    }
+
+    private Long user(Random random) {
+        return dataset.getUserIds().get(random.nextInt(dataset.getUserIds().size()));
+    }
+
+    private Long review(Random random) {
+        return dataset.getReviewIds().get(reviews.sample(random));
+    }
+}
@@ -0,0 +1,256 @@
+package ru.yandex.practicum.filmorate.load;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.service.PopularityReconciliationJob;
+import ru.yandex.practicum.filmorate.storage.PopularityDbStorage;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeds the database with a reproducible synthetic dataset.
+ * Friend counts and like counts per user follow a Pareto distribution,
+ * friends, liked films and reviewed films are chosen with a Zipf distribution,
+ * so a few users and films get most of the attention, as in production.
+ * Every like is also added to the feed of the user.
+ * The popularity rollup, if the schema has one, is rebuilt from the inserted rows.
+ * Expects an empty database with the reference data (genres, mpa) loaded.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SyntheticDataGenerator {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final double PARETO_ALPHA = 2;
+    private static final int LIKE_EVENT = 1;
+    private static final int ADD_OPERATION = 2;
+    private static final List<String> WORDS = List.of(
+            "nisi", "eiusmod", "dolore", "magna", "aliqua", "tempor", "labore", "veniam",
+            "quis", "nostrud", "ullamco", "laboris", "commodo", "consequat", "aute", "irure",
+            "velit", "esse", "cillum", "fugiat", "nulla", "pariatur", "excepteur", "sint",
+            "occaecat", "cupidatat", "proident", "culpa", "officia", "deserunt");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatasetConfig config;
+
+    public Dataset generate() {
+        Random random = new Random(config.getSeed());
+        long start = System.currentTimeMillis();
+
+        List<Long> userIds = insertUsers();
+        List<Long> directorIds = insertDirectors();
+        List<Long> filmIds = insertFilms(random, directorIds);
+        insertFriends(random, userIds);
+        insertLikes(random, userIds, filmIds);
+        List<Long> reviewIds = insertReviews(random, userIds, filmIds);
+        insertVotes(random, userIds, reviewIds);
+
+        if (hasColumn("FILM_DIRECTOR", "LIKE_COUNT")) {
+            jdbcTemplate.update("UPDATE film_director fd " +
+                    "SET like_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = fd.film_id)");
+        }
+
+        if (hasColumn("POPULARITY_ROLLUP", "FILM_ID")) {
+            new PopularityReconciliationJob(new PopularityDbStorage(jdbcTemplate)).reconcile();
+        }
+
+        log.info("Generated {} in {} ms", config, System.currentTimeMillis() - start);
+
+        return new Dataset(userIds, filmIds, directorIds, reviewIds, WORDS);
+    }
+
+    private List<Long> insertUsers() {
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int i = 0; i < config.getUsers(); i++) {
+            rows.add(new Object[]{"user" + i + "@mail.ru", "user" + i, "User " + i,
+                    Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(i % 20_000))});
+        }
+
+        batchUpdate("INSERT INTO users (email, login, name, birth_day) VALUES (?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+    }
+
+    private List<Long> insertDirectors() {
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int i = 0; i < config.getDirectors(); i++) {
+            rows.add(new Object[]{"Director " + WORDS.get(i % WORDS.size()) + " " + i});
+        }
+
+        batchUpdate("INSERT INTO director (name) VALUES (?)", rows);
+        return jdbcTemplate.queryForList("SELECT director_id FROM director ORDER BY director_id", Long.class);
+    }
+
+    private List<Long> insertFilms(Random random, List<Long> directorIds) {
+        List<Object[]> rows = new ArrayList<>();
+
+        boolean hasReleaseYear = hasColumn("FILMS", "RELEASE_YEAR");
+
+        for (int i = 0; i < config.getFilms(); i++) {
+            String name = WORDS.get(random.nextInt(WORDS.size())) + " " + WORDS.get(random.nextInt(WORDS.size()));
+            LocalDate releaseDate = LocalDate.of(1950 + random.nextInt(74), 1 + random.nextInt(12), 1);
+            int duration = 60 + random.nextInt(140);
+            int mpaId = 1 + random.nextInt(5);
+
+            rows.add(hasReleaseYear
+                    ? new Object[]{name, "Synthetic film " + i, Date.valueOf(releaseDate), releaseDate.getYear(),
+                    duration, mpaId}
+                    : new Object[]{name, "Synthetic film " + i, Date.valueOf(releaseDate), duration, mpaId});
+        }
+
+        batchUpdate(hasReleaseYear
+                ? "INSERT INTO films (name, description, release_date, release_year, duration, mpa_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)"
+                : "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)", rows);
+        List<Long> filmIds = jdbcTemplate.queryForList("SELECT id FROM films ORDER BY id", Long.class);
+        List<Integer> genreIds = jdbcTemplate.queryForList("SELECT id FROM genres ORDER BY id", Integer.class);
+
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> directors = new ArrayList<>();
+        ZipfDistribution directorDistribution = new ZipfDistribution(directorIds.size(), config.getZipfExponent());
+
+        for (Long filmId : filmIds) {
+            Set<Integer> filmGenres = new HashSet<>();
+            int count = 1 + random.nextInt(3);
+
+            while (filmGenres.size() < Math.min(count, genreIds.size())) {
+                filmGenres.add(genreIds.get(random.nextInt(genreIds.size())));
+            }
+
+            filmGenres.forEach(genreId -> genres.add(new Object[]{filmId, genreId}));
+
+            if (!directorIds.isEmpty() && random.nextInt(10) < 8) {
+                directors.add(new Object[]{directorIds.get(directorDistribution.sample(random)), filmId});
+            }
+        }
+
+        batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genres);
+        batchUpdate(hasColumn("FILM_DIRECTOR", "RELEASE_YEAR")
+                ? "INSERT INTO film_director (film_id, director_id, release_year) " +
+                "SELECT id, ?, release_year FROM films WHERE id = ?"
+                : "INSERT INTO film_director (director_id, film_id) VALUES (?, ?)", directors);
+
+        return filmIds;
+    }
+
+    private void insertFriends(Random random, List<Long> userIds) {
+        ZipfDistribution distribution = new ZipfDistribution(userIds.size(), config.getZipfExponent());
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int i = 0; i < userIds.size(); i++) {
+            Set<Long> friends = new HashSet<>();
+            int count = pareto(random, config.getMeanFriends(), userIds.size() - 1);
+
+            for (int attempt = 0; friends.size() < count && attempt < count * 10; attempt++) {
+                Long friendId = userIds.get(distribution.sample(random));
+
+                if (!friendId.equals(userIds.get(i))) {
+                    friends.add(friendId);
+                }
+            }
+
+            for (Long friendId : friends) {
+                rows.add(new Object[]{userIds.get(i), friendId});
+            }
+        }
+
+        batchUpdate("INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?)", rows);
+    }
+
+    private void insertLikes(Random random, List<Long> userIds, List<Long> filmIds) {
+        ZipfDistribution distribution = new ZipfDistribution(filmIds.size(), config.getZipfExponent());
+        List<Object[]> rows = new ArrayList<>();
+
+        for (Long userId : userIds) {
+            Set<Long> films = new HashSet<>();
+            int count = pareto(random, config.getMeanLikes(), filmIds.size());
+
+            for (int attempt = 0; films.size() < count && attempt < count * 10; attempt++) {
+                films.add(filmIds.get(distribution.sample(random)));
+            }
+
+            for (Long filmId : films) {
+                rows.add(new Object[]{filmId, userId});
+            }
+        }
+
+        batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", rows);
+
+        List<Object[]> events = new ArrayList<>();
+        long timestamp = System.currentTimeMillis() - rows.size() * 1000L;
+
+        for (Object[] like : rows) {
+            events.add(new Object[]{timestamp, like[1], LIKE_EVENT, ADD_OPERATION, like[0]});
+            timestamp += 1000;
+        }
+
+        batchUpdate("INSERT INTO events (timestamp, user_id, event_type, operation, entity_id) " +
+                "VALUES (?, ?, ?, ?, ?)", events);
+    }
+
+    private List<Long> insertReviews(Random random, List<Long> userIds, List<Long> filmIds) {
+        ZipfDistribution distribution = new ZipfDistribution(filmIds.size(), config.getZipfExponent());
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int i = 0; i < config.getReviews(); i++) {
+            rows.add(new Object[]{"Review " + i + " " + WORDS.get(random.nextInt(WORDS.size())),
+                    random.nextBoolean(), filmIds.get(distribution.sample(random)),
+                    userIds.get(random.nextInt(userIds.size()))});
+        }
+
+        batchUpdate("INSERT INTO reviews (content, is_positive, film_id, user_id) VALUES (?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM reviews ORDER BY id", Long.class);
+    }
+
+    private void insertVotes(Random random, List<Long> userIds, List<Long> reviewIds) {
+        if (reviewIds.isEmpty()) {
+            return;
+        }
+
+        ZipfDistribution distribution = new ZipfDistribution(reviewIds.size(), config.getZipfExponent());
+        Set<String> voted = new HashSet<>();
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int i = 0; i < config.getVotes(); i++) {
+            Long reviewId = reviewIds.get(distribution.sample(random));
+            Long userId = userIds.get(random.nextInt(userIds.size()));
+
+            if (voted.add(reviewId + ":" + userId)) {
+                rows.add(new Object[]{reviewId, userId, random.nextInt(10) < 7});
+            }
+        }
+
+        batchUpdate("INSERT INTO review_likes (review_id, user_id, is_useful) VALUES (?, ?, ?)", rows);
+        jdbcTemplate.update("UPDATE reviews r SET useful = (SELECT COALESCE(SUM(CASE WHEN rl.is_useful THEN 1 " +
+                "ELSE -1 END), 0) FROM review_likes rl WHERE rl.review_id = r.id)");
+    }
+
+    /**
+     * Checks the schema, so the generator can seed a database migrated to an older version
+     */
+    private boolean hasColumn(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = ? AND column_name = ?", Integer.class, table, column);
+        return count != null && count > 0;
+    }
+
+    private int pareto(Random random, int mean, int max) {
+        double scale = mean * (PARETO_ALPHA - 1) / PARETO_ALPHA;
+        double value = scale / Math.pow(1 - random.nextDouble(), 1 / PARETO_ALPHA);
+        return (int) Math.min(max, Math.round(value));
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH_SIZE)));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AllocationFilterTest {
+
+    private static final int ALLOCATION = 1024 * 1024;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AllocationFilter filter = new AllocationFilter(registry);
+
+    private byte[] allocated;
+
+    @Test
+    void doFilter_shouldRecordBytesAllocatedByTheRequest() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .isThreadAllocatedMemorySupported());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/films/popular");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/films/popular");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> allocated = new byte[ALLOCATION]);
+
+        DistributionSummary summary = registry.get(AllocationFilter.ALLOCATED_BYTES)
+                .tags("method", "GET", "uri", "/films/popular")
+                .summary();
+
+        assertEquals(1, summary.count());
+        assertTrue(summary.totalAmount() >= allocated.length);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class FlightRecorderEndpointTest {
+
+    private final FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint();
+
+    @AfterEach
+    void discard() {
+        endpoint.discard();
+    }
+
+    @Test
+    void download_shouldReturnTheRecordingWithServiceCallEvents_afterItFinished() throws Exception {
+        AspectJProxyFactory factory = new AspectJProxyFactory(mock(FilmService.class));
+        factory.addInterface(FilmService.class);
+        factory.addAspect(new ServiceEventAspect());
+        FilmService service = factory.getProxy();
+
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.download().getStatus());
+        assertEquals(202, endpoint.start(1, "default").getStatus());
+        assertEquals(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS, endpoint.start(1, "default").getStatus());
+
+        WebEndpointResponse<Resource> response = endpoint.download();
+
+        while (response.getStatus() == 202) {
+            service.getPopular(10, null, null);
+            Thread.sleep(10);
+            response = endpoint.download();
+        }
+
+        assertEquals(WebEndpointResponse.STATUS_OK, response.getStatus());
+
+        Path recorded = response.getBody().getFile().toPath();
+        Path file = Files.createTempFile("filmorate-test-", ".jfr");
+
+        try (InputStream stream = response.getBody().getInputStream()) {
+            Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(ServiceCallEvent.NAME))
+                    .collect(Collectors.toList());
+
+            assertTrue(events.size() > 0);
+            assertEquals("getPopular", events.get(0).getString("method"));
+            assertEquals("FilmService", events.get(0).getString("service"));
+            assertFalse(Files.exists(recorded));
+            assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.download().getStatus());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void start_shouldReturnBadRequest_ifParametersAreInvalid() {
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.start(0, null).getStatus());
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.start(301, null).getStatus());
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, endpoint.start(10, "unknown").getStatus());
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements a single HTTP request performed by the test may execute.
+ * If the test performs no requests, the limit applies to the whole test method.
+ * Checked by {@link SqlStatementCounterExtension}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxSqlStatements {
+
+    int value();
+}
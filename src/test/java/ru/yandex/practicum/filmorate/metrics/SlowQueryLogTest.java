@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowQueryLogTest {
+
+    private SlowQueryLog slowQueryLog;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setJdbcTemplate() {
+        JdbcDataSource target = new JdbcDataSource();
+        target.setURL("jdbc:h2:mem:slow-query-log;DB_CLOSE_DELAY=-1");
+
+        slowQueryLog = new SlowQueryLog(0, 1, 3, 60_000);
+        jdbcTemplate = new JdbcTemplate(new SqlCountingDataSource(target, slowQueryLog));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS films (id BIGINT PRIMARY KEY, name VARCHAR(100))");
+        jdbcTemplate.update("MERGE INTO films (id, name) VALUES (1, 'first'), (2, 'second'), (3, 'third')");
+        slowQueryLog.clear();
+    }
+
+    @AfterEach
+    void shutdown() {
+        slowQueryLog.shutdown();
+    }
+
+    @Test
+    void record_shouldCaptureParametersRowsAndPlanOfTheQuery() throws Exception {
+        jdbcTemplate.queryForList("SELECT name FROM films WHERE id > ? ORDER BY id", String.class, 1);
+
+        SlowQuery query = slowQueryLog.getQueries().get(0);
+
+        assertEquals("SELECT name FROM films WHERE id > ? ORDER BY id", query.getSql());
+        assertEquals(List.of("1"), query.getParameters());
+        assertEquals(2, query.getRows());
+        assertTrue(awaitPlan(query).contains("FILMS"), query.getPlan());
+    }
+
+    @Test
+    void record_shouldCaptureUpdatedRows_andNotExecuteModifyingStatementsAgain() throws Exception {
+        jdbcTemplate.update("DELETE FROM films WHERE id = ?", 3);
+
+        SlowQuery query = slowQueryLog.getQueries().get(0);
+        awaitPlan(query);
+
+        assertEquals(1, query.getRows());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Integer.class));
+    }
+
+    @Test
+    void record_shouldNotAnalyzeLockingQueries() throws Exception {
+        jdbcTemplate.queryForList("SELECT name FROM films WHERE id = ? FOR UPDATE", String.class, 1);
+        jdbcTemplate.queryForList("SELECT name FROM films WHERE id = ?", String.class, 1);
+
+        List<SlowQuery> queries = slowQueryLog.getQueries();
+
+        assertFalse(awaitPlan(queries.get(1)).contains("scanCount"), queries.get(1).getPlan());
+        assertTrue(awaitPlan(queries.get(0)).contains("scanCount"), queries.get(0).getPlan());
+    }
+
+    @Test
+    void record_shouldKeepOnlyTheLatestQueries() {
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.queryForObject("SELECT name FROM films WHERE id = ?", String.class, 1);
+        }
+
+        assertEquals(3, slowQueryLog.getQueries().size());
+    }
+
+    @Test
+    void record_shouldNotCaptureQueries_ifTheyAreNotSampled() {
+        SlowQueryLog unsampled = new SlowQueryLog(0, 0, 3, 60_000);
+        JdbcDataSource target = new JdbcDataSource();
+        target.setURL("jdbc:h2:mem:slow-query-log;DB_CLOSE_DELAY=-1");
+
+        new JdbcTemplate(new SqlCountingDataSource(target, unsampled)).queryForList("SELECT name FROM films");
+
+        assertTrue(unsampled.getQueries().isEmpty());
+        unsampled.shutdown();
+    }
+
+    private String awaitPlan(SlowQuery query) throws InterruptedException {
+        for (int i = 0; i < 500 && query.getPlan() == null; i++) {
+            Thread.sleep(10);
+        }
+
+        return String.valueOf(query.getPlan());
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Fails tests annotated with {@link MaxSqlStatements} if a request executes more SQL statements than allowed.
+ * Statements executed in @BeforeEach methods are not counted.
+ */
+public class SqlStatementCounterExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(SqlStatementCounterExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getTestMethod()
+                .filter(method -> method.isAnnotationPresent(MaxSqlStatements.class))
+                .ifPresent(method -> context.getStore(NAMESPACE)
+                        .put(context.getUniqueId(), SqlStatementCounter.start(context.getDisplayName())));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatistics statistics = context.getStore(NAMESPACE).remove(context.getUniqueId(), SqlStatistics.class);
+
+        if (statistics == null) {
+            return;
+        }
+
+        SqlStatementCounter.stop(statistics);
+
+        int limit = context.getRequiredTestMethod().getAnnotation(MaxSqlStatements.class).value();
+        List<SqlStatistics> requests = statistics.getChildren().isEmpty()
+                ? List.of(statistics)
+                : statistics.getChildren();
+
+        for (SqlStatistics request : requests) {
+            if (request.getCount() > limit) {
+                fail(String.format("%s, at most %d allowed:%n%s",
+                        request, limit, String.join(System.lineSeparator(), request.getStatements())));
+            }
+        }
+    }
+}
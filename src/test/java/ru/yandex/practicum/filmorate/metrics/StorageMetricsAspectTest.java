@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageMetricsAspectTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MpaStorage target = mock(MpaStorage.class);
+
+    private MpaStorage storage;
+
+    @BeforeEach
+    void setStorage() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(MpaStorage.class);
+        factory.addAspect(new StorageMetricsAspect(registry));
+        storage = factory.getProxy();
+    }
+
+    @Test
+    void record_shouldTimeCalls_andCountReturnedRows() {
+        when(target.getMpaRatings()).thenReturn(List.of(new Mpa(), new Mpa()));
+
+        storage.getMpaRatings();
+        storage.getMpaRatings();
+
+        Timer timer = registry.get(StorageMetricsAspect.CALLS)
+                .tags("storage", "MpaStorage", "method", "getMpaRatings", "outcome", "SUCCESS")
+                .timer();
+        DistributionSummary rows = registry.get(StorageMetricsAspect.ROWS)
+                .tags("storage", "MpaStorage", "method", "getMpaRatings")
+                .summary();
+
+        assertEquals(2, timer.count());
+        assertEquals(4, rows.totalAmount());
+    }
+
+    @Test
+    void record_shouldCountOptionalAsOneRow_ifPresent() {
+        when(target.getMpaRatingById(1)).thenReturn(Optional.of(new Mpa()));
+
+        storage.getMpaRatingById(1);
+
+        assertEquals(1, registry.get(StorageMetricsAspect.ROWS)
+                .tag("method", "getMpaRatingById")
+                .summary()
+                .totalAmount());
+    }
+
+    @Test
+    void record_shouldNotRecordRows_ifResultIsNotACollection() {
+        storage.mpaRatingExists(1);
+
+        assertEquals(1, registry.get(StorageMetricsAspect.CALLS).tag("method", "mpaRatingExists").timer().count());
+        assertNull(registry.find(StorageMetricsAspect.ROWS).tag("method", "mpaRatingExists").summary());
+    }
+
+    @Test
+    void record_shouldTagFailedCalls_withTheException() {
+        when(target.getMpaRatings()).thenThrow(new IllegalStateException());
+
+        assertThrows(IllegalStateException.class, () -> storage.getMpaRatings());
+
+        assertEquals(1, registry.get(StorageMetricsAspect.CALLS)
+                .tags("outcome", "ERROR", "exception", "IllegalStateException")
+                .timer()
+                .count());
+    }
+}
@@ -0,0 +1,204 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.model.Suggestion;
+import ru.yandex.practicum.filmorate.model.SuggestionType;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.validator.NotFoundException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AutocompleteIndexTest {
+
+    private static final Suggestion STAR_TREK = film(1L, "Star Trek", 3);
+    private static final Suggestion STAR_WARS = film(2L, "Star Wars: Episode IV", 5);
+    private static final Suggestion STALKER = film(3L, "Stalker", 4);
+
+    @Mock
+    private FilmStorage filmStorage;
+
+    @Mock
+    private DirectorStorage directorStorage;
+
+    @InjectMocks
+    private AutocompleteIndex index;
+
+    @Test
+    void suggest_shouldReturnNamesStartingWithThePrefix_mostLikedFirst() {
+        initCatalog();
+
+        assertEquals(List.of(STAR_WARS, STALKER, STAR_TREK), index.suggest("st", 10));
+        assertEquals(List.of(STAR_WARS, STAR_TREK), index.suggest("Star", 10));
+        assertEquals(List.of(STAR_WARS), index.suggest("  STAR-wars ", 10));
+        assertEquals(List.of(STAR_WARS, STALKER), index.suggest("st", 2));
+        assertTrue(index.suggest("star wars 2", 10).isEmpty());
+        assertTrue(index.suggest("!", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_shouldMatchCyrillicAndLatinPrefixesOfTheSameName() {
+        when(directorStorage.getDirectors()).thenReturn(List.of());
+        when(filmStorage.getFilmTitles()).thenReturn(List.of(
+                title(1L, "Солярис", 3, Set.of()),
+                title(2L, "Solaris", 1, Set.of())));
+
+        assertEquals(List.of(film(1L, "Солярис", 3), film(2L, "Solaris", 1)), index.suggest("сол", 10));
+        assertEquals(List.of(film(1L, "Солярис", 3), film(2L, "Solaris", 1)), index.suggest("Sol", 10));
+        assertEquals(List.of(film(1L, "Солярис", 3)), index.suggest("солЯ", 10));
+    }
+
+    @Test
+    void suggest_shouldRankDirectorsByLikesOfTheirFilms() {
+        initCatalog();
+
+        assertEquals(List.of(director(2L, "Andrei Tarkovsky", 5), film(5L, "American Graffiti", 2)),
+                index.suggest("a", 10));
+    }
+
+    @Test
+    void onLikeChanged_shouldUpdateLikesOfTheFilmAndItsDirectors() {
+        initCatalog();
+        index.suggest("s", 10);
+
+        for (long userId = 1; userId <= 6; userId++) {
+            index.onLikeChanged(new LikeChangedEvent(4L, userId, Operation.ADD));
+        }
+        index.onLikeChanged(new LikeChangedEvent(4L, 1L, Operation.REMOVE));
+
+        assertEquals(List.of(film(4L, "Solaris", 6), STAR_WARS, STALKER, STAR_TREK), index.suggest("s", 10));
+        assertEquals(List.of(director(2L, "Andrei Tarkovsky", 10)), index.suggest("andrei", 10));
+        verify(filmStorage, never()).getFilmTitle(anyLong());
+    }
+
+    @Test
+    void onUserRemoved_shouldRemoveLikesOfTheUser() {
+        initCatalog();
+        index.suggest("s", 10);
+
+        index.onUserRemoved(new UserRemovedEvent(1L, List.of(2L, 4L)));
+        index.onUserRemoved(new UserRemovedEvent(2L, List.of(4L)));
+
+        assertEquals(List.of(STALKER, film(2L, "Star Wars: Episode IV", 4), STAR_TREK, film(4L, "Solaris", 0)),
+                index.suggest("s", 10));
+        assertEquals(List.of(director(2L, "Andrei Tarkovsky", 4)), index.suggest("andrei", 10));
+    }
+
+    @Test
+    void onFilmChanged_shouldKeepTheIndex_ifTheFilmCannotBeReloaded() {
+        initCatalog();
+        index.suggest("s", 10);
+        when(filmStorage.getFilmTitle(1L)).thenThrow(new CannotGetJdbcConnectionException("Connection is not available"));
+
+        assertDoesNotThrow(() -> index.onFilmChanged(new FilmChangedEvent(1L, Operation.UPDATE)));
+        assertEquals(List.of(STAR_WARS, STALKER, STAR_TREK), index.suggest("st", 10));
+    }
+
+    @Test
+    void onFilmChanged_shouldReindexTheFilm() {
+        initCatalog();
+        index.suggest("s", 10);
+        when(filmStorage.getFilmTitle(1L)).thenReturn(Optional.of(title(1L, "Solaris 2", 3, Set.of(2L))));
+
+        index.onFilmChanged(new FilmChangedEvent(1L, Operation.UPDATE));
+        index.onFilmChanged(new FilmChangedEvent(2L, Operation.REMOVE));
+
+        assertTrue(index.suggest("star", 10).isEmpty());
+        assertEquals(List.of(film(1L, "Solaris 2", 3), film(4L, "Solaris", 1)), index.suggest("sol", 10));
+        assertEquals(List.of(director(2L, "Andrei Tarkovsky", 8)), index.suggest("andrei", 10));
+        assertEquals(List.of(director(1L, "George Lucas", 2)), index.suggest("george", 10));
+    }
+
+    @Test
+    void onDirectorChanged_shouldRenameOrRemoveTheDirector() {
+        initCatalog();
+        index.suggest("s", 10);
+        when(directorStorage.getDirectorById(1L)).thenReturn(initDirector(1L, "G. Lucas"));
+        when(directorStorage.getDirectorById(2L)).thenThrow(new NotFoundException("Director with id=2 not found."));
+
+        index.onDirectorChanged(new DirectorChangedEvent(1L, Operation.UPDATE));
+        index.onDirectorChanged(new DirectorChangedEvent(2L, Operation.UPDATE));
+        index.onLikeChanged(new LikeChangedEvent(2L, 1L, Operation.ADD));
+
+        assertEquals(List.of(director(1L, "G. Lucas", 8)), index.suggest("g", 10));
+        assertTrue(index.suggest("andrei", 10).isEmpty());
+    }
+
+    @Test
+    void events_shouldBeIgnored_untilTheIndexIsLoaded() {
+        index.onLikeChanged(new LikeChangedEvent(1L, 1L, Operation.ADD));
+        index.onFilmChanged(new FilmChangedEvent(1L, Operation.UPDATE));
+
+        verify(filmStorage, never()).getFilmTitle(anyLong());
+    }
+
+    @Test
+    void rebuild_shouldReloadTheIndexFromTheStorage() {
+        initCatalog();
+        index.suggest("s", 10);
+
+        when(filmStorage.getFilmTitles()).thenReturn(List.of(title(1L, "Star Trek", 9, Set.of())));
+
+        assertEquals(3, index.rebuild());
+        assertEquals(List.of(film(1L, "Star Trek", 9)), index.suggest("s", 10));
+        verify(filmStorage, times(2)).getFilmTitles();
+    }
+
+    private void initCatalog() {
+        when(directorStorage.getDirectors()).thenReturn(List.of(
+                initDirector(1L, "George Lucas"),
+                initDirector(2L, "Andrei Tarkovsky")));
+        when(filmStorage.getFilmTitles()).thenReturn(List.of(
+                title(1L, "Star Trek", 3, Set.of()),
+                title(2L, "Star Wars: Episode IV", 5, Set.of(1L)),
+                title(3L, "Stalker", 4, Set.of(2L)),
+                title(4L, "Solaris", 1, Set.of(2L)),
+                title(5L, "American Graffiti", 2, Set.of(1L))));
+    }
+
+    private static FilmTitle title(Long id, String name, int likeCount, Set<Long> directorIds) {
+        return FilmTitle.builder()
+                .filmId(id)
+                .name(name)
+                .likeCount(likeCount)
+                .directorIds(directorIds)
+                .build();
+    }
+
+    private static Suggestion film(Long id, String name, long likeCount) {
+        return new Suggestion(SuggestionType.FILM, id, name, likeCount);
+    }
+
+    private static Suggestion director(Long id, String name, long likeCount) {
+        return new Suggestion(SuggestionType.DIRECTOR, id, name, likeCount);
+    }
+
+    private static Director initDirector(Long id, String name) {
+        Director director = new Director();
+
+        director.setId(id);
+        director.setName(name);
+
+        return director;
+    }
+}
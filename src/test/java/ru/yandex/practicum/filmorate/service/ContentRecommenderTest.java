@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.model.FilmFeatures;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ContentRecommenderTest {
+
+    @Mock
+    private FilmStorage filmStorage;
+
+    @InjectMocks
+    private ContentRecommender recommender;
+
+    @Test
+    void recommend_shouldReturnMostPopularFilms_ifUserHasNoLikes() {
+        Long userId = 1L;
+
+        when(filmStorage.getFilmFeatures()).thenReturn(initFeatures());
+        when(filmStorage.getLikedFilmIds(userId)).thenReturn(Collections.emptyList());
+
+        assertEquals(List.of(3L, 2L), recommender.recommend(userId, 2));
+    }
+
+    @Test
+    void recommend_shouldPreferFilmsWithTheSameGenresAndDirectors() {
+        Long userId = 1L;
+
+        when(filmStorage.getFilmFeatures()).thenReturn(initFeatures());
+        when(filmStorage.getLikedFilmIds(userId)).thenReturn(List.of(1L));
+
+        assertEquals(List.of(4L, 2L, 3L), recommender.recommend(userId, 3));
+    }
+
+    @Test
+    void recommend_shouldKeepFilmsWithLowerIds_ifScoresAreEqual() {
+        Long userId = 1L;
+
+        when(filmStorage.getFilmFeatures()).thenReturn(List.of(
+                initFeatures(1L, FilmFeatures.genreBit(1), Collections.emptySet(), 0),
+                initFeatures(7L, FilmFeatures.genreBit(1), Collections.emptySet(), 0),
+                initFeatures(5L, FilmFeatures.genreBit(1), Collections.emptySet(), 0),
+                initFeatures(6L, FilmFeatures.genreBit(1), Collections.emptySet(), 0)));
+        when(filmStorage.getLikedFilmIds(userId)).thenReturn(List.of(1L));
+
+        assertEquals(List.of(5L, 6L), recommender.recommend(userId, 2));
+    }
+
+    @Test
+    void recommend_shouldNotReturnFilmsLikedByTheUser() {
+        Long userId = 1L;
+
+        when(filmStorage.getFilmFeatures()).thenReturn(initFeatures());
+        when(filmStorage.getLikedFilmIds(userId)).thenReturn(List.of(1L, 2L, 3L, 4L));
+
+        assertEquals(Collections.emptyList(), recommender.recommend(userId, 10));
+    }
+
+    @Test
+    void recommend_shouldReuseFeatures_untilTheFilmCatalogChanges() {
+        Long userId = 1L;
+
+        when(filmStorage.getFilmFeatures()).thenReturn(initFeatures());
+        when(filmStorage.getLikedFilmIds(userId)).thenReturn(Collections.emptyList());
+
+        recommender.recommend(userId, 2);
+        recommender.recommend(userId, 2);
+
+        verify(filmStorage, times(1)).getFilmFeatures();
+
+        recommender.onFilmChanged(new FilmChangedEvent(5L, Operation.ADD));
+        recommender.recommend(userId, 2);
+
+        verify(filmStorage, times(2)).getFilmFeatures();
+    }
+
+    private List<FilmFeatures> initFeatures() {
+        return List.of(
+                initFeatures(1L, FilmFeatures.genreBit(1) | FilmFeatures.genreBit(2), Set.of(1L), 0),
+                initFeatures(2L, FilmFeatures.genreBit(1), Collections.emptySet(), 5),
+                initFeatures(3L, FilmFeatures.genreBit(3), Set.of(2L), 10),
+                initFeatures(4L, FilmFeatures.genreBit(4), Set.of(1L), 1)
+        );
+    }
+
+    private FilmFeatures initFeatures(Long filmId, long genreMask, Set<Long> directorIds, int likeCount) {
+        return FilmFeatures.builder()
+                .filmId(filmId)
+                .genreMask(genreMask)
+                .directorIds(directorIds)
+                .likeCount(likeCount)
+                .build();
+    }
+}
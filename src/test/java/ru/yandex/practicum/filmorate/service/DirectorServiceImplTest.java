@@ -7,7 +7,9 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
 import ru.yandex.practicum.filmorate.validator.ValidationException;
@@ -29,6 +31,9 @@ class DirectorServiceImplTest {
     @Mock
     DirectorStorage storage;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private DirectorServiceImpl service;
 
@@ -88,6 +93,7 @@ class DirectorServiceImplTest {
         assertEquals(director, service.create(director));
 
         verify(storage, times(1)).create(director);
+        verify(eventPublisher, times(1)).publishEvent(new DirectorChangedEvent(director.getId(), Operation.ADD));
     }
 
     @Test
@@ -101,6 +107,7 @@ class DirectorServiceImplTest {
         assertEquals(director, service.update(director));
 
         verify(storage, times(1)).update(director);
+        verify(eventPublisher, times(1)).publishEvent(new DirectorChangedEvent(directorId, Operation.UPDATE));
     }
 
     @Test
@@ -140,6 +147,7 @@ class DirectorServiceImplTest {
         assertEquals(1, service.delete(directorId));
 
         verify(storage, times(1)).delete(directorId);
+        verify(eventPublisher, times(1)).publishEvent(new DirectorChangedEvent(directorId, Operation.REMOVE));
     }
 
     @ParameterizedTest
@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.FacetCount;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaStorage;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FacetIndexTest {
+
+    private static final Set<FilmField> ALL_FACETS = EnumSet.of(FilmField.GENRES, FilmField.MPA, FilmField.RELEASE_DATE);
+    private static final FacetCount SEVENTIES = new FacetCount(1970, "1970s", 2);
+
+    @Mock
+    private FilmStorage filmStorage;
+
+    @Mock
+    private DirectorStorage directorStorage;
+
+    @Mock
+    private GenreStorage genreStorage;
+
+    @Mock
+    private MpaStorage mpaStorage;
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new FacetIndex(filmStorage, directorStorage, genreStorage, mpaStorage);
+
+        when(genreStorage.getGenres()).thenReturn(List.of(
+                genre(1, "Комедия"), genre(2, "Драма"), genre(3, "Мультфильм")));
+        when(mpaStorage.getMpaRatings()).thenReturn(List.of(mpa(1, "G"), mpa(2, "PG")));
+        when(directorStorage.getDirectors()).thenReturn(List.of(
+                initDirector(1L, "Andrei Tarkovsky"), initDirector(2L, "George Lucas")));
+        when(filmStorage.getFilmTitles()).thenReturn(List.of(
+                title(1L, "Solaris", Set.of(1L), Set.of(1, 2), 1, 1972),
+                title(2L, "Stalker", Set.of(1L), Set.of(2), 2, 1979),
+                title(3L, "Star Wars", Set.of(2L), Set.of(1), 1, 1977),
+                title(4L, "Mirror", Set.of(1L), Set.of(), 2, 1975),
+                title(5L, "Alien", Set.of(), Set.of(3), 2, 1979)));
+    }
+
+    @Test
+    void countPopular_shouldCountAllFilmsOfTheGenreAndYear() {
+        assertEquals(Map.of(
+                        FilmField.GENRES, Set.of(new FacetCount(2, "Драма", 1), new FacetCount(3, "Мультфильм", 1)),
+                        FilmField.MPA, Set.of(new FacetCount(2, "PG", 2)),
+                        FilmField.RELEASE_DATE, Set.of(SEVENTIES)),
+                toSets(index.countPopular(null, 1979, ALL_FACETS)));
+        assertEquals(Map.of(
+                        FilmField.GENRES, Set.of(new FacetCount(1, "Комедия", 2), new FacetCount(2, "Драма", 1)),
+                        FilmField.MPA, Set.of(new FacetCount(1, "G", 2)),
+                        FilmField.RELEASE_DATE, Set.of(SEVENTIES)),
+                toSets(index.countPopular(1, null, ALL_FACETS)));
+        assertEquals(Map.of(FilmField.MPA, Set.of()), toSets(index.countPopular(3, 1972, EnumSet.of(FilmField.MPA))));
+    }
+
+    @Test
+    void countSearch_shouldCountFilmsWhoseTitleOrDirectorContainsTheQuery() {
+        assertEquals(Map.of(FilmField.GENRES, Set.of(new FacetCount(1, "Комедия", 1), new FacetCount(2, "Драма", 1))),
+                toSets(index.countSearch("STA", true, false, EnumSet.of(FilmField.GENRES))));
+        assertEquals(Map.of(FilmField.MPA, Set.of(new FacetCount(1, "G", 1), new FacetCount(2, "PG", 2))),
+                toSets(index.countSearch("tarkov", false, true, EnumSet.of(FilmField.MPA))));
+        assertEquals(Map.of(FilmField.MPA, Set.of(new FacetCount(1, "G", 2), new FacetCount(2, "PG", 2))),
+                toSets(index.countSearch("ar", true, true, EnumSet.of(FilmField.MPA))));
+    }
+
+    @Test
+    void countFilms_shouldCountOnlyIndexedFilms() {
+        assertEquals(Map.of(FilmField.MPA, Set.of(new FacetCount(1, "G", 1), new FacetCount(2, "PG", 1))),
+                toSets(index.countFilms(List.of(1L, 5L, 99L), EnumSet.of(FilmField.MPA))));
+        assertEquals(Map.of(FilmField.MPA, Set.of()), toSets(index.countFilms(List.of(), EnumSet.of(FilmField.MPA))));
+    }
+
+    @Test
+    void counts_shouldFollowFilmEvents_withoutQueryingTheStorage() {
+        index.countPopular(null, null, ALL_FACETS);
+        when(filmStorage.getFilmTitle(5L)).thenReturn(Optional.of(title(5L, "Alien", Set.of(), Set.of(1), 2, 1985)));
+
+        index.onFilmChanged(new FilmChangedEvent(5L, Operation.UPDATE));
+        index.onFilmChanged(new FilmChangedEvent(3L, Operation.REMOVE));
+        index.onLikeChanged(new LikeChangedEvent(1L, 1L, Operation.ADD));
+
+        assertEquals(Map.of(
+                        FilmField.GENRES, Set.of(new FacetCount(1, "Комедия", 2), new FacetCount(2, "Драма", 1)),
+                        FilmField.MPA, Set.of(new FacetCount(1, "G", 1), new FacetCount(2, "PG", 1)),
+                        FilmField.RELEASE_DATE, Set.of(new FacetCount(1970, "1970s", 1),
+                                new FacetCount(1980, "1980s", 1))),
+                toSets(index.countPopular(1, null, ALL_FACETS)));
+
+        index.countSearch("sta", true, true, ALL_FACETS);
+        index.countFilms(List.of(1L, 2L), ALL_FACETS);
+
+        verify(filmStorage, times(1)).getFilmTitles();
+        verify(filmStorage, times(1)).getFilmTitle(5L);
+        verifyNoMoreInteractions(filmStorage);
+    }
+
+    private static Map<FilmField, Set<FacetCount>> toSets(Map<FilmField, List<FacetCount>> counts) {
+        return counts.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> Set.copyOf(entry.getValue())));
+    }
+
+    private static FilmTitle title(Long id, String name, Set<Long> directorIds, Set<Integer> genreIds, int mpaId,
+                                   int releaseYear) {
+        return FilmTitle.builder()
+                .filmId(id)
+                .name(name)
+                .directorIds(directorIds)
+                .genreIds(genreIds)
+                .mpaId(mpaId)
+                .releaseYear(releaseYear)
+                .build();
+    }
+
+    private static Genre genre(int id, String name) {
+        Genre genre = new Genre();
+
+        genre.setId(id);
+        genre.setName(name);
+
+        return genre;
+    }
+
+    private static Mpa mpa(int id, String name) {
+        Mpa mpa = new Mpa();
+
+        mpa.setId(id);
+        mpa.setName(name);
+
+        return mpa;
+    }
+
+    private static Director initDirector(Long id, String name) {
+        Director director = new Director();
+
+        director.setId(id);
+        director.setName(name);
+
+        return director;
+    }
+}
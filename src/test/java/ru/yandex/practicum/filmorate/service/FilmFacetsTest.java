@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FacetCount;
+import ru.yandex.practicum.filmorate.model.FilmField;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilmFacetsTest {
+
+    @Test
+    void byFacet_shouldReturnEveryRequestedFacet_mostFrequentFirst() {
+        Map<FilmField, List<FacetCount>> counts = Map.of(
+                FilmField.MPA, List.of(new FacetCount(1, "G", 1), new FacetCount(3, "PG-13", 2)),
+                FilmField.GENRES, List.of(new FacetCount(2, "Драма", 2), new FacetCount(1, "Комедия", 2)),
+                FilmField.RELEASE_DATE, List.of(new FacetCount(2000, "2000s", 1), new FacetCount(1990, "1990s", 2)));
+
+        Map<String, List<FacetCount>> byFacet = FilmFacets.byFacet(counts, List.of("mpa", "genre", "decade"));
+
+        assertEquals(List.of("mpa", "genre", "decade"), List.copyOf(byFacet.keySet()));
+        assertEquals(List.of(new FacetCount(3, "PG-13", 2), new FacetCount(1, "G", 1)), byFacet.get("mpa"));
+        assertEquals(List.of(new FacetCount(1, "Комедия", 2), new FacetCount(2, "Драма", 2)), byFacet.get("genre"));
+        assertEquals(List.of(new FacetCount(1990, "1990s", 2), new FacetCount(2000, "2000s", 1)),
+                byFacet.get("decade"));
+    }
+
+    @Test
+    void byFacet_shouldReturnOnlyRequestedFacets() {
+        Map<FilmField, List<FacetCount>> counts = Map.of(
+                FilmField.RELEASE_DATE, List.of(new FacetCount(1960, "1960s", 1)));
+
+        assertEquals(Map.of("decade", List.of(new FacetCount(1960, "1960s", 1))),
+                FilmFacets.byFacet(counts, List.of("decade")));
+        assertTrue(FilmFacets.byFacet(Map.of(), List.of("genre")).get("genre").isEmpty());
+    }
+
+    @Test
+    void getRequiredFields_shouldReturnTheFieldOfEveryFacet() {
+        assertEquals(EnumSet.of(FilmField.GENRES, FilmField.MPA, FilmField.RELEASE_DATE),
+                FilmFacets.getRequiredFields(FilmFacets.FACETS));
+        assertEquals(EnumSet.of(FilmField.MPA), FilmFacets.getRequiredFields(List.of("mpa")));
+    }
+}
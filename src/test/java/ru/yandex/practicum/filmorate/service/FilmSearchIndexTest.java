@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.storage.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FilmSearchIndexTest {
+
+    @Mock
+    private FilmStorage filmStorage;
+
+    @Mock
+    private DirectorStorage directorStorage;
+
+    @InjectMocks
+    private FilmSearchIndex index;
+
+    @Test
+    void search_shouldFindMisspelledTitles_shorterTitlesFirst() {
+        initCatalog();
+
+        assertEquals(List.of(1L, 2L), index.search("matirx", true, false, 10, 0));
+        assertEquals(List.of(1L, 2L), index.search("MATRIX", true, false, 10, 0));
+        assertEquals(List.of(1L, 2L), index.search("teh matrx", true, false, 10, 0));
+        assertEquals(List.of(2L), index.search("matrix reloded", true, false, 10, 0));
+        assertTrue(index.search("matrix revolutions", true, false, 10, 0).isEmpty());
+    }
+
+    @Test
+    void search_shouldRankExactWordsAboveMisspelledOnes() {
+        initCatalog();
+
+        assertEquals(List.of(4L, 5L), index.search("solaris", true, false, 10, 0));
+        assertEquals(List.of(5L, 4L), index.search("polaris", true, false, 10, 0));
+    }
+
+    @Test
+    void search_shouldReturnThePageOfTheMostRelevantFilms() {
+        initCatalog();
+
+        assertEquals(List.of(1L), index.search("matrix", true, false, 1, 0));
+        assertEquals(List.of(2L), index.search("matrix", true, false, 1, 1));
+        assertEquals(List.of(2L), index.search("matrix", true, false, 10, 1));
+        assertTrue(index.search("matrix", true, false, 10, 2).isEmpty());
+    }
+
+    @Test
+    void search_shouldMatchShortWordsExactly() {
+        initCatalog();
+
+        assertEquals(List.of(6L), index.search("it", true, false, 10, 0));
+        assertTrue(index.search("at", true, false, 10, 0).isEmpty());
+    }
+
+    @Test
+    void search_shouldFindFilmsByMisspelledDirectorName() {
+        initCatalog();
+
+        assertEquals(List.of(4L, 3L), index.search("tarkovksy", false, true, 10, 0));
+        assertEquals(List.of(4L, 3L), index.search("andrey tarkovsky", false, true, 10, 0));
+        assertTrue(index.search("tarkovksy", true, false, 10, 0).isEmpty());
+        assertEquals(List.of(3L), index.search("stalker tarkovsky", true, true, 10, 0));
+    }
+
+    @Test
+    void search_shouldFindRussianTitlesByOtherWordFormsAndScripts() {
+        when(directorStorage.getDirectors()).thenReturn(List.of(initDirector(1L, "Андрей Тарковский")));
+        when(filmStorage.getFilmTitles()).thenReturn(List.of(
+                title(1L, "Война и мир", 5, Set.of()),
+                title(2L, "Сталкер", 2, Set.of(1L)),
+                title(3L, "Ёлки", 1, Set.of())));
+
+        assertEquals(List.of(1L), index.search("войны", true, false, 10, 0));
+        assertEquals(List.of(1L), index.search("ВОЙНУ МИРА", true, false, 10, 0));
+        assertEquals(List.of(2L), index.search("stalker", true, false, 10, 0));
+        assertEquals(List.of(3L), index.search("елка", true, false, 10, 0));
+        assertEquals(List.of(2L), index.search("tarkovsky", false, true, 10, 0));
+    }
+
+    @Test
+    void events_shouldUpdateTheIndex() {
+        initCatalog();
+        index.search("matrix", true, false, 10, 0);
+        when(filmStorage.getFilmTitle(1L)).thenReturn(Optional.of(title(1L, "Solaris", 7, Set.of())));
+
+        index.onFilmChanged(new FilmChangedEvent(1L, Operation.UPDATE));
+        index.onFilmChanged(new FilmChangedEvent(2L, Operation.REMOVE));
+        index.onLikeChanged(new LikeChangedEvent(5L, 1L, Operation.ADD));
+        index.onDirectorChanged(new DirectorChangedEvent(1L, Operation.REMOVE));
+
+        assertTrue(index.search("matrix", true, false, 10, 0).isEmpty());
+        assertEquals(List.of(5L, 1L, 4L), index.search("polaris", true, false, 10, 0));
+        assertTrue(index.search("tarkovsky", false, true, 10, 0).isEmpty());
+    }
+
+    @Test
+    void distance_shouldCountTranspositionsAsOneEdit_andStopAtTheLimit() {
+        assertEquals(0, FilmSearchIndex.distance("matrix", "matrix", 2));
+        assertEquals(1, FilmSearchIndex.distance("matrix", "matirx", 2));
+        assertEquals(1, FilmSearchIndex.distance("matrix", "matrx", 2));
+        assertEquals(2, FilmSearchIndex.distance("tarkovsky", "trakovksy", 2));
+        assertEquals(3, FilmSearchIndex.distance("kitten", "sitting", 2));
+        assertEquals(3, FilmSearchIndex.distance("star", "stalker", 2));
+    }
+
+    private void initCatalog() {
+        when(directorStorage.getDirectors()).thenReturn(List.of(initDirector(1L, "Andrei Tarkovsky")));
+        when(filmStorage.getFilmTitles()).thenReturn(List.of(
+                title(1L, "The Matrix", 5, Set.of()),
+                title(2L, "The Matrix Reloaded", 9, Set.of()),
+                title(3L, "Stalker", 2, Set.of(1L)),
+                title(4L, "Solaris", 3, Set.of(1L)),
+                title(5L, "Polaris", 4, Set.of()),
+                title(6L, "It", 1, Set.of())));
+    }
+
+    private static FilmTitle title(Long id, String name, int likeCount, Set<Long> directorIds) {
+        return FilmTitle.builder()
+                .filmId(id)
+                .name(name)
+                .likeCount(likeCount)
+                .directorIds(directorIds)
+                .build();
+    }
+
+    private static Director initDirector(Long id, String name) {
+        Director director = new Director();
+
+        director.setId(id);
+        director.setName(name);
+
+        return director;
+    }
+}
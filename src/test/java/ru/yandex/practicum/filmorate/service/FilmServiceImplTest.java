@@ -6,9 +6,16 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.cache.FilmCache;
+import ru.yandex.practicum.filmorate.cache.RequestCoalescer;
+import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.storage.DirectorStorage;
 import ru.yandex.practicum.filmorate.storage.EventStorage;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
@@ -20,12 +27,17 @@ import ru.yandex.practicum.filmorate.validator.ValidationException;
 
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -52,16 +64,28 @@ class FilmServiceImplTest {
     @Mock
     private EventStorage eventStorage;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private FilmCache filmCache = new FilmCache();
+
+    @Spy
+    private RequestCoalescer coalescer = new RequestCoalescer();
+
+    @Mock
+    private FilmSearchIndex searchIndex;
+
     @InjectMocks
     private FilmServiceImpl filmService;
 
     @Test
     void getFilms_shouldReturnEmptyListOfFilms() {
-        when(filmStorage.getFilms()).thenReturn(Collections.emptyList());
+        when(filmStorage.getFilms(FilmField.ALL)).thenReturn(Collections.emptyList());
 
         assertTrue(filmService.getFilms().isEmpty());
 
-        verify(filmStorage, times(1)).getFilms();
+        verify(filmStorage, times(1)).getFilms(FilmField.ALL);
     }
 
     @Test
@@ -73,11 +97,11 @@ class FilmServiceImplTest {
 
         List<Film> expected = List.of(film1, film2);
 
-        when(filmStorage.getFilms()).thenReturn(expected);
+        when(filmStorage.getFilms(FilmField.ALL)).thenReturn(expected);
 
         assertEquals(expected, filmService.getFilms());
 
-        verify(filmStorage, times(1)).getFilms();
+        verify(filmStorage, times(1)).getFilms(FilmField.ALL);
     }
 
     @Test
@@ -92,6 +116,23 @@ class FilmServiceImplTest {
         verify(filmStorage, times(1)).getFilmById(filmId);
     }
 
+    @Test
+    void getFilmById_shouldReturnCachedFilm() {
+        Long filmId = 1L;
+        Film film = initFilm();
+        film.setId(filmId);
+
+        when(filmStorage.getFilmById(filmId)).thenReturn(Optional.of(film));
+
+        filmService.getFilmById(filmId);
+
+        assertEquals(film, filmService.getFilmById(filmId));
+
+        verify(filmStorage, times(1)).getFilmById(filmId);
+        verify(genreStorage, times(1)).getGenresByFilmId(filmId);
+        verify(directorStorage, times(1)).getDirectorsByFilmId(filmId);
+    }
+
     @ParameterizedTest
     @ValueSource(longs = {-1L, 0L, 999L})
     void getFilmById_shouldThrowAnException_ifFilmDoesNotExist(Long filmId) {
@@ -105,6 +146,61 @@ class FilmServiceImplTest {
         verify(filmStorage, times(1)).getFilmById(filmId);
     }
 
+    @Test
+    void getFilmsByIds_shouldReturnFilmsInTheOrderOfIds() {
+        Film film1 = initFilm();
+        Film film2 = initFilm();
+        film1.setId(1L);
+        film2.setId(2L);
+
+        List<Long> ids = List.of(2L, 1L);
+        List<Film> expected = List.of(film2, film1);
+
+        when(filmStorage.getFilmsByIds(ids)).thenReturn(expected);
+
+        assertEquals(expected, filmService.getFilmsByIds(ids));
+
+        verify(filmStorage, times(1)).getFilmsByIds(ids);
+        verify(genreStorage, times(1)).getGenresByFilmIds(ids);
+        verify(directorStorage, times(1)).getDirectorsByFilmIds(ids);
+    }
+
+    @Test
+    void searchFuzzy_shouldReturnFilmsOfTheIndexInTheOrderOfRelevance() {
+        Film film1 = initFilm();
+        Film film2 = initFilm();
+        film1.setId(1L);
+        film2.setId(2L);
+
+        List<Long> ids = List.of(2L, 1L);
+
+        when(searchIndex.search("matirx", false, true, 20, 40)).thenReturn(ids);
+        when(filmStorage.getFilmsByIds(ids)).thenReturn(List.of(film1, film2));
+
+        assertEquals(List.of(film2, film1), filmService.searchFuzzy("matirx", new String[]{"director"}, 20, 40));
+
+        verify(searchIndex, times(1)).search("matirx", false, true, 20, 40);
+        verify(filmStorage, never()).search(anyString(), any(String[].class), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void searchFuzzy_shouldLoadOnlySelectedFields() {
+        Set<FilmField> fields = EnumSet.of(FilmField.ID, FilmField.NAME, FilmField.GENRES);
+        Film film = initFilm();
+        film.setId(1L);
+
+        List<Long> ids = List.of(1L);
+
+        when(searchIndex.search("matirx", true, false, 20, 0)).thenReturn(ids);
+        when(filmStorage.getFilmsByIds(ids, fields)).thenReturn(List.of(film));
+
+        assertEquals(List.of(film), filmService.searchFuzzy("matirx", new String[]{"title"}, 20, 0, fields));
+
+        verify(genreStorage, times(1)).getGenresByFilmIds(ids);
+        verify(directorStorage, never()).getDirectorsByFilmIds(any());
+        verify(filmStorage, never()).getFilmsByIds(ids);
+    }
+
     @Test
     void createFilm_shouldCreateAFilm() {
         Integer mpaId = 1;
@@ -118,6 +214,7 @@ class FilmServiceImplTest {
 
         verify(mpaStorage, times(1)).mpaRatingExists(mpaId);
         verify(filmStorage, times(1)).createFilm(film);
+        verify(eventPublisher, times(1)).publishEvent(new FilmChangedEvent(film.getId(), Operation.ADD));
     }
 
     @Test
@@ -168,6 +265,7 @@ class FilmServiceImplTest {
         verify(filmStorage, times(1)).filmExists(filmId);
         verify(mpaStorage, times(1)).mpaRatingExists(mpaId);
         verify(filmStorage, times(1)).updateFilm(film);
+        verify(eventPublisher, times(1)).publishEvent(new FilmChangedEvent(filmId, Operation.UPDATE));
     }
 
     @Test
@@ -229,12 +327,30 @@ class FilmServiceImplTest {
 
         when(filmStorage.filmExists(filmId)).thenReturn(true);
         when(userStorage.userExists(userId)).thenReturn(true);
+        when(filmStorage.addLike(filmId, userId)).thenReturn(true);
 
         filmService.addLike(filmId, userId);
 
         verify(filmStorage, times(1)).filmExists(filmId);
         verify(userStorage, times(1)).userExists(userId);
         verify(filmStorage, times(1)).addLike(filmId, userId);
+        verify(eventStorage, times(1)).addEvent(any(Event.class));
+        verify(eventPublisher, times(1)).publishEvent(new LikeChangedEvent(filmId, userId, Operation.ADD));
+    }
+
+    @Test
+    void addLike_shouldNotRecordAnEvent_ifTheLikeAlreadyExists() {
+        Long filmId = 1L;
+        Long userId = 1L;
+
+        when(filmStorage.filmExists(filmId)).thenReturn(true);
+        when(userStorage.userExists(userId)).thenReturn(true);
+        when(filmStorage.addLike(filmId, userId)).thenReturn(false);
+
+        filmService.addLike(filmId, userId);
+
+        verify(eventStorage, never()).addEvent(any(Event.class));
+        verify(eventPublisher, never()).publishEvent(any(LikeChangedEvent.class));
     }
 
     @ParameterizedTest
@@ -279,12 +395,28 @@ class FilmServiceImplTest {
 
         when(filmStorage.filmExists(filmId)).thenReturn(true);
         when(userStorage.userExists(userId)).thenReturn(true);
+        when(filmStorage.removeLike(filmId, userId)).thenReturn(true);
 
         filmService.removeLike(filmId, userId);
 
         verify(filmStorage, times(1)).filmExists(filmId);
         verify(userStorage, times(1)).userExists(userId);
         verify(filmStorage, times(1)).removeLike(filmId, userId);
+        verify(eventPublisher, times(1)).publishEvent(new LikeChangedEvent(filmId, userId, Operation.REMOVE));
+    }
+
+    @Test
+    void removeLike_shouldNotPublishAnEvent_ifTheLikeDidNotExist() {
+        Long filmId = 1L;
+        Long userId = 1L;
+
+        when(filmStorage.filmExists(filmId)).thenReturn(true);
+        when(userStorage.userExists(userId)).thenReturn(true);
+
+        filmService.removeLike(filmId, userId);
+
+        verify(filmStorage, times(1)).removeLike(filmId, userId);
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @ParameterizedTest
@@ -328,11 +460,24 @@ class FilmServiceImplTest {
         Integer genreId = null;
         Integer year = null;
 
-        when(filmStorage.getPopular(count, genreId, year)).thenReturn(Collections.emptyList());
+        when(filmStorage.getPopular(count, genreId, year, FilmField.ALL)).thenReturn(Collections.emptyList());
 
         assertTrue(filmService.getPopular(10, genreId, year).isEmpty());
 
-        verify(filmStorage, times(1)).getPopular(count, genreId, year);
+        verify(filmStorage, times(1)).getPopular(count, genreId, year, FilmField.ALL);
+    }
+
+    @Test
+    void getPopular_shouldNotLoadGenresAndDirectors_ifTheyAreNotSelected() {
+        Set<FilmField> fields = EnumSet.of(FilmField.ID, FilmField.NAME);
+        List<Film> expected = List.of(initFilm());
+
+        when(filmStorage.getPopular(10, null, null, fields)).thenReturn(expected);
+
+        assertEquals(expected, filmService.getPopular(10, null, null, fields));
+
+        verify(genreStorage, never()).getGenresByFilmIds(any());
+        verify(directorStorage, never()).getDirectorsByFilmIds(any());
     }
 
     @Test
@@ -351,11 +496,11 @@ class FilmServiceImplTest {
 
         List<Film> expected = List.of(film2, film1);
 
-        when(filmStorage.getPopular(count, genreId, year)).thenReturn(expected);
+        when(filmStorage.getPopular(count, genreId, year, FilmField.ALL)).thenReturn(expected);
 
         assertEquals(expected, filmService.getPopular(count, genreId, year));
 
-        verify(filmStorage, times(1)).getPopular(count, genreId, year);
+        verify(filmStorage, times(1)).getPopular(count, genreId, year, FilmField.ALL);
     }
 
     @Test
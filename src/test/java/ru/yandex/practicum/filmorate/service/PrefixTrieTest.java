@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixTrieTest {
+
+    private static final int TOP_SIZE = 3;
+    private static final Comparator<Integer> ORDER = Comparator.reverseOrder();
+
+    private final Random random = new Random(42);
+
+    @Test
+    void find_shouldReturnTheBestValuesOfThePrefix_afterRandomChanges() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>(TOP_SIZE, ORDER);
+        Map<Integer, String> keys = new HashMap<>();
+
+        for (int i = 0; i < 3000; i++) {
+            int value = random.nextInt(200);
+            String key = keys.get(value);
+
+            if (key == null) {
+                key = randomKey();
+                trie.put(key, value);
+                keys.put(value, key);
+            } else {
+                assertTrue(trie.remove(key, value));
+                keys.remove(value);
+            }
+
+            assertEquals(keys.size(), trie.size());
+
+            for (int probe = 0; probe < 5; probe++) {
+                String prefix = randomKey().substring(0, random.nextInt(3));
+
+                assertEquals(findByScan(keys, prefix), trie.find(prefix, TOP_SIZE),
+                        () -> String.format("Prefix '%s' after %d changes", prefix, keys.size()));
+            }
+        }
+    }
+
+    @Test
+    void find_shouldReturnValuesOfAKey_whenThePrefixEndsInsideAnEdge() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>(TOP_SIZE, ORDER);
+
+        trie.put("star wars", 1);
+        trie.put("star trek", 2);
+        trie.put("stalker", 3);
+
+        assertEquals(List.of(2, 1), trie.find("star", 10));
+        assertEquals(List.of(2), trie.find("star t", 10));
+        assertEquals(List.of(3, 2, 1), trie.find("sta", 10));
+        assertEquals(List.of(3, 2), trie.find("", 2));
+        assertTrue(trie.find("start", 10).isEmpty());
+    }
+
+    @Test
+    void remove_shouldReturnFalse_ifTheValueIsNotStoredUnderTheKey() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>(TOP_SIZE, ORDER);
+
+        trie.put("star wars", 1);
+
+        assertFalse(trie.remove("star wars", 2));
+        assertFalse(trie.remove("star", 1));
+        assertFalse(trie.remove("star wars 2", 1));
+        assertTrue(trie.remove("star wars", 1));
+        assertTrue(trie.find("s", 10).isEmpty());
+    }
+
+    private List<Integer> findByScan(Map<Integer, String> keys, String prefix) {
+        return keys.entrySet().stream()
+                .filter(entry -> entry.getValue().startsWith(prefix))
+                .map(Map.Entry::getKey)
+                .sorted(ORDER)
+                .limit(TOP_SIZE)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Short keys over a small alphabet share prefixes, so edges are split and merged often
+     */
+    private String randomKey() {
+        StringBuilder key = new StringBuilder();
+        int length = 2 + random.nextInt(4);
+
+        for (int i = 0; i < length; i++) {
+            key.append("abc ".charAt(random.nextInt(4)));
+        }
+
+        return key.toString();
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.ReviewStorage;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewSearchIndexTest {
+
+    @Mock
+    private ReviewStorage reviewStorage;
+
+    @InjectMocks
+    private ReviewSearchIndex index;
+
+    @Test
+    void search_shouldFindReviewsContainingEveryWord_mostRelevantFirst() {
+        initReviews();
+
+        assertEquals(List.of(2L, 1L, 3L), index.search("boring", null, 10, 0));
+        assertEquals(List.of(1L), index.search("Boring, PLOT", null, 10, 0));
+        assertTrue(index.search("plot masterpiece", null, 10, 0).isEmpty());
+        assertTrue(index.search("unknown", null, 10, 0).isEmpty());
+        assertTrue(index.search(" !? ", null, 10, 0).isEmpty());
+    }
+
+    @Test
+    void search_shouldFindRussianWordForms() {
+        when(reviewStorage.getAllReviews()).thenReturn(List.of(
+                review(1L, 1L, "Скучный фильм, не советую"),
+                review(2L, 1L, "Отличная игра актёров")));
+
+        assertEquals(List.of(1L), index.search("скучные фильмы", null, 10, 0));
+        assertEquals(List.of(2L), index.search("актеры", null, 10, 0));
+    }
+
+    @Test
+    void search_shouldFilterByFilm_andReturnThePage() {
+        initReviews();
+
+        assertEquals(List.of(3L), index.search("boring", 2L, 10, 0));
+        assertEquals(List.of(2L), index.search("boring", null, 1, 0));
+        assertEquals(List.of(1L, 3L), index.search("boring", null, 10, 1));
+        assertTrue(index.search("boring", null, 10, 3).isEmpty());
+    }
+
+    @Test
+    void events_shouldUpdateTheIndex() {
+        initReviews();
+        index.search("boring", null, 10, 0);
+        when(reviewStorage.getReviewById(4L)).thenReturn(Optional.of(review(4L, 2L, "A masterpiece")));
+        when(reviewStorage.getReviewById(2L)).thenReturn(Optional.of(review(2L, 1L, "Fine after all")));
+
+        index.onReviewChanged(new ReviewChangedEvent(4L, Operation.ADD));
+        index.onReviewChanged(new ReviewChangedEvent(2L, Operation.UPDATE));
+        index.onReviewChanged(new ReviewChangedEvent(1L, Operation.REMOVE));
+
+        assertEquals(List.of(4L, 3L), index.search("masterpiece", null, 10, 0));
+        assertEquals(List.of(3L), index.search("boring", null, 10, 0));
+
+        index.onFilmChanged(new FilmChangedEvent(2L, Operation.REMOVE));
+
+        assertTrue(index.search("masterpiece", null, 10, 0).isEmpty());
+        assertEquals(List.of(2L), index.search("fine", null, 10, 0));
+        verify(reviewStorage, times(1)).getAllReviews();
+    }
+
+    private void initReviews() {
+        when(reviewStorage.getAllReviews()).thenReturn(List.of(
+                review(1L, 1L, "Boring plot and flat characters, the plot drags"),
+                review(2L, 1L, "Boring. Boring!"),
+                review(3L, 2L, "Some say boring, I say a masterpiece of slow cinema")));
+    }
+
+    private static Review review(Long id, Long filmId, String content) {
+        Review review = new Review();
+
+        review.setReviewId(id);
+        review.setFilmId(filmId);
+        review.setUserId(1L);
+        review.setIsPositive(false);
+        review.setContent(content);
+
+        return review;
+    }
+}
@@ -7,6 +7,8 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.EventStorage;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
@@ -42,6 +44,12 @@ class ReviewServiceImplTest {
     @Mock
     private EventStorage eventStorage;
 
+    @Mock
+    private ReviewSearchIndex searchIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ReviewServiceImpl reviewService;
 
@@ -100,6 +108,21 @@ class ReviewServiceImplTest {
         verify(reviewStorage, times(1)).getReviewsByFilmId(filmId, count);
     }
 
+    @Test
+    void searchReviews_shouldReturnReviewsInTheOrderOfRelevance() {
+        Review review1 = initReview();
+        Review review2 = initReview();
+        review1.setReviewId(1L);
+        review2.setReviewId(2L);
+
+        when(searchIndex.search("bad", 1L, 10, 0)).thenReturn(List.of(2L, 1L));
+        when(reviewStorage.getReviewsByIds(List.of(2L, 1L))).thenReturn(List.of(review1, review2));
+
+        assertEquals(List.of(review2, review1), reviewService.searchReviews("bad", 1L, 10, 0));
+
+        verify(reviewStorage, times(1)).getReviewsByIds(List.of(2L, 1L));
+    }
+
     @Test
     void getReviewById_shouldReturnReviewById() {
         Long reviewId = 1L;
@@ -140,6 +163,7 @@ class ReviewServiceImplTest {
         verify(filmStorage, times(1)).filmExists(filmId);
         verify(userStorage, times(1)).userExists(userId);
         verify(reviewStorage, times(1)).createReview(review);
+        verify(eventPublisher, times(1)).publishEvent(new ReviewChangedEvent(review.getReviewId(), Operation.ADD));
     }
 
     @Test
@@ -210,6 +234,7 @@ class ReviewServiceImplTest {
 
         verify(reviewStorage, times(1)).reviewExists(reviewId);
         verify(reviewStorage, times(1)).updateReview(review);
+        verify(eventPublisher, times(1)).publishEvent(new ReviewChangedEvent(reviewId, Operation.UPDATE));
     }
 
     @Test
@@ -246,26 +271,26 @@ class ReviewServiceImplTest {
         Long reviewId = 1L;
         Review review = initReview();
 
-        when(reviewStorage.reviewExists(reviewId)).thenReturn(true);
         when(reviewStorage.getReviewById(reviewId)).thenReturn(Optional.of(review));
 
         reviewService.removeReviewById(reviewId);
 
-        verify(reviewStorage, times(1)).reviewExists(reviewId);
+        verify(reviewStorage, never()).reviewExists(reviewId);
         verify(reviewStorage, times(1)).removeReviewById(reviewId);
+        verify(eventPublisher, times(1)).publishEvent(new ReviewChangedEvent(reviewId, Operation.REMOVE));
     }
 
     @ParameterizedTest
     @ValueSource(longs = {-1L, 0L, 999L})
     void removeReviewById_shouldThrowAnException_ifReviewDoesNotExist(Long reviewId) {
-        when(reviewStorage.reviewExists(reviewId)).thenReturn(false);
+        when(reviewStorage.getReviewById(reviewId)).thenReturn(Optional.empty());
 
         assertThrows(
                 NotFoundException.class,
                 () -> reviewService.removeReviewById(reviewId)
         );
 
-        verify(reviewStorage, times(1)).reviewExists(reviewId);
+        verify(reviewStorage, times(1)).getReviewById(reviewId);
         verify(reviewStorage, never()).removeReviewById(reviewId);
     }
 
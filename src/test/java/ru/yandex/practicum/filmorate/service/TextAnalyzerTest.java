@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextAnalyzerTest {
+
+    @Test
+    void normalize_shouldFoldCaseAndSeparators() {
+        assertEquals("star wars episode iv", TextAnalyzer.normalize("  Star Wars: Episode IV!"));
+        assertEquals("", TextAnalyzer.normalize(" -!- "));
+        assertEquals("2001 a space odyssey", TextAnalyzer.normalize("2001: A Space Odyssey"));
+    }
+
+    @Test
+    void normalize_shouldTransliterateCyrillicLetters() {
+        assertEquals("stalker", TextAnalyzer.normalize("Сталкер"));
+        assertEquals("solyaris", TextAnalyzer.normalize("СОЛЯРИС"));
+        assertEquals("shchuka zhuk", TextAnalyzer.normalize("Щука, жук"));
+        assertEquals("obem", TextAnalyzer.normalize("Объём"));
+    }
+
+    @Test
+    void normalize_shouldFoldYoAndCombiningMarks() {
+        assertEquals(TextAnalyzer.normalize("елка"), TextAnalyzer.normalize("Ёлка"));
+        assertEquals(TextAnalyzer.normalize("елка"), TextAnalyzer.normalize("ёлка"));
+        assertEquals(TextAnalyzer.normalize("Андрей"), TextAnalyzer.normalize("Андреи\u0306"));
+        assertEquals("cafe", TextAnalyzer.normalize("cafe\u0301"));
+    }
+
+    @Test
+    void normalize_shouldKeepPrefixesOfNames() {
+        String name = TextAnalyzer.normalize("Щит и меч");
+
+        for (int length = 1; length <= "Щит и меч".length(); length++) {
+            assertTrue(name.startsWith(TextAnalyzer.normalize("Щит и меч".substring(0, length))));
+        }
+    }
+
+    @Test
+    void words_shouldStemRussianWords() {
+        assertEquals(TextAnalyzer.words("война"), TextAnalyzer.words("войны"));
+        assertEquals(TextAnalyzer.words("война и мир"), TextAnalyzer.words("Войну и мира"));
+        assertEquals(TextAnalyzer.words("Белое солнце пустыни"), TextAnalyzer.words("белого солнца пустыня"));
+        assertEquals(List.of("mir", "i"), TextAnalyzer.words("мир и"));
+        assertEquals(List.of("matrix", "reloaded"), TextAnalyzer.words("The Matrix Reloaded").subList(1, 3));
+        assertTrue(TextAnalyzer.words(" ,ь ").isEmpty());
+    }
+}
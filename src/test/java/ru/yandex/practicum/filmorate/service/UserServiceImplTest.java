@@ -7,11 +7,16 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache;
+import ru.yandex.practicum.filmorate.cache.RecommendationCache.Recommendations;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.EventStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.validator.NotFoundException;
 import ru.yandex.practicum.filmorate.validator.ValidationException;
@@ -20,13 +25,19 @@ import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +49,21 @@ class UserServiceImplTest {
     @Mock
     private EventStorage eventStorage;
 
+    @Mock
+    private FilmStorage filmStorage;
+
+    @Mock
+    private FilmService filmService;
+
+    @Mock
+    private ContentRecommender contentRecommender;
+
+    @Mock
+    private RecommendationCache recommendationCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserServiceImpl service;
 
@@ -404,11 +430,13 @@ class UserServiceImplTest {
         Long userId = 1L;
 
         when(storage.userExists(userId)).thenReturn(true);
+        when(filmStorage.getLikedFilmIds(userId)).thenReturn(List.of(2L, 3L));
 
         service.removeUser(userId);
 
         verify(storage, times(1)).userExists(userId);
         verify(storage, times(1)).removeUser(userId);
+        verify(eventPublisher, times(1)).publishEvent(new UserRemovedEvent(userId, List.of(2L, 3L)));
     }
 
     @ParameterizedTest
@@ -423,6 +451,7 @@ class UserServiceImplTest {
 
         verify(storage, times(1)).userExists(userId);
         verify(storage, never()).removeUser(userId);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -447,6 +476,102 @@ class UserServiceImplTest {
         verify(eventStorage, times(1)).getUserEvents(userId);
     }
 
+    @Test
+    void getRecommendations_shouldFillFilmsOfUserWithIntersections_withContentBasedFilms() {
+        Long userId = 1L;
+        Long otherUserId = 2L;
+        Film film = new Film();
+        film.setId(1L);
+
+        List<Film> expected = List.of(film);
+
+        when(storage.userExists(userId)).thenReturn(true);
+        mockRecommendationCacheMiss(userId);
+        when(filmStorage.getUserWithMostIntersections(userId)).thenReturn(Optional.of(otherUserId));
+        when(filmStorage.getRecommendedFilmIds(userId, otherUserId)).thenReturn(List.of(1L, 5L));
+        when(contentRecommender.recommend(userId, 10)).thenReturn(List.of(5L, 2L, 3L));
+        when(filmService.getFilmsByIds(List.of(1L, 5L, 2L, 3L))).thenReturn(expected);
+
+        assertEquals(expected, service.getRecommendations(userId));
+    }
+
+    @Test
+    void getRecommendations_shouldNotAskContentRecommender_ifUserWithIntersectionsFillsTheList() {
+        Long userId = 1L;
+        Long otherUserId = 2L;
+        List<Long> filmIds = LongStream.rangeClosed(1, 12).boxed().collect(Collectors.toList());
+        Film film = new Film();
+        film.setId(1L);
+
+        List<Film> expected = List.of(film);
+
+        when(storage.userExists(userId)).thenReturn(true);
+        mockRecommendationCacheMiss(userId);
+        when(filmStorage.getUserWithMostIntersections(userId)).thenReturn(Optional.of(otherUserId));
+        when(filmStorage.getRecommendedFilmIds(userId, otherUserId)).thenReturn(filmIds);
+        when(filmService.getFilmsByIds(filmIds)).thenReturn(expected);
+
+        assertEquals(expected, service.getRecommendations(userId));
+
+        verify(contentRecommender, never()).recommend(userId, 10);
+    }
+
+    @Test
+    void getRecommendations_shouldReturnContentBasedFilms_ifThereIsNoUserWithIntersections() {
+        Long userId = 1L;
+        Film film = new Film();
+        film.setId(2L);
+
+        List<Film> expected = List.of(film);
+
+        when(storage.userExists(userId)).thenReturn(true);
+        mockRecommendationCacheMiss(userId);
+        when(filmStorage.getUserWithMostIntersections(userId)).thenReturn(Optional.empty());
+        when(contentRecommender.recommend(userId, 10)).thenReturn(List.of(2L));
+        when(filmService.getFilmsByIds(List.of(2L))).thenReturn(expected);
+
+        assertEquals(expected, service.getRecommendations(userId));
+
+        verify(contentRecommender, times(1)).recommend(userId, 10);
+    }
+
+    @Test
+    void getRecommendations_shouldReturnCachedFilms() {
+        Long userId = 1L;
+        Film film = new Film();
+        film.setId(3L);
+
+        List<Film> expected = List.of(film);
+
+        when(storage.userExists(userId)).thenReturn(true);
+        when(recommendationCache.get(eq(userId), any())).thenReturn(List.of(3L));
+        when(filmService.getFilmsByIds(List.of(3L))).thenReturn(expected);
+
+        assertEquals(expected, service.getRecommendations(userId));
+
+        verify(filmStorage, never()).getUserWithMostIntersections(userId);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {-1L, 0L, 999L})
+    void getRecommendations_shouldThrowAnException_ifUserDoesNotExist(Long userId) {
+        when(storage.userExists(userId)).thenReturn(false);
+
+        assertThrows(
+                NotFoundException.class,
+                () -> service.getRecommendations(userId)
+        );
+
+        verify(recommendationCache, never()).get(eq(userId), any());
+    }
+
+
+    private void mockRecommendationCacheMiss(Long userId) {
+        when(recommendationCache.get(eq(userId), any())).thenAnswer(invocation -> {
+            Function<Long, Recommendations> loader = invocation.getArgument(1);
+            return loader.apply(userId).getFilmIds();
+        });
+    }
 
     private User initUser() {
         User user = new User();
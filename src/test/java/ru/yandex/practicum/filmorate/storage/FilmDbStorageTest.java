@@ -0,0 +1,432 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.metrics.SqlCountingDataSource;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
+import ru.yandex.practicum.filmorate.metrics.SqlStatistics;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmTitle;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the films of a director, read in the order of the film_director indexes,
+ * match the aggregate queries over films and likes, that film lists read only the selected columns,
+ * and that updates write only the rows that differ from the stored film.
+ */
+class FilmDbStorageTest {
+
+    private static final int[] YEARS = {1967, 1995, 2010};
+
+    private static final String FILMS_BY_YEAR = "SELECT f.id FROM films f " +
+            "INNER JOIN film_director fd ON fd.film_id = f.id " +
+            "WHERE fd.director_id = ? " +
+            "ORDER BY f.release_year, f.id";
+
+    private static final String FILMS_BY_LIKES = "SELECT f.id FROM films f " +
+            "INNER JOIN film_director fd ON fd.film_id = f.id " +
+            "LEFT JOIN film_likes fl ON fl.film_id = f.id " +
+            "WHERE fd.director_id = ? " +
+            "GROUP BY f.id " +
+            "ORDER BY COUNT(fl.user_id) DESC, f.id";
+
+    private final Random random = new Random(42);
+    private final List<Long> filmIds = new ArrayList<>();
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Director> directors = new ArrayList<>();
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private FilmDbStorage filmStorage;
+    private UserDbStorage userStorage;
+    private DirectorDBStorage directorStorage;
+
+    @BeforeEach
+    void createDatabase() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:films-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        migrate(MigrationVersion.LATEST);
+
+        jdbcTemplate = new JdbcTemplate(new SqlCountingDataSource(dataSource));
+        PopularityDbStorage popularityStorage = new PopularityDbStorage(jdbcTemplate);
+        filmStorage = new FilmDbStorage(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                popularityStorage);
+        userStorage = new UserDbStorage(jdbcTemplate, popularityStorage);
+        directorStorage = new DirectorDBStorage(jdbcTemplate);
+    }
+
+    @AfterEach
+    void shutdown() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    void getFilmsByDirector_shouldMatchTheAggregateQueries_afterRandomChanges() {
+        createDirectors(3);
+        createFilms(12);
+        createUsers(8);
+
+        for (int i = 0; i < 300; i++) {
+            Long filmId = filmIds.get(random.nextInt(filmIds.size()));
+            Long userId = userIds.get(random.nextInt(userIds.size()));
+            int operation = random.nextInt(20);
+
+            if (operation < 10) {
+                filmStorage.addLike(filmId, userId);
+            } else if (operation < 15) {
+                filmStorage.removeLike(filmId, userId);
+            } else if (operation < 17) {
+                Film film = initFilm();
+                film.setId(filmId);
+                filmStorage.updateFilm(film);
+            } else if (operation < 18) {
+                filmStorage.removeFilm(filmId);
+                filmIds.remove(filmId);
+                createFilms(1);
+            } else if (operation < 19) {
+                userStorage.removeUser(userId);
+                userIds.remove(userId);
+                createUsers(1);
+            } else {
+                Director director = directors.get(random.nextInt(directors.size()));
+                directorStorage.delete(director.getId());
+                directors.remove(director);
+                createDirectors(1);
+            }
+
+            assertDirectorFilmsMatchQueries("after operation " + i);
+        }
+    }
+
+    @Test
+    void filmLists_shouldReadOnlySelectedColumns_inTheSameOrder() {
+        createDirectors(2);
+        createFilms(6);
+        createUsers(4);
+
+        for (Long userId : userIds) {
+            filmStorage.addLike(filmIds.get(random.nextInt(filmIds.size())), userId);
+        }
+
+        Set<FilmField> fields = EnumSet.of(FilmField.ID, FilmField.NAME);
+        Long directorId = directors.get(0).getId();
+        String[] byTitle = {"title"};
+        List<Film> projected = new ArrayList<>();
+
+        projected.addAll(filmStorage.getFilms(fields));
+        projected.addAll(filmStorage.getPopular(5, null, null, fields));
+        projected.addAll(filmStorage.getPopular(1000, null, null, fields));
+        projected.addAll(filmStorage.getFilmsByDirector(directorId, "likes", fields));
+        projected.addAll(filmStorage.search("eius", byTitle, 3, 1, fields));
+        projected.addAll(filmStorage.getFilmsByIds(List.of(filmIds.get(2), filmIds.get(0)), fields));
+
+        assertEquals(getIds(filmStorage.getFilms(FilmField.ALL)), getIds(filmStorage.getFilms(fields)));
+        assertEquals(getIds(filmStorage.getPopular(5, null, null, FilmField.ALL)),
+                getIds(filmStorage.getPopular(5, null, null, fields)));
+        assertEquals(getIds(filmStorage.getPopular(1000, null, null, FilmField.ALL)),
+                getIds(filmStorage.getPopular(1000, null, null, fields)));
+        assertEquals(getIds(filmStorage.getFilmsByDirector(directorId, "likes", FilmField.ALL)),
+                getIds(filmStorage.getFilmsByDirector(directorId, "likes", fields)));
+        assertEquals(getIds(filmStorage.search("eius", byTitle, 3, 1, FilmField.ALL)),
+                getIds(filmStorage.search("eius", byTitle, 3, 1, fields)));
+        assertEquals(List.of(filmIds.get(2), filmIds.get(0)),
+                getIds(filmStorage.getFilmsByIds(List.of(filmIds.get(2), filmIds.get(0)), fields)));
+
+        for (Film film : projected) {
+            assertEquals("nisi eiusmod", film.getName());
+            assertNull(film.getDescription());
+            assertNull(film.getReleaseDate());
+            assertNull(film.getMpa());
+        }
+    }
+
+    @Test
+    void updateFilm_shouldWriteOnlyTheDifference_andNothingIfTheFilmIsTheSame() {
+        createDirectors(3);
+        createUsers(2);
+
+        Film film = initFilm(1995, List.of(1, 2), directors.subList(0, 2));
+        Long filmId = filmStorage.createFilm(film).getId();
+        filmStorage.addLike(filmId, userIds.get(0));
+
+        Film same = initFilm(1995, List.of(2, 1), directors.subList(0, 2));
+        same.setId(filmId);
+
+        assertTrue(getWrites(() -> filmStorage.updateFilm(same)).isEmpty());
+
+        Film changed = initFilm(1995, List.of(2, 3), directors.subList(1, 3));
+        changed.setId(filmId);
+
+        assertEquals(List.of(
+                "DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?",
+                "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)",
+                "DELETE FROM film_director WHERE film_id = ? AND director_id = ?",
+                "INSERT INTO film_director (film_id, director_id, release_year, like_count) " +
+                        "SELECT ?, ?, ?, COUNT(*) FROM film_likes WHERE film_id = ?"),
+                getWrites(() -> filmStorage.updateFilm(changed)).subList(0, 4));
+        assertEquals(List.of(2, 3), jdbcTemplate.queryForList(
+                "SELECT genre_id FROM film_genres WHERE film_id = ? ORDER BY genre_id", Integer.class, filmId));
+        assertEquals(List.of(directors.get(1).getId(), directors.get(2).getId()), jdbcTemplate.queryForList(
+                "SELECT director_id FROM film_director WHERE film_id = ? AND like_count = 1 ORDER BY director_id",
+                Long.class, filmId));
+
+        assertTrue(getWrites(() -> filmStorage.updateFilm(changed)).isEmpty());
+    }
+
+    @Test
+    void updateFilm_shouldMoveTheFilmInDirectorAndPopularLists_ifTheYearChanges() {
+        createDirectors(2);
+        createUsers(3);
+
+        Long filmId = filmStorage.createFilm(initFilm(1967, List.of(1), directors)).getId();
+        Long otherId = filmStorage.createFilm(initFilm(1995, List.of(1), directors)).getId();
+        userIds.forEach(userId -> filmStorage.addLike(filmId, userId));
+
+        Film film = initFilm(2010, List.of(1), directors);
+        film.setId(filmId);
+
+        List<String> writes = getWrites(() -> filmStorage.updateFilm(film));
+
+        assertEquals("UPDATE films " +
+                "SET name = ?, description = ?, release_date = ?, release_year = ?, duration = ?, mpa_id = ? " +
+                "WHERE id = ?", writes.get(0));
+        assertEquals("UPDATE film_director SET release_year = ? WHERE film_id = ?", writes.get(1));
+        assertTrue(writes.stream().noneMatch(sql -> sql.contains("film_genres")));
+        assertDirectorFilmsMatchQueries("after the update");
+        assertEquals(List.of(otherId, filmId), getIds(
+                filmStorage.getFilmsByDirector(directors.get(0).getId(), "year", FilmField.ALL)));
+        assertEquals(List.of(filmId), getIds(filmStorage.getPopular(10, 1, 2010, FilmField.ALL)));
+        assertTrue(filmStorage.getPopular(10, 1, 1967, FilmField.ALL).isEmpty());
+    }
+
+    @Test
+    void addLike_shouldBeVisibleInPopularFilms_rightAfterItReturns() {
+        createDirectors(1);
+        createUsers(2);
+
+        Long filmId = filmStorage.createFilm(initFilm(1995, List.of(1), directors)).getId();
+        Long otherId = filmStorage.createFilm(initFilm(1995, List.of(1), directors)).getId();
+
+        filmStorage.addLike(otherId, userIds.get(0));
+        assertEquals(List.of(otherId, filmId), getIds(filmStorage.getPopular(10, 1, 1995, FilmField.ALL)));
+
+        filmStorage.addLike(filmId, userIds.get(0));
+        filmStorage.addLike(filmId, userIds.get(1));
+        assertEquals(List.of(filmId, otherId), getIds(filmStorage.getPopular(10, 1, 1995, FilmField.ALL)));
+
+        filmStorage.removeLike(filmId, userIds.get(0));
+        filmStorage.removeLike(filmId, userIds.get(1));
+        assertEquals(List.of(otherId, filmId), getIds(filmStorage.getPopular(10, null, null, FilmField.ALL)));
+    }
+
+    @Test
+    void addLike_shouldReturnWhetherTheLikeWasAdded() {
+        createDirectors(1);
+        createUsers(1);
+
+        Long filmId = filmStorage.createFilm(initFilm(1995, List.of(1), directors)).getId();
+
+        assertTrue(filmStorage.addLike(filmId, userIds.get(0)));
+        assertFalse(filmStorage.addLike(filmId, userIds.get(0)));
+        assertEquals(List.of(filmId), getIds(filmStorage.getPopular(10, 1, 1995, FilmField.ALL)));
+        assertTrue(filmStorage.likeExists(filmId, userIds.get(0)));
+    }
+
+    @Test
+    void getFilmTitles_shouldReadGenresMpaAndReleaseYear() {
+        createDirectors(1);
+        createUsers(1);
+
+        Long filmId = filmStorage.createFilm(initFilm(1995, List.of(1, 2), directors)).getId();
+        Long otherId = filmStorage.createFilm(initFilm(2010, List.of(), List.of())).getId();
+        filmStorage.addLike(filmId, userIds.get(0));
+
+        FilmTitle expected = FilmTitle.builder()
+                .filmId(filmId)
+                .name("nisi eiusmod")
+                .likeCount(1)
+                .directorIds(Set.of(directors.get(0).getId()))
+                .genreIds(Set.of(1, 2))
+                .mpaId(1)
+                .releaseYear(1995)
+                .build();
+
+        assertEquals(Optional.of(expected), filmStorage.getFilmTitle(filmId));
+        assertEquals(Set.of(expected, FilmTitle.builder()
+                        .filmId(otherId)
+                        .name("nisi eiusmod")
+                        .likeCount(0)
+                        .directorIds(Set.of())
+                        .genreIds(Set.of())
+                        .mpaId(1)
+                        .releaseYear(2010)
+                        .build()),
+                Set.copyOf(filmStorage.getFilmTitles()));
+    }
+
+    @Test
+    void migration_shouldCopyReleaseYearsAndLikesIntoDirectorRows() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        migrate(MigrationVersion.fromVersion("6"));
+        createDirectors(3);
+        createUsers(8);
+
+        for (int i = 0; i < 12; i++) {
+            Film film = initFilm();
+
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, release_year, duration, mpa_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", film.getName(), film.getDescription(), film.getReleaseDate(),
+                    film.getReleaseDate().getYear(), film.getDuration(), film.getMpa().getId());
+            Long filmId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Long.class);
+
+            for (Director director : film.getDirectors()) {
+                jdbcTemplate.update("INSERT INTO film_director (film_id, director_id) VALUES (?, ?)",
+                        filmId, director.getId());
+            }
+
+            for (Long userId : userIds.subList(0, random.nextInt(userIds.size()))) {
+                jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", filmId, userId);
+            }
+        }
+
+        migrate(MigrationVersion.LATEST);
+
+        assertDirectorFilmsMatchQueries("after migration");
+    }
+
+    private void assertDirectorFilmsMatchQueries(String message) {
+        for (Director director : directors) {
+            assertEquals(jdbcTemplate.queryForList(FILMS_BY_YEAR, Long.class, director.getId()),
+                    getIds(filmStorage.getFilmsByDirector(director.getId(), "year", FilmField.ALL)),
+                    () -> String.format("Director %d by year %s", director.getId(), message));
+            assertEquals(jdbcTemplate.queryForList(FILMS_BY_LIKES, Long.class, director.getId()),
+                    getIds(filmStorage.getFilmsByDirector(director.getId(), "likes", FilmField.ALL)),
+                    () -> String.format("Director %d by likes %s", director.getId(), message));
+        }
+    }
+
+    private void createDirectors(int count) {
+        for (int i = 0; i < count; i++) {
+            Director director = new Director();
+            director.setName("Director");
+
+            directors.add(directorStorage.create(director));
+        }
+    }
+
+    private void createFilms(int count) {
+        for (int i = 0; i < count; i++) {
+            filmIds.add(filmStorage.createFilm(initFilm()).getId());
+        }
+    }
+
+    private void createUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+
+            user.setEmail("mail@mail.ru");
+            user.setLogin("dolore");
+            user.setName("Nick Name");
+            user.setBirthday(LocalDate.of(1946, 8, 20));
+
+            userIds.add(userStorage.createUser(user).getId());
+        }
+    }
+
+    private Film initFilm() {
+        Film film = new Film();
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+
+        film.setName("nisi eiusmod");
+        film.setDescription("adipisicing");
+        film.setReleaseDate(LocalDate.of(YEARS[random.nextInt(YEARS.length)], 3, 25));
+        film.setDuration(100);
+        film.setMpa(mpa);
+
+        film.addDirectors(directors.stream()
+                .filter(director -> random.nextInt(2) == 0)
+                .collect(Collectors.toList()));
+
+        return film;
+    }
+
+    private Film initFilm(int year, List<Integer> genreIds, List<Director> filmDirectors) {
+        Film film = initFilm();
+
+        film.setReleaseDate(LocalDate.of(year, 3, 25));
+        film.setDirectors(new LinkedHashSet<>(filmDirectors));
+        film.addGenres(genreIds.stream()
+                .map(id -> {
+                    Genre genre = new Genre();
+                    genre.setId(id);
+                    return genre;
+                })
+                .collect(Collectors.toList()));
+
+        return film;
+    }
+
+    /**
+     * Returns the statements other than queries executed by an action
+     */
+    private List<String> getWrites(Runnable action) {
+        SqlStatistics statistics = SqlStatementCounter.start("writes");
+
+        try {
+            action.run();
+        } finally {
+            SqlStatementCounter.stop(statistics);
+        }
+
+        return statistics.getStatements().stream()
+                .filter(sql -> !sql.startsWith("SELECT"))
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> getIds(List<Film> films) {
+        return films.stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+
+    private void migrate(MigrationVersion version) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .target(version)
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,227 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.PopularityReconciliationJob;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that reads from the popularity rollup return the same films as the aggregate query over likes,
+ * which getPopular runs for counts beyond the rollup.
+ */
+class PopularityDbStorageTest {
+
+    private static final int TOP_SIZE = 3;
+    private static final int GENRES = 6;
+    private static final int[] YEARS = {1967, 1995, 2010};
+
+    private final Random random = new Random(42);
+    private final List<Long> filmIds = new ArrayList<>();
+    private final List<Long> userIds = new ArrayList<>();
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private PopularityDbStorage popularityStorage;
+    private FilmDbStorage filmStorage;
+    private UserDbStorage userStorage;
+
+    @BeforeEach
+    void createDatabase() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:popularity-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        migrate(MigrationVersion.LATEST);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        popularityStorage = new PopularityDbStorage(jdbcTemplate, TOP_SIZE);
+        filmStorage = new FilmDbStorage(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                popularityStorage);
+        userStorage = new UserDbStorage(jdbcTemplate, popularityStorage);
+    }
+
+    @AfterEach
+    void shutdown() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    void getPopular_shouldMatchTheAggregateQuery_afterRandomChanges() {
+        createFilms(12);
+        createUsers(8);
+
+        for (int i = 0; i < 300; i++) {
+            Long filmId = filmIds.get(random.nextInt(filmIds.size()));
+            Long userId = userIds.get(random.nextInt(userIds.size()));
+            int operation = random.nextInt(20);
+
+            if (operation < 10) {
+                filmStorage.addLike(filmId, userId);
+            } else if (operation < 16) {
+                filmStorage.removeLike(filmId, userId);
+            } else if (operation < 18) {
+                Film film = initFilm();
+                film.setId(filmId);
+                filmStorage.updateFilm(film);
+            } else if (operation < 19) {
+                filmStorage.removeFilm(filmId);
+                filmIds.remove(filmId);
+                createFilms(1);
+            } else {
+                userStorage.removeUser(userId);
+                userIds.remove(userId);
+                createUsers(1);
+            }
+
+            assertRollupMatchesLikes("after operation " + i);
+        }
+    }
+
+    @Test
+    void reconcile_shouldRebuildBuckets_changedAroundTheStorage() {
+        createFilms(12);
+        createUsers(8);
+
+        for (Long filmId : filmIds.subList(6, 12)) {
+            for (Long userId : userIds.subList(0, 1 + random.nextInt(userIds.size()))) {
+                jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", filmId, userId);
+            }
+        }
+
+        PopularityReconciliationJob job = new PopularityReconciliationJob(popularityStorage);
+
+        assertTrue(job.reconcile() > 0);
+        assertRollupMatchesLikes("after reconciliation");
+        assertEquals(0, job.reconcile());
+    }
+
+    @Test
+    void migration_shouldSeedTheRollupFromExistingLikes() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        migrate(MigrationVersion.fromVersion("5"));
+        createUsers(8);
+
+        for (int i = 0; i < 12; i++) {
+            Film film = initFilm();
+
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, release_year, duration, mpa_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", film.getName(), film.getDescription(), film.getReleaseDate(),
+                    film.getReleaseDate().getYear(), film.getDuration(), film.getMpa().getId());
+            Long filmId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM films", Long.class);
+
+            for (Genre genre : film.getGenres()) {
+                jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, genre.getId());
+            }
+
+            filmIds.add(filmId);
+        }
+
+        for (Long filmId : filmIds) {
+            for (Long userId : userIds.subList(0, random.nextInt(userIds.size()))) {
+                jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", filmId, userId);
+            }
+        }
+
+        migrate(MigrationVersion.LATEST);
+        popularityStorage = new PopularityDbStorage(jdbcTemplate);
+
+        assertEquals(0, new PopularityReconciliationJob(popularityStorage).reconcile());
+    }
+
+    private void assertRollupMatchesLikes(String message) {
+        List<Integer> genreIds = new ArrayList<>(Arrays.asList(null, 1, 2, 3, 4, 5, 6));
+        List<Integer> years = new ArrayList<>(Arrays.asList(null, YEARS[0], YEARS[1], YEARS[2]));
+
+        for (Integer genreId : genreIds) {
+            for (Integer year : years) {
+                List<Long> all = getIds(filmStorage.getPopular(TOP_SIZE + 1, genreId, year, FilmField.ALL));
+                List<Long> expected = all.subList(0, Math.min(TOP_SIZE, all.size()));
+
+                assertEquals(expected, getIds(filmStorage.getPopular(TOP_SIZE, genreId, year, FilmField.ALL)),
+                        () -> String.format("Genre %s, year %s %s", genreId, year, message));
+            }
+        }
+    }
+
+    private void createFilms(int count) {
+        for (int i = 0; i < count; i++) {
+            filmIds.add(filmStorage.createFilm(initFilm()).getId());
+        }
+    }
+
+    private void createUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+
+            user.setEmail("mail@mail.ru");
+            user.setLogin("dolore");
+            user.setName("Nick Name");
+            user.setBirthday(LocalDate.of(1946, 8, 20));
+
+            userIds.add(userStorage.createUser(user).getId());
+        }
+    }
+
+    private Film initFilm() {
+        Film film = new Film();
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+
+        film.setName("nisi eiusmod");
+        film.setDescription("adipisicing");
+        film.setReleaseDate(LocalDate.of(YEARS[random.nextInt(YEARS.length)], 3, 25));
+        film.setDuration(100);
+        film.setMpa(mpa);
+
+        List<Genre> genres = new ArrayList<>();
+        for (int genreId = 1; genreId <= GENRES; genreId++) {
+            if (random.nextInt(3) == 0) {
+                Genre genre = new Genre();
+                genre.setId(genreId);
+                genres.add(genre);
+            }
+        }
+        film.addGenres(genres);
+
+        return film;
+    }
+
+    private List<Long> getIds(List<Film> films) {
+        return films.stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+
+    private void migrate(MigrationVersion version) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .target(version)
+                .load()
+                .migrate();
+    }
+}
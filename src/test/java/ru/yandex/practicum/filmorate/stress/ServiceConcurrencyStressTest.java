@@ -0,0 +1,290 @@
+package ru.yandex.practicum.filmorate.stress;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ReviewService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.PopularityStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs many threads against the services on a real H2 database and checks invariants
+ * that break with unsynchronized check-then-act sequences: no duplicate key errors,
+ * review usefulness equal to the sum of its votes, one feed event per operation
+ * and a popularity rollup and director film order that agree with the likes.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:service-concurrency-stress;DB_CLOSE_DELAY=-1")
+class ServiceConcurrencyStressTest {
+
+    private static final int THREADS = 16;
+    private static final int USERS = 10;
+    private static final int FILMS = 3;
+    private static final int REVIEWS = 3;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private DirectorService directorService;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Autowired
+    private PopularityStorage popularityStorage;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> filmIds = new ArrayList<>();
+    private final List<Long> reviewIds = new ArrayList<>();
+
+    private Director director;
+
+    @BeforeEach
+    void createData() {
+        director = new Director();
+        director.setName("Director");
+        directorService.create(director);
+
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(userService.createUser(initUser()).getId());
+        }
+
+        for (int i = 0; i < FILMS; i++) {
+            filmIds.add(filmService.createFilm(initFilm()).getId());
+        }
+
+        for (int i = 0; i < REVIEWS; i++) {
+            reviewIds.add(reviewService.createReview(initReview(filmIds.get(i % FILMS), userIds.get(i))).getReviewId());
+        }
+    }
+
+    @Test
+    void addLike_shouldStoreEveryLikeOnce_andRecordAnEventPerStoredLike() throws InterruptedException {
+        runConcurrently(thread -> {
+            for (Long filmId : filmIds) {
+                for (Long userId : userIds) {
+                    filmService.addLike(filmId, userId);
+                }
+            }
+        });
+
+        assertEquals(FILMS * USERS, count("SELECT COUNT(*) FROM film_likes WHERE film_id IN (:films)"));
+        assertEquals(FILMS * USERS, count("SELECT COUNT(*) FROM events e " +
+                "JOIN event_types et ON et.id = e.event_type " +
+                "JOIN operations o ON o.id = e.operation " +
+                "WHERE et.event_type_name = 'LIKE' AND o.operation_name = 'ADD' AND e.entity_id IN (:films) " +
+                "AND e.user_id IN (:users)"));
+    }
+
+    @Test
+    void addFriend_shouldStoreEveryFriendshipOnce_andRecordAnEventPerCall() throws InterruptedException {
+        runConcurrently(thread -> {
+            for (Long userId : userIds) {
+                for (Long friendId : userIds) {
+                    if (!Objects.equals(userId, friendId)) {
+                        userService.addFriend(userId, friendId);
+                    }
+                }
+            }
+        });
+
+        assertEquals(USERS * (USERS - 1), count("SELECT COUNT(*) FROM user_friends WHERE user_id IN (:users)"));
+        assertEquals(THREADS * USERS * (USERS - 1), count("SELECT COUNT(*) FROM events e " +
+                "JOIN event_types et ON et.id = e.event_type " +
+                "JOIN operations o ON o.id = e.operation " +
+                "WHERE et.event_type_name = 'FRIEND' AND o.operation_name = 'ADD' AND e.user_id IN (:users)"));
+    }
+
+    @Test
+    void likeAndRemoveLike_shouldNotFail() throws InterruptedException {
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                Long filmId = filmIds.get(random.nextInt(FILMS));
+                Long userId = userIds.get(random.nextInt(USERS));
+
+                if (random.nextBoolean()) {
+                    filmService.addLike(filmId, userId);
+                } else {
+                    filmService.removeLike(filmId, userId);
+                }
+            }
+        });
+
+        assertTrue(count("SELECT COUNT(*) FROM film_likes WHERE film_id IN (:films)") <= FILMS * USERS);
+    }
+
+    @Test
+    void likeAndRemoveLike_shouldKeepThePopularityRollupAndDirectorFilmsInSyncWithLikes()
+            throws InterruptedException {
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                Long filmId = filmIds.get(random.nextInt(FILMS));
+                Long userId = userIds.get(random.nextInt(USERS));
+
+                if (random.nextInt(3) > 0) {
+                    filmService.addLike(filmId, userId);
+                } else {
+                    filmService.removeLike(filmId, userId);
+                }
+            }
+        });
+
+        List<Film> all = filmStorage.getPopular(popularityStorage.getTopSize() + 1, null, 1967, FilmField.ALL);
+        List<Film> expected = all.subList(0, Math.min(popularityStorage.getTopSize(), all.size()));
+
+        assertEquals(expected, filmStorage.getPopular(popularityStorage.getTopSize(), null, 1967, FilmField.ALL));
+        assertEquals(0, count("SELECT COUNT(*) FROM film_director fd " +
+                "WHERE fd.film_id IN (:films) " +
+                "AND fd.like_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = fd.film_id)"));
+    }
+
+    @Test
+    void reviewVotes_shouldKeepUsefulEqualToTheSumOfVotes() throws InterruptedException {
+        runConcurrently(thread -> {
+            Random random = new Random(thread);
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                Long reviewId = reviewIds.get(random.nextInt(REVIEWS));
+                Long userId = userIds.get(random.nextInt(USERS));
+
+                switch (random.nextInt(4)) {
+                    case 0:
+                        reviewService.addLike(reviewId, userId);
+                        break;
+                    case 1:
+                        reviewService.addDislike(reviewId, userId);
+                        break;
+                    case 2:
+                        reviewService.removeLike(reviewId, userId);
+                        break;
+                    default:
+                        reviewService.removeDislike(reviewId, userId);
+                }
+            }
+        });
+
+        for (Long reviewId : reviewIds) {
+            int votes = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(CASE WHEN is_useful THEN 1 ELSE -1 END), 0) " +
+                    "FROM review_likes WHERE review_id = :id", Map.of("id", reviewId), Integer.class);
+
+            assertEquals(votes, reviewService.getReviewById(reviewId).getUseful());
+        }
+    }
+
+    private void runConcurrently(ThreadTask task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    task.run(thread);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Threads did not finish in time");
+        assertTrue(errors.isEmpty(), () -> errors.size() + " operations failed, first: " + errors.peek());
+    }
+
+    private int count(String sql) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("films", filmIds)
+                .addValue("users", userIds);
+
+        return jdbcTemplate.queryForObject(sql, parameters, Integer.class);
+    }
+
+    private User initUser() {
+        User user = new User();
+
+        user.setEmail("mail@mail.ru");
+        user.setLogin("dolore");
+        user.setName("Nick Name");
+        user.setBirthday(LocalDate.of(1946, 8, 20));
+
+        return user;
+    }
+
+    private Film initFilm() {
+        Film film = new Film();
+
+        Mpa mpa = new Mpa();
+        mpa.setId(1);
+
+        film.setName("nisi eiusmod");
+        film.setDescription("adipisicing");
+        film.setReleaseDate(LocalDate.of(1967, 3, 25));
+        film.setDuration(100);
+        film.setMpa(mpa);
+        film.addDirectors(List.of(director));
+
+        return film;
+    }
+
+    private Review initReview(Long filmId, Long userId) {
+        Review review = new Review();
+
+        review.setContent("This film is sooo good");
+        review.setIsPositive(true);
+        review.setFilmId(filmId);
+        review.setUserId(userId);
+
+        return review;
+    }
+
+    private interface ThreadTask {
+
+        void run(int thread);
+    }
+}